@@ -0,0 +1,59 @@
+package utils;
+
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a function's priming code (serialization round trips, client construction) ahead of the first invocation, so
+ * the class loading and JIT warm-up it triggers is paid during initialization instead of by the first request.
+ * With SnapStart the priming runs right before the snapshot is taken; otherwise it runs immediately, during the
+ * Lambda init phase. Priming code must not call remote services or capture per-request state.
+ */
+public final class StartupPriming implements Resource {
+
+    private static final String INITIALIZATION_TYPE_ENV_VARIABLE = "AWS_LAMBDA_INITIALIZATION_TYPE";
+    private static final String SNAP_START_INITIALIZATION_TYPE = "snap-start";
+
+    //The CRaC context only keeps weak references to its resources
+    private static final List<StartupPriming> REGISTERED = new ArrayList<>();
+
+    private final Runnable priming;
+
+    private StartupPriming(Runnable priming) {
+        this.priming = priming;
+    }
+
+    public static synchronized void register(Runnable priming) {
+        if (SNAP_START_INITIALIZATION_TYPE.equals(System.getenv(INITIALIZATION_TYPE_ENV_VARIABLE))) {
+            StartupPriming resource = new StartupPriming(priming);
+            REGISTERED.add(resource);
+            Core.getGlobalContext().register(resource);
+        } else {
+            runSafely(priming);
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        runSafely(priming);
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        StartupReport.markRestored();
+    }
+
+    //A failed priming only costs the warm-up, it must never prevent the function from starting
+    private static void runSafely(Runnable priming) {
+        try {
+            priming.run();
+        } catch (RuntimeException e) {
+            LambdaRuntime.getLogger().log(String.format("Startup priming failed: %s", e));
+        }
+    }
+}
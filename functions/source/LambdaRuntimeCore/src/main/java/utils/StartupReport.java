@@ -0,0 +1,67 @@
+package utils;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs once per container how long the function took to become ready, so cold start regressions can be tracked per
+ * function. The line is written in CloudWatch embedded metric format, which turns it into metrics without any
+ * additional API call.
+ */
+public final class StartupReport {
+
+    private static final String METRICS_NAMESPACE = "SPAPIReportsNotifications";
+    private static final String METRIC_FORMAT = "{\"_aws\":{\"Timestamp\":%d,\"CloudWatchMetrics\":[{\"Namespace\":\"%s\","
+            + "\"Dimensions\":[[\"FunctionName\",\"StartType\"]],\"Metrics\":[{\"Name\":\"InitDuration\",\"Unit\":\"Milliseconds\"},"
+            + "{\"Name\":\"FirstInvocationDelay\",\"Unit\":\"Milliseconds\"}]}]},"
+            + "\"FunctionName\":\"%s\",\"StartType\":\"%s\",\"InitDuration\":%d,\"FirstInvocationDelay\":%d}";
+
+    private static final AtomicBoolean REPORTED = new AtomicBoolean();
+    private static volatile long initializedUptimeMillis = -1;
+    private static volatile long restoredAtMillis = -1;
+
+    private StartupReport() {
+    }
+
+    /**
+     * To be called at the end of the handler's static initialization.
+     */
+    public static void markInitialized() {
+        initializedUptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    static void markRestored() {
+        restoredAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * To be called at the start of every invocation, only the first call per container logs.
+     */
+    public static void report(Context context) {
+        if (!REPORTED.compareAndSet(false, true)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        String startType;
+        long initDuration;
+        long firstInvocationDelay;
+
+        if (restoredAtMillis > 0) {
+            //JVM uptime includes the time spent in the snapshot, only the time since restore is meaningful
+            startType = "SnapStart";
+            initDuration = 0;
+            firstInvocationDelay = now - restoredAtMillis;
+        } else {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            startType = "OnDemand";
+            initDuration = Math.max(initializedUptimeMillis, 0);
+            firstInvocationDelay = uptime - initDuration;
+        }
+
+        context.getLogger().log(String.format(METRIC_FORMAT, now, METRICS_NAMESPACE, context.getFunctionName(), startType,
+                initDuration, firstInvocationDelay) + System.lineSeparator());
+    }
+}
@@ -0,0 +1,400 @@
+package harness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the AWS services the functions call, all behind a single endpoint: DynamoDB, Secrets Manager, KMS,
+ * Step Functions and STS through their JSON and query protocols, and S3 path-style requests for everything else.
+ * Requests are not authenticated, and only the operations and expressions the functions use are supported.
+ */
+final class FakeAwsServer {
+
+    /**
+     * Receives the state machine executions started through StartExecution.
+     */
+    interface ExecutionStarter {
+
+        /**
+         * Returns false if an execution with the same name was started already.
+         */
+        boolean start(String name, String input);
+    }
+
+    private static final String ACCOUNT_ID = "000000000000";
+    private static final String DYNAMODB_ERROR_PREFIX = "com.amazonaws.dynamodb.v20120810#";
+    private static final byte[] CIPHERTEXT_MAGIC = "harness-kms:".getBytes(StandardCharsets.US_ASCII);
+    private static final int DEFAULT_DATA_KEY_BYTES = 32;
+
+    //Key attributes of the tables the functions use, hash key first
+    private static final Map<String, List<String>> KEY_SCHEMAS = ImmutableMap.of(
+            LoadHarness.SELLING_PARTNERS_TABLE_NAME, ImmutableList.of("SellerId"),
+            LoadHarness.REPORTS_TABLE_NAME, ImmutableList.of("ReportId", "SellerId"),
+            LoadHarness.PROCESSED_NOTIFICATIONS_TABLE_NAME, ImmutableList.of("DeduplicationKey"),
+            LoadHarness.ACCESS_TOKENS_TABLE_NAME, ImmutableList.of("TokenKey"));
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SecureRandom random = new SecureRandom();
+    private final HttpServer server;
+    private final FakeS3 s3 = new FakeS3();
+    private final Map<String, String> secrets;
+    private final String encryptionKeyArn;
+    private final ExecutionStarter executionStarter;
+    private final Map<String, Map<String, JsonNode>> tables = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+
+    FakeAwsServer(int port, Map<String, String> secrets, String encryptionKeyArn, ExecutionStarter executionStarter) {
+        this.secrets = secrets;
+        this.encryptionKeyArn = encryptionKeyArn;
+        this.executionStarter = executionStarter;
+        KEY_SCHEMAS.keySet().forEach(table -> tables.put(table, new ConcurrentHashMap<>()));
+
+        server = HttpExchanges.newServer(port, "fake-aws");
+        server.createContext("/", this::handle);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    FakeS3 getS3() {
+        return s3;
+    }
+
+    long getRequests() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+
+        try {
+            String target = exchange.getRequestHeaders().getFirst("X-Amz-Target");
+            if (target != null) {
+                handleJsonRequest(exchange, target);
+            } else if ("POST".equals(exchange.getRequestMethod()) && "/".equals(exchange.getRequestURI().getPath())) {
+                handleStsRequest(exchange);
+            } else {
+                s3.handle(exchange);
+            }
+        } catch (RuntimeException e) {
+            HttpExchanges.send(exchange, 500, "application/json",
+                    String.format("{\"__type\":\"InternalFailure\",\"message\":\"%s\"}", e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleJsonRequest(HttpExchange exchange, String target) throws IOException {
+        JsonNode request = mapper.readTree(HttpExchanges.readBody(exchange));
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+
+        JsonNode response;
+        try {
+            switch (target) {
+                case "DynamoDB_20120810.GetItem":
+                    response = getItem(request);
+                    break;
+                case "DynamoDB_20120810.PutItem":
+                    response = putItem(request);
+                    break;
+                case "DynamoDB_20120810.DeleteItem":
+                    response = deleteItem(request);
+                    break;
+                case "DynamoDB_20120810.BatchWriteItem":
+                    response = batchWriteItem(request);
+                    break;
+                case "secretsmanager.GetSecretValue":
+                    response = getSecretValue(request);
+                    break;
+                case "TrentService.GenerateDataKey":
+                    response = generateDataKey(request);
+                    break;
+                case "TrentService.Encrypt":
+                    response = encrypt(request);
+                    break;
+                case "TrentService.Decrypt":
+                    response = decrypt(request);
+                    break;
+                case "AWSStepFunctions.StartExecution":
+                    response = startExecution(request);
+                    break;
+                default:
+                    throw new ServiceException("UnknownOperationException", target);
+            }
+        } catch (ServiceException e) {
+            ObjectNode error = mapper.createObjectNode()
+                    .put("__type", e.getType())
+                    .put("message", e.getMessage());
+            HttpExchanges.send(exchange, 400, contentType, mapper.writeValueAsBytes(error));
+            return;
+        }
+
+        HttpExchanges.send(exchange, 200, contentType, mapper.writeValueAsBytes(response));
+    }
+
+    private JsonNode getItem(JsonNode request) {
+        Map<String, JsonNode> table = getTable(request);
+        JsonNode item = table.get(getKey(request.path("TableName").asText(), request.path("Key")));
+
+        ObjectNode response = mapper.createObjectNode();
+        if (item != null) {
+            response.set("Item", item);
+        }
+        return response;
+    }
+
+    private JsonNode putItem(JsonNode request) {
+        Map<String, JsonNode> table = getTable(request);
+        JsonNode item = request.path("Item");
+        String key = getKey(request.path("TableName").asText(), item);
+
+        table.compute(key, (itemKey, existingItem) -> {
+            checkCondition(request, existingItem);
+            return item;
+        });
+
+        return mapper.createObjectNode();
+    }
+
+    private JsonNode deleteItem(JsonNode request) {
+        Map<String, JsonNode> table = getTable(request);
+        String key = getKey(request.path("TableName").asText(), request.path("Key"));
+
+        table.computeIfPresent(key, (itemKey, existingItem) -> {
+            checkCondition(request, existingItem);
+            return null;
+        });
+
+        return mapper.createObjectNode();
+    }
+
+    //Evaluates the conditions the functions write with: disjunctions of conjunctions of attribute_not_exists(name),
+    //name = :value and name < :value
+    private static void checkCondition(JsonNode request, JsonNode existingItem) {
+        String condition = request.path("ConditionExpression").asText("");
+        if (condition.isEmpty()) {
+            return;
+        }
+
+        for (String disjunct : condition.split(" OR ")) {
+            boolean matches = true;
+            for (String term : disjunct.replaceAll("[()]", " ").trim().split(" AND ")) {
+                matches &= evaluate(request, existingItem, term.trim());
+            }
+            if (matches) {
+                return;
+            }
+        }
+
+        throw new ServiceException(DYNAMODB_ERROR_PREFIX + "ConditionalCheckFailedException",
+                "The conditional request failed");
+    }
+
+    private static boolean evaluate(JsonNode request, JsonNode existingItem, String term) {
+        String[] operands = term.split("\\s+");
+        if (operands.length == 2 && "attribute_not_exists".equals(operands[0])) {
+            return existingItem == null || !existingItem.has(getAttributeName(request, operands[1]));
+        }
+        if (operands.length != 3 || !("=".equals(operands[1]) || "<".equals(operands[1]))) {
+            throw new ServiceException(DYNAMODB_ERROR_PREFIX + "ValidationException",
+                    "Unsupported condition expression: " + term);
+        }
+
+        JsonNode attribute = existingItem == null ? null : existingItem.get(getAttributeName(request, operands[0]));
+        JsonNode value = request.path("ExpressionAttributeValues").path(operands[2]);
+        if (attribute == null) {
+            return false;
+        }
+        if ("=".equals(operands[1])) {
+            return attribute.equals(value);
+        }
+
+        return attribute.has("N") && value.has("N")
+                && Double.parseDouble(attribute.get("N").asText()) < Double.parseDouble(value.get("N").asText());
+    }
+
+    private static String getAttributeName(JsonNode request, String name) {
+        return name.startsWith("#") ? request.path("ExpressionAttributeNames").path(name).asText() : name;
+    }
+
+    private JsonNode batchWriteItem(JsonNode request) {
+        Iterator<Map.Entry<String, JsonNode>> requestItems = request.path("RequestItems").fields();
+        while (requestItems.hasNext()) {
+            Map.Entry<String, JsonNode> tableRequests = requestItems.next();
+            Map<String, JsonNode> table = getTable(tableRequests.getKey());
+
+            for (JsonNode writeRequest : tableRequests.getValue()) {
+                if (writeRequest.has("PutRequest")) {
+                    JsonNode item = writeRequest.path("PutRequest").path("Item");
+                    table.put(getKey(tableRequests.getKey(), item), item);
+                } else {
+                    table.remove(getKey(tableRequests.getKey(), writeRequest.path("DeleteRequest").path("Key")));
+                }
+            }
+        }
+
+        ObjectNode response = mapper.createObjectNode();
+        response.putObject("UnprocessedItems");
+        return response;
+    }
+
+    private JsonNode getSecretValue(JsonNode request) {
+        String secretId = request.path("SecretId").asText();
+        String secret = secrets.get(secretId);
+        if (secret == null) {
+            throw new ServiceException("ResourceNotFoundException", "Secrets Manager can't find the specified secret.");
+        }
+
+        return mapper.createObjectNode()
+                .put("ARN", String.format("arn:aws:secretsmanager:%s:%s:secret:%s", LoadHarness.AWS_REGION, ACCOUNT_ID, secretId))
+                .put("Name", secretId)
+                .put("SecretString", secret)
+                .put("VersionId", UUID.randomUUID().toString())
+                .put("CreatedDate", Instant.now().getEpochSecond());
+    }
+
+    //Ciphertexts are the plaintext behind a marker, which is enough for the encryption SDK to wrap its data keys
+    private JsonNode generateDataKey(JsonNode request) {
+        int numberOfBytes = request.has("NumberOfBytes") ? request.get("NumberOfBytes").asInt()
+                : "AES_128".equals(request.path("KeySpec").asText()) ? 16 : DEFAULT_DATA_KEY_BYTES;
+
+        byte[] plaintext = new byte[numberOfBytes];
+        random.nextBytes(plaintext);
+
+        return mapper.createObjectNode()
+                .put("KeyId", getKeyArn(request))
+                .put("Plaintext", Base64.getEncoder().encodeToString(plaintext))
+                .put("CiphertextBlob", Base64.getEncoder().encodeToString(wrap(plaintext)));
+    }
+
+    private JsonNode encrypt(JsonNode request) {
+        byte[] plaintext = Base64.getDecoder().decode(request.path("Plaintext").asText());
+
+        return mapper.createObjectNode()
+                .put("KeyId", getKeyArn(request))
+                .put("CiphertextBlob", Base64.getEncoder().encodeToString(wrap(plaintext)));
+    }
+
+    private JsonNode decrypt(JsonNode request) {
+        byte[] ciphertext = Base64.getDecoder().decode(request.path("CiphertextBlob").asText());
+        if (ciphertext.length < CIPHERTEXT_MAGIC.length
+                || !Arrays.equals(Arrays.copyOf(ciphertext, CIPHERTEXT_MAGIC.length), CIPHERTEXT_MAGIC)) {
+            throw new ServiceException("InvalidCiphertextException", "The ciphertext was not produced by this key");
+        }
+
+        byte[] plaintext = Arrays.copyOfRange(ciphertext, CIPHERTEXT_MAGIC.length, ciphertext.length);
+        return mapper.createObjectNode()
+                .put("KeyId", getKeyArn(request))
+                .put("Plaintext", Base64.getEncoder().encodeToString(plaintext));
+    }
+
+    private JsonNode startExecution(JsonNode request) {
+        String stateMachineArn = request.path("stateMachineArn").asText();
+        String name = request.path("name").asText(UUID.randomUUID().toString());
+
+        if (!executionStarter.start(name, request.path("input").asText("{}"))) {
+            throw new ServiceException("ExecutionAlreadyExists", "Execution Already Exists: " + name);
+        }
+
+        return mapper.createObjectNode()
+                .put("executionArn", stateMachineArn.replace(":stateMachine:", ":execution:") + ":" + name)
+                .put("startDate", System.currentTimeMillis() / 1000.0);
+    }
+
+    private void handleStsRequest(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = HttpExchanges.parseQuery(new String(HttpExchanges.readBody(exchange), StandardCharsets.UTF_8));
+        if (!"AssumeRole".equals(parameters.get("Action"))) {
+            HttpExchanges.send(exchange, 400, "text/xml", "<ErrorResponse><Error><Type>Sender</Type>"
+                    + "<Code>InvalidAction</Code><Message>Unsupported action</Message></Error></ErrorResponse>");
+            return;
+        }
+
+        String roleArn = parameters.get("RoleArn");
+        String sessionName = parameters.get("RoleSessionName");
+        HttpExchanges.send(exchange, 200, "text/xml", "<AssumeRoleResponse xmlns=\"https://sts.amazonaws.com/doc/2011-06-15/\">"
+                + "<AssumeRoleResult>"
+                + "<Credentials>"
+                + "<AccessKeyId>ASIAHARNESS" + Math.abs(random.nextInt()) + "</AccessKeyId>"
+                + "<SecretAccessKey>" + UUID.randomUUID() + "</SecretAccessKey>"
+                + "<SessionToken>" + UUID.randomUUID() + "</SessionToken>"
+                + "<Expiration>" + Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS) + "</Expiration>"
+                + "</Credentials>"
+                + "<AssumedRoleUser>"
+                + "<AssumedRoleId>AROAHARNESS:" + sessionName + "</AssumedRoleId>"
+                + "<Arn>" + roleArn + "/" + sessionName + "</Arn>"
+                + "</AssumedRoleUser>"
+                + "</AssumeRoleResult>"
+                + "<ResponseMetadata><RequestId>" + UUID.randomUUID() + "</RequestId></ResponseMetadata>"
+                + "</AssumeRoleResponse>");
+    }
+
+    private Map<String, JsonNode> getTable(JsonNode request) {
+        return getTable(request.path("TableName").asText());
+    }
+
+    private Map<String, JsonNode> getTable(String tableName) {
+        Map<String, JsonNode> table = tables.get(tableName);
+        if (table == null) {
+            throw new ServiceException(DYNAMODB_ERROR_PREFIX + "ResourceNotFoundException",
+                    "Requested resource not found: " + tableName);
+        }
+        return table;
+    }
+
+    private static String getKey(String tableName, JsonNode item) {
+        StringBuilder key = new StringBuilder();
+        for (String attribute : KEY_SCHEMAS.get(tableName)) {
+            key.append(item.path(attribute)).append('|');
+        }
+        return key.toString();
+    }
+
+    private String getKeyArn(JsonNode request) {
+        String keyId = request.path("KeyId").asText("");
+        return keyId.startsWith("arn:") ? keyId : encryptionKeyArn;
+    }
+
+    private static byte[] wrap(byte[] plaintext) {
+        byte[] ciphertext = Arrays.copyOf(CIPHERTEXT_MAGIC, CIPHERTEXT_MAGIC.length + plaintext.length);
+        System.arraycopy(plaintext, 0, ciphertext, CIPHERTEXT_MAGIC.length, plaintext.length);
+        return ciphertext;
+    }
+
+    private static final class ServiceException extends RuntimeException {
+
+        private final String type;
+
+        ServiceException(String type, String message) {
+            super(message);
+            this.type = type;
+        }
+
+        String getType() {
+            return type;
+        }
+    }
+}
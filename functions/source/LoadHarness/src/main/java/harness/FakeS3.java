@@ -0,0 +1,243 @@
+package harness;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Path-style S3 stand-in covering what the storage functions do: single part uploads, multipart uploads, and reads
+ * of what was stored. Only the size of the objects is kept, uploaded bytes are hashed for the ETag and dropped, so
+ * that large runs don't fill the heap of the harness.
+ */
+final class FakeS3 {
+
+    private static final String XML_CONTENT_TYPE = "application/xml";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, Long> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, Long>> uploads = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong storedObjects = new AtomicLong();
+
+    void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getRawPath();
+        int keyStart = path.indexOf('/', 1);
+        if (keyStart < 0) {
+            sendError(exchange, 400, "InvalidRequest", "Only object operations are supported");
+            return;
+        }
+
+        String bucket = HttpExchanges.decode(path.substring(1, keyStart));
+        String key = HttpExchanges.decode(path.substring(keyStart + 1));
+        String location = bucket + "/" + key;
+        Map<String, String> query = HttpExchanges.parseQuery(exchange.getRequestURI().getRawQuery());
+        String uploadId = query.get("uploadId");
+
+        switch (exchange.getRequestMethod()) {
+            case "PUT":
+                if (uploadId != null) {
+                    uploadPart(exchange, uploadId, Integer.parseInt(query.get("partNumber")));
+                } else {
+                    putObject(exchange, location);
+                }
+                break;
+            case "POST":
+                if (query.containsKey("uploads")) {
+                    initiateMultipartUpload(exchange, bucket, key);
+                } else {
+                    completeMultipartUpload(exchange, bucket, key, location, uploadId);
+                }
+                break;
+            case "DELETE":
+                if (uploadId != null) {
+                    uploads.remove(uploadId);
+                } else {
+                    objects.remove(location);
+                }
+                HttpExchanges.sendEmpty(exchange, 204);
+                break;
+            case "HEAD":
+            case "GET":
+                getObject(exchange, location);
+                break;
+            default:
+                sendError(exchange, 405, "MethodNotAllowed", exchange.getRequestMethod());
+        }
+    }
+
+    long getStoredBytes() {
+        return storedBytes.get();
+    }
+
+    long getStoredObjects() {
+        return storedObjects.get();
+    }
+
+    private void putObject(HttpExchange exchange, String location) throws IOException {
+        Hasher md5 = Hashing.md5().newHasher();
+        long size = consume(exchange, md5);
+
+        objects.put(location, size);
+        storedBytes.addAndGet(size);
+        storedObjects.incrementAndGet();
+
+        exchange.getResponseHeaders().set("ETag", "\"" + md5.hash() + "\"");
+        HttpExchanges.sendEmpty(exchange, 200);
+    }
+
+    private void initiateMultipartUpload(HttpExchange exchange, String bucket, String key) throws IOException {
+        HttpExchanges.readBody(exchange);
+
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentHashMap<>());
+
+        HttpExchanges.send(exchange, 200, XML_CONTENT_TYPE, "<InitiateMultipartUploadResult>"
+                + "<Bucket>" + xml(bucket) + "</Bucket>"
+                + "<Key>" + xml(key) + "</Key>"
+                + "<UploadId>" + uploadId + "</UploadId>"
+                + "</InitiateMultipartUploadResult>");
+    }
+
+    private void uploadPart(HttpExchange exchange, String uploadId, int partNumber) throws IOException {
+        Map<Integer, Long> parts = uploads.get(uploadId);
+        if (parts == null) {
+            HttpExchanges.readBody(exchange);
+            sendError(exchange, 404, "NoSuchUpload", uploadId);
+            return;
+        }
+
+        Hasher md5 = Hashing.md5().newHasher();
+        parts.put(partNumber, consume(exchange, md5));
+
+        exchange.getResponseHeaders().set("ETag", "\"" + md5.hash() + "\"");
+        HttpExchanges.sendEmpty(exchange, 200);
+    }
+
+    private void completeMultipartUpload(HttpExchange exchange, String bucket, String key, String location,
+                                         String uploadId) throws IOException {
+        HttpExchanges.readBody(exchange);
+
+        Map<Integer, Long> parts = uploadId == null ? null : uploads.remove(uploadId);
+        if (parts == null) {
+            sendError(exchange, 404, "NoSuchUpload", String.valueOf(uploadId));
+            return;
+        }
+
+        long size = parts.values().stream().mapToLong(Long::longValue).sum();
+        objects.put(location, size);
+        storedBytes.addAndGet(size);
+        storedObjects.incrementAndGet();
+
+        HttpExchanges.send(exchange, 200, XML_CONTENT_TYPE, "<CompleteMultipartUploadResult>"
+                + "<Location>" + xml(location) + "</Location>"
+                + "<Bucket>" + xml(bucket) + "</Bucket>"
+                + "<Key>" + xml(key) + "</Key>"
+                + "<ETag>\"" + uploadId.replace("-", "") + "-" + parts.size() + "\"</ETag>"
+                + "</CompleteMultipartUploadResult>");
+    }
+
+    //Stored objects are read back as zeros of their original size
+    private void getObject(HttpExchange exchange, String location) throws IOException {
+        HttpExchanges.readBody(exchange);
+
+        Long size = objects.get(location);
+        if (size == null) {
+            sendError(exchange, 404, "NoSuchKey", location);
+            return;
+        }
+
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(size));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (OutputStream body = exchange.getResponseBody()) {
+            for (long remaining = size; remaining > 0; remaining -= buffer.length) {
+                body.write(buffer, 0, (int) Math.min(buffer.length, remaining));
+            }
+        }
+    }
+
+    /**
+     * Reads the payload, decoding the aws-chunked framing the SDK uses for signed streaming uploads, and returns its
+     * size in bytes.
+     */
+    private static long consume(HttpExchange exchange, Hasher md5) throws IOException {
+        String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        boolean chunked = (contentSha256 != null && contentSha256.startsWith("STREAMING-"))
+                || (contentEncoding != null && contentEncoding.contains("aws-chunked"));
+
+        InputStream body = exchange.getRequestBody();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        long size = 0;
+
+        if (!chunked) {
+            for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+                md5.putBytes(buffer, 0, read);
+                size += read;
+            }
+            return size;
+        }
+
+        while (true) {
+            String header = readLine(body);
+            int extensionStart = header.indexOf(';');
+            long chunkSize = Long.parseLong(extensionStart < 0 ? header : header.substring(0, extensionStart), 16);
+            if (chunkSize == 0) {
+                return size;
+            }
+
+            for (long remaining = chunkSize; remaining > 0; ) {
+                int read = body.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Truncated aws-chunked payload");
+                }
+                md5.putBytes(buffer, 0, read);
+                remaining -= read;
+            }
+            size += chunkSize;
+            readLine(body);
+        }
+    }
+
+    private static String readLine(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = inputStream.read(); b != '\n'; b = inputStream.read()) {
+            if (b < 0) {
+                throw new EOFException("Truncated aws-chunked payload");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+
+        return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    private static void sendError(HttpExchange exchange, int statusCode, String code, String message) throws IOException {
+        HttpExchanges.send(exchange, statusCode, XML_CONTENT_TYPE, "<Error>"
+                + "<Code>" + code + "</Code>"
+                + "<Message>" + xml(message) + "</Message>"
+                + "</Error>");
+    }
+
+    private static String xml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,350 @@
+package harness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stand-in for Login With Amazon and the SP-API operations the functions call: report creation and report
+ * documents, notification destinations and subscriptions. Every created report finishes after the configured
+ * processing delay, when its REPORT_PROCESSING_FINISHED notification is handed to the notification sink, as SP-API
+ * does through the SQS destination. Report documents are served by the same server, from a synthetic document
+ * generated once.
+ * Access tokens carry the seller id of the refresh token they were exchanged for, which is how the reports are
+ * attributed to sellers.
+ */
+final class FakeSellingPartnerApiServer {
+
+    static final String LWA_PATH = "/auth/o2/token";
+
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final String REPORTS_PATH = "/reports/2021-06-30/";
+    private static final String NOTIFICATIONS_PATH = "/notifications/v1/";
+    private static final String DOCUMENTS_PATH = "/documents/";
+    private static final String ACCESS_TOKEN_HEADER = "x-amz-access-token";
+    private static final String REFRESH_TOKEN_PREFIX = "Atzr|";
+    private static final String GRANTLESS_SELLER_ID = "grantless";
+    private static final long ACCESS_TOKEN_TTL_SECONDS = 3600;
+    private static final long FIRST_REPORT_ID = 50000000000L;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final String baseUrl;
+    private final byte[] document;
+    private final boolean gzipDocuments;
+    private final long processingDelayMillis;
+    private final Consumer<String> notificationSink;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("report-processing-%d")
+            .setDaemon(true)
+            .build());
+
+    private final AtomicLong reportIds = new AtomicLong(FIRST_REPORT_ID);
+    private final AtomicLong accessTokens = new AtomicLong();
+    private final AtomicLong documentBytes = new AtomicLong();
+    private final Map<String, Long> reportCreatedNanos = new ConcurrentHashMap<>();
+    private final Map<String, Long> reportFinishedNanos = new ConcurrentHashMap<>();
+    private final Map<String, ObjectNode> destinations = new ConcurrentHashMap<>();
+    private final Map<String, ObjectNode> subscriptions = new ConcurrentHashMap<>();
+
+    FakeSellingPartnerApiServer(int port, int documentSizeKb, boolean gzipDocuments, long processingDelayMillis,
+                                Consumer<String> notificationSink) {
+        this.baseUrl = "http://127.0.0.1:" + port;
+        this.document = newDocument(documentSizeKb * 1024, gzipDocuments);
+        this.gzipDocuments = gzipDocuments;
+        this.processingDelayMillis = processingDelayMillis;
+        this.notificationSink = notificationSink;
+
+        server = HttpExchanges.newServer(port, "fake-sp-api");
+        server.createContext(LWA_PATH, exchange -> handle(exchange, this::getAccessToken));
+        server.createContext(REPORTS_PATH, exchange -> handle(exchange, this::handleReports));
+        server.createContext(NOTIFICATIONS_PATH, exchange -> handle(exchange, this::handleNotifications));
+        server.createContext(DOCUMENTS_PATH, exchange -> handle(exchange, this::getDocument));
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        scheduler.shutdownNow();
+    }
+
+    static String getRefreshToken(String sellerId) {
+        return REFRESH_TOKEN_PREFIX + sellerId;
+    }
+
+    long getReportsCreated() {
+        return reportIds.get() - FIRST_REPORT_ID;
+    }
+
+    long getAccessTokensIssued() {
+        return accessTokens.get();
+    }
+
+    long getDocumentBytesServed() {
+        return documentBytes.get();
+    }
+
+    int getDocumentSize() {
+        return document.length;
+    }
+
+    /**
+     * System.nanoTime() of the createReport call of the report, null if it is unknown.
+     */
+    Long getReportCreatedNanos(String reportId) {
+        return reportCreatedNanos.get(reportId);
+    }
+
+    /**
+     * System.nanoTime() at which the notification of the report was published, null if it wasn't yet.
+     */
+    Long getReportFinishedNanos(String reportId) {
+        return reportFinishedNanos.get(reportId);
+    }
+
+    private void getAccessToken(HttpExchange exchange) throws IOException {
+        byte[] body = HttpExchanges.readBody(exchange);
+        String refreshToken;
+        if (body.length > 0 && body[0] == '{') {
+            refreshToken = mapper.readTree(body).path("refresh_token").asText("");
+        } else {
+            refreshToken = HttpExchanges.parseQuery(new String(body, StandardCharsets.UTF_8)).getOrDefault("refresh_token", "");
+        }
+
+        String sellerId = refreshToken.startsWith(REFRESH_TOKEN_PREFIX)
+                ? refreshToken.substring(REFRESH_TOKEN_PREFIX.length())
+                : GRANTLESS_SELLER_ID;
+
+        ObjectNode response = mapper.createObjectNode()
+                .put("access_token", String.format("Atza|%s|%d", sellerId, accessTokens.incrementAndGet()))
+                .put("token_type", "bearer")
+                .put("expires_in", ACCESS_TOKEN_TTL_SECONDS);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleReports(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(REPORTS_PATH.length());
+        JsonNode request = readJson(exchange);
+        String sellerId = getSellerId(exchange);
+        if (sellerId == null) {
+            sendErrors(exchange, 403, "Unauthorized", "Access to requested resource is denied.");
+            return;
+        }
+
+        if ("POST".equals(exchange.getRequestMethod()) && "reports".equals(path)) {
+            createReport(exchange, sellerId, request);
+        } else if ("GET".equals(exchange.getRequestMethod()) && path.startsWith("documents/")) {
+            String reportDocumentId = path.substring("documents/".length());
+
+            ObjectNode response = mapper.createObjectNode()
+                    .put("reportDocumentId", reportDocumentId)
+                    .put("url", baseUrl + DOCUMENTS_PATH + reportDocumentId);
+            if (gzipDocuments) {
+                response.put("compressionAlgorithm", "GZIP");
+            }
+            sendJson(exchange, 200, response);
+        } else {
+            sendErrors(exchange, 404, "NotFound", "Resource not found: " + path);
+        }
+    }
+
+    private void createReport(HttpExchange exchange, String sellerId, JsonNode request) throws IOException {
+        String reportId = String.valueOf(reportIds.getAndIncrement());
+        String reportType = request.path("reportType").asText();
+        reportCreatedNanos.put(reportId, System.nanoTime());
+
+        scheduler.schedule(() -> finishReport(sellerId, reportId, reportType), processingDelayMillis, TimeUnit.MILLISECONDS);
+
+        sendJson(exchange, 202, mapper.createObjectNode().put("reportId", reportId));
+    }
+
+    private void finishReport(String sellerId, String reportId, String reportType) {
+        ObjectNode subscription = subscriptions.get(sellerId + "#REPORT_PROCESSING_FINISHED");
+
+        ObjectNode notification = mapper.createObjectNode()
+                .put("notificationVersion", "2020-09-04")
+                .put("notificationType", "REPORT_PROCESSING_FINISHED")
+                .put("payloadVersion", "2020-09-04")
+                .put("eventTime", Instant.now().toString());
+        notification.putObject("payload").putObject("reportProcessingFinishedNotification")
+                .put("sellerId", sellerId)
+                .put("accountId", "amzn1.merchant.o." + sellerId)
+                .put("reportId", reportId)
+                .put("reportType", reportType)
+                .put("processingStatus", "DONE")
+                .put("reportDocumentId", "amzn1.spdoc.1.4.na." + UUID.randomUUID() + "." + reportId);
+        notification.putObject("notificationMetadata")
+                .put("applicationId", "amzn1.sellerapps.app.harness")
+                .put("subscriptionId", subscription == null ? "" : subscription.path("subscriptionId").asText())
+                .put("publishTime", Instant.now().toString())
+                .put("notificationId", UUID.randomUUID().toString());
+
+        reportFinishedNanos.put(reportId, System.nanoTime());
+        notificationSink.accept(notification.toString());
+    }
+
+    private void handleNotifications(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(NOTIFICATIONS_PATH.length());
+        JsonNode request = readJson(exchange);
+        String sellerId = getSellerId(exchange);
+        if (sellerId == null) {
+            sendErrors(exchange, 403, "Unauthorized", "Access to requested resource is denied.");
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        if ("destinations".equals(path)) {
+            if ("POST".equals(method)) {
+                createDestination(exchange, request);
+            } else {
+                ObjectNode response = mapper.createObjectNode();
+                response.putArray("payload").addAll(destinations.values());
+                sendJson(exchange, 200, response);
+            }
+        } else if (path.startsWith("subscriptions/")) {
+            String notificationType = path.substring("subscriptions/".length());
+            String subscriptionKey = sellerId + "#" + notificationType;
+
+            if ("POST".equals(method)) {
+                ObjectNode subscription = mapper.createObjectNode()
+                        .put("subscriptionId", UUID.randomUUID().toString())
+                        .put("payloadVersion", request.path("payloadVersion").asText())
+                        .put("destinationId", request.path("destinationId").asText());
+                if (subscriptions.putIfAbsent(subscriptionKey, subscription) != null) {
+                    sendErrors(exchange, 409, "Conflict", "Subscription already exists");
+                    return;
+                }
+                sendPayload(exchange, subscription);
+            } else {
+                ObjectNode subscription = subscriptions.get(subscriptionKey);
+                if (subscription == null) {
+                    sendErrors(exchange, 404, "NotFound", "Subscription not found");
+                    return;
+                }
+                sendPayload(exchange, subscription);
+            }
+        } else {
+            sendErrors(exchange, 404, "NotFound", "Resource not found: " + path);
+        }
+    }
+
+    private void createDestination(HttpExchange exchange, JsonNode request) throws IOException {
+        String sqsArn = request.path("resourceSpecification").path("sqs").path("arn").asText();
+
+        ObjectNode destination = mapper.createObjectNode()
+                .put("name", request.path("name").asText())
+                .put("destinationId", UUID.randomUUID().toString());
+        destination.putObject("resource").putObject("sqs").put("arn", sqsArn);
+
+        if (destinations.putIfAbsent(sqsArn, destination) != null) {
+            sendErrors(exchange, 409, "Conflict", "Destination already exists");
+            return;
+        }
+        sendPayload(exchange, destination);
+    }
+
+    private void getDocument(HttpExchange exchange) throws IOException {
+        HttpExchanges.readBody(exchange);
+
+        exchange.getResponseHeaders().set("Content-Type", gzipDocuments ? "application/x-gzip" : "text/plain");
+        exchange.sendResponseHeaders(200, document.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            for (int offset = 0; offset < document.length; offset += WRITE_BUFFER_SIZE) {
+                body.write(document, offset, Math.min(WRITE_BUFFER_SIZE, document.length - offset));
+            }
+        }
+        documentBytes.addAndGet(document.length);
+    }
+
+    private String getSellerId(HttpExchange exchange) {
+        String accessToken = exchange.getRequestHeaders().getFirst(ACCESS_TOKEN_HEADER);
+        if (accessToken == null || !accessToken.startsWith("Atza|")) {
+            return null;
+        }
+
+        String[] parts = accessToken.split("\\|");
+        return parts.length > 1 ? parts[1] : null;
+    }
+
+    private JsonNode readJson(HttpExchange exchange) throws IOException {
+        byte[] body = HttpExchanges.readBody(exchange);
+        return body.length == 0 ? mapper.createObjectNode() : mapper.readTree(body);
+    }
+
+    private void sendPayload(HttpExchange exchange, JsonNode payload) throws IOException {
+        ObjectNode response = mapper.createObjectNode();
+        response.set("payload", payload);
+        sendJson(exchange, 200, response);
+    }
+
+    private void sendErrors(HttpExchange exchange, int statusCode, String code, String message) throws IOException {
+        ObjectNode response = mapper.createObjectNode();
+        response.putArray("errors").addObject()
+                .put("code", code)
+                .put("message", message);
+        sendJson(exchange, statusCode, response);
+    }
+
+    private void sendJson(HttpExchange exchange, int statusCode, JsonNode response) throws IOException {
+        HttpExchanges.send(exchange, statusCode, JSON_CONTENT_TYPE, mapper.writeValueAsBytes(response));
+    }
+
+    private static void handle(HttpExchange exchange, ExchangeHandler handler) throws IOException {
+        try {
+            handler.handle(exchange);
+        } catch (RuntimeException e) {
+            HttpExchanges.send(exchange, 500, JSON_CONTENT_TYPE,
+                    String.format("{\"errors\":[{\"code\":\"InternalFailure\",\"message\":\"%s\"}]}", e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    //Tab separated rows, like the flat file reports, compressed as SP-API does for GZIP documents
+    private static byte[] newDocument(int size, boolean gzip) {
+        StringBuilder rows = new StringBuilder(size + 128);
+        rows.append("sku\tasin\tprice\tquantity\n");
+        for (int row = 0; rows.length() < size; row++) {
+            rows.append(String.format("SKU-%08d\tB%09d\t%d.%02d\t%d\n", row, row, row % 500, row % 100, row % 1000));
+        }
+        byte[] document = rows.substring(0, size).getBytes(StandardCharsets.US_ASCII);
+        if (!gzip) {
+            return document;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private interface ExchangeHandler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
@@ -0,0 +1,107 @@
+package harness;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Context of a single invocation. Function logs go to the given stream, prefixed with the function name, or nowhere.
+ */
+final class HarnessContext implements Context {
+
+    private final String requestId = UUID.randomUUID().toString();
+    private final String functionName;
+    private final int memoryLimitMb;
+    private final long deadlineMillis;
+    private final LambdaLogger logger;
+
+    HarnessContext(String functionName, int memoryLimitMb, int timeoutSeconds, PrintStream log) {
+        this.functionName = functionName;
+        this.memoryLimitMb = memoryLimitMb;
+        this.deadlineMillis = System.currentTimeMillis() + timeoutSeconds * 1000L;
+        this.logger = new Logger(functionName, log);
+    }
+
+    @Override
+    public String getAwsRequestId() {
+        return requestId;
+    }
+
+    @Override
+    public String getLogGroupName() {
+        return "/aws/lambda/" + functionName;
+    }
+
+    @Override
+    public String getLogStreamName() {
+        return "harness";
+    }
+
+    @Override
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    @Override
+    public String getFunctionVersion() {
+        return "$LATEST";
+    }
+
+    @Override
+    public String getInvokedFunctionArn() {
+        return String.format("arn:aws:lambda:%s:000000000000:function:%s", LoadHarness.AWS_REGION, functionName);
+    }
+
+    @Override
+    public CognitoIdentity getIdentity() {
+        return null;
+    }
+
+    @Override
+    public ClientContext getClientContext() {
+        return null;
+    }
+
+    @Override
+    public int getRemainingTimeInMillis() {
+        return (int) Math.max(deadlineMillis - System.currentTimeMillis(), 0);
+    }
+
+    @Override
+    public int getMemoryLimitInMB() {
+        return memoryLimitMb;
+    }
+
+    @Override
+    public LambdaLogger getLogger() {
+        return logger;
+    }
+
+    private static final class Logger implements LambdaLogger {
+
+        private final String prefix;
+        private final PrintStream log;
+
+        Logger(String functionName, PrintStream log) {
+            this.prefix = "[" + functionName + "] ";
+            this.log = log;
+        }
+
+        @Override
+        public void log(String message) {
+            if (log != null) {
+                log.println(prefix + message.trim());
+            }
+        }
+
+        @Override
+        public void log(byte[] message) {
+            log(new String(message, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package harness;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Command line options of the harness, as --name=value pairs.
+ */
+final class HarnessOptions {
+
+    static final String USAGE = Joiner.on(System.lineSeparator()).join(ImmutableList.of(
+            "Usage: java -jar LoadHarness/target/load-harness.jar [options]",
+            "  --rate=<reports per second>           Reports created per second (default 10)",
+            "  --duration=<seconds>                  How long reports are created for (default 60)",
+            "  --sellers=<count>                     Sellers the reports are spread over (default 10)",
+            "  --document-size-kb=<size>             Size of every report document (default 1024)",
+            "  --gzip-documents                      Serve the documents GZIP compressed",
+            "  --processing-delay-ms=<millis>        Time from report creation to its notification (default 1000)",
+            "  --pipeline-mode=CHAINED|FUSED         State machine pipeline mode (default CHAINED)",
+            "  --max-concurrent-executions=<count>   State machine executions running at once (default 32)",
+            "  --max-concurrent-creations=<count>    ReportCreator invocations running at once (default 32)",
+            "  --pollers=<count>                     Concurrent notification processor batches (default 5)",
+            "  --drain-timeout=<seconds>             Time allowed for the last reports to be stored (default 120)",
+            "  --functions-dir=<dir>                 Directory of the packaged function modules (default .)",
+            "  --verbose                             Print the function logs"));
+
+    private static final List<String> PIPELINE_MODES = ImmutableList.of(ReportWorkflow.CHAINED_MODE, ReportWorkflow.FUSED_MODE);
+
+    double rate = 10;
+    int durationSeconds = 60;
+    int sellers = 10;
+    int documentSizeKb = 1024;
+    boolean gzipDocuments;
+    long processingDelayMillis = 1000;
+    String pipelineMode = ReportWorkflow.CHAINED_MODE;
+    int maxConcurrentExecutions = 32;
+    int maxConcurrentCreations = 32;
+    int pollers = 5;
+    int drainTimeoutSeconds = 120;
+    File functionsDir = new File(".");
+    boolean verbose;
+
+    private HarnessOptions() {
+    }
+
+    static HarnessOptions parse(String[] args) {
+        HarnessOptions options = new HarnessOptions();
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = separator < 0 ? arg : arg.substring(0, separator);
+            String value = separator < 0 ? null : arg.substring(separator + 1);
+
+            try {
+                switch (name) {
+                    case "--rate":
+                        options.rate = Double.parseDouble(value);
+                        break;
+                    case "--duration":
+                        options.durationSeconds = Integer.parseInt(value);
+                        break;
+                    case "--sellers":
+                        options.sellers = Integer.parseInt(value);
+                        break;
+                    case "--document-size-kb":
+                        options.documentSizeKb = Integer.parseInt(value);
+                        break;
+                    case "--gzip-documents":
+                        options.gzipDocuments = true;
+                        break;
+                    case "--processing-delay-ms":
+                        options.processingDelayMillis = Long.parseLong(value);
+                        break;
+                    case "--pipeline-mode":
+                        options.pipelineMode = value;
+                        break;
+                    case "--max-concurrent-executions":
+                        options.maxConcurrentExecutions = Integer.parseInt(value);
+                        break;
+                    case "--max-concurrent-creations":
+                        options.maxConcurrentCreations = Integer.parseInt(value);
+                        break;
+                    case "--pollers":
+                        options.pollers = Integer.parseInt(value);
+                        break;
+                    case "--drain-timeout":
+                        options.drainTimeoutSeconds = Integer.parseInt(value);
+                        break;
+                    case "--functions-dir":
+                        options.functionsDir = new File(value);
+                        break;
+                    case "--verbose":
+                        options.verbose = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unknown option: %s", arg));
+                }
+            } catch (NumberFormatException | NullPointerException e) {
+                throw new IllegalArgumentException(String.format("Invalid option: %s", arg), e);
+            }
+        }
+
+        if (!PIPELINE_MODES.contains(options.pipelineMode)) {
+            throw new IllegalArgumentException(String.format("Pipeline mode must be one of %s", PIPELINE_MODES));
+        }
+        if (options.rate <= 0 || options.sellers <= 0 || options.durationSeconds <= 0) {
+            throw new IllegalArgumentException("Rate, sellers and duration must be positive");
+        }
+
+        return options;
+    }
+}
@@ -0,0 +1,76 @@
+package harness;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the heap of the harness, which holds every function, and counts the collections it went through.
+ */
+final class HeapSampler {
+
+    private static final long SAMPLE_PERIOD_MILLIS = 100;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("heap-sampler-%d")
+            .setDaemon(true)
+            .build());
+
+    private final long startGcCount;
+    private final long startGcMillis;
+    private volatile long peakUsedBytes;
+    private volatile long usedBytesSum;
+    private volatile long samples;
+
+    HeapSampler() {
+        startGcCount = getGcCount();
+        startGcMillis = getGcMillis();
+    }
+
+    void start() {
+        scheduler.scheduleAtFixedRate(this::sample, 0, SAMPLE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    String summary() {
+        long maxBytes = memory.getHeapMemoryUsage().getMax();
+        return String.format("Heap: peak %d MB, average %d MB, max %s; GC: %d collections, %d ms",
+                peakUsedBytes / BYTES_PER_MB,
+                samples == 0 ? 0 : usedBytesSum / samples / BYTES_PER_MB,
+                maxBytes < 0 ? "unbounded" : maxBytes / BYTES_PER_MB + " MB",
+                getGcCount() - startGcCount,
+                getGcMillis() - startGcMillis);
+    }
+
+    //Only the sampler thread writes
+    private void sample() {
+        long usedBytes = memory.getHeapMemoryUsage().getUsed();
+        peakUsedBytes = Math.max(peakUsedBytes, usedBytes);
+        usedBytesSum += usedBytes;
+        samples++;
+    }
+
+    private static long getGcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    private static long getGcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+}
@@ -0,0 +1,96 @@
+package harness;
+
+import com.google.common.base.Splitter;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Request and response plumbing shared by the local stand-ins.
+ */
+final class HttpExchanges {
+
+    private static final int BACKLOG = 1024;
+
+    private HttpExchanges() {
+    }
+
+    /**
+     * Server bound to the loopback address, with a thread per connection so that the connection pools of the
+     * functions never wait for a free server thread.
+     */
+    static HttpServer newServer(int port, String name) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+            server.setExecutor(Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                    .setNameFormat(name + "-%d")
+                    .setDaemon(true)
+                    .build()));
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("%s could not be bound to port %d", name, port), e);
+        }
+    }
+
+    static byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = new GZIPInputStream(body);
+        }
+
+        return ByteStreams.toByteArray(body);
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+
+        for (String parameter : Splitter.on('&').omitEmptyStrings().split(rawQuery)) {
+            List<String> nameValue = Splitter.on('=').limit(2).splitToList(parameter);
+            parameters.put(decode(nameValue.get(0)), nameValue.size() > 1 ? decode(nameValue.get(1)) : "");
+        }
+
+        return parameters;
+    }
+
+    static String decode(String value) {
+        return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    static void send(HttpExchange exchange, int statusCode, String contentType, byte[] body) throws IOException {
+        if (contentType != null) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+        }
+
+        exchange.sendResponseHeaders(statusCode, body.length == 0 ? -1 : body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    static void send(HttpExchange exchange, int statusCode, String contentType, String body) throws IOException {
+        send(exchange, statusCode, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void sendEmpty(HttpExchange exchange, int statusCode) throws IOException {
+        exchange.sendResponseHeaders(statusCode, -1);
+        exchange.close();
+    }
+}
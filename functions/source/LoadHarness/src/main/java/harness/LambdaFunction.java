@@ -0,0 +1,144 @@
+package harness;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A packaged function, loaded from its jar into a class loader of its own, as the Lambda runtime does: the function
+ * shares nothing with the harness or the other functions but the runtime interfaces. All invocations go to the same
+ * handler instance, i.e. to a single warm container that serves them concurrently.
+ * Each invocation is recorded in the metrics of the function, with the bytes allocated by the invoking thread. Work
+ * the function hands to its own thread pools, e.g. concurrent part uploads, is not part of that figure.
+ */
+final class LambdaFunction {
+
+    private static final String RUNTIME_API_PACKAGE = "com.amazonaws.services.lambda.runtime.";
+    private static final int MEMORY_LIMIT_MB = 512;
+    private static final int TIMEOUT_SECONDS = 300;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final String functionName;
+    private final ClassLoader classLoader;
+    private final RequestHandler<Object, Object> handler;
+    private final StageMetrics metrics;
+    private final long initNanos;
+    private final PrintStream log;
+
+    private LambdaFunction(String functionName, ClassLoader classLoader, RequestHandler<Object, Object> handler,
+                           long initNanos, PrintStream log) {
+        this.functionName = functionName;
+        this.classLoader = classLoader;
+        this.handler = handler;
+        this.metrics = new StageMetrics(functionName);
+        this.initNanos = initNanos;
+        this.log = log;
+    }
+
+    /**
+     * Loads and initializes the handler class from the packaged jar of the module, e.g.
+     * ReportCreator/target/report-creator-1.0.jar.
+     *
+     * @param log Stream the function logs go to, null to drop them
+     */
+    @SuppressWarnings("unchecked")
+    static LambdaFunction load(File functionsDir, String module, String artifactId, String handlerClassName,
+                               String functionName, PrintStream log) {
+        File jar = new File(functionsDir, String.format("%s/target/%s-1.0.jar", module, artifactId));
+        if (!jar.isFile()) {
+            throw new IllegalArgumentException(String.format("%s not found, package the functions first", jar));
+        }
+
+        ClassLoader classLoader;
+        try {
+            classLoader = new URLClassLoader(functionName, new URL[]{jar.toURI().toURL()},
+                    new RuntimeApiClassLoader(LambdaFunction.class.getClassLoader()));
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(String.format("Invalid function jar: %s", jar), e);
+        }
+
+        Thread thread = Thread.currentThread();
+        ClassLoader harnessClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        long start = System.nanoTime();
+        try {
+            Class<?> handlerClass = Class.forName(handlerClassName, true, classLoader);
+            RequestHandler<Object, Object> handler = (RequestHandler<Object, Object>) handlerClass.getDeclaredConstructor()
+                    .newInstance();
+
+            return new LambdaFunction(functionName, classLoader, handler, System.nanoTime() - start, log);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException(String.format("%s could not be initialized", functionName), e);
+        } finally {
+            thread.setContextClassLoader(harnessClassLoader);
+        }
+    }
+
+    String getFunctionName() {
+        return functionName;
+    }
+
+    StageMetrics getMetrics() {
+        return metrics;
+    }
+
+    long getInitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(initNanos);
+    }
+
+    /**
+     * Invokes the handler on the calling thread. The input and output are the objects the handler takes and returns,
+     * the function's own classes are only reachable through reflection or serialization.
+     */
+    Object invoke(Object input) {
+        Thread thread = Thread.currentThread();
+        ClassLoader harnessClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread.getId());
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object output = handler.handleRequest(input, new HarnessContext(functionName, MEMORY_LIMIT_MB, TIMEOUT_SECONDS, log));
+            failed = false;
+            return output;
+        } finally {
+            long end = System.nanoTime();
+            long allocatedAfter = THREADS.getThreadAllocatedBytes(thread.getId());
+            metrics.record(start, end, allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore, failed);
+            thread.setContextClassLoader(harnessClassLoader);
+        }
+    }
+
+    /**
+     * Resolves the Lambda runtime interfaces and events from the harness, so that handlers can be called through
+     * them, and everything else from the platform only. Function jars are shaded with their own copy of the runtime
+     * interfaces, which is never loaded as the parent comes first.
+     */
+    private static final class RuntimeApiClassLoader extends ClassLoader {
+
+        private final ClassLoader harnessClassLoader;
+
+        RuntimeApiClassLoader(ClassLoader harnessClassLoader) {
+            super("lambda-runtime", ClassLoader.getPlatformClassLoader());
+            this.harnessClassLoader = harnessClassLoader;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (name.startsWith(RUNTIME_API_PACKAGE)) {
+                return harnessClassLoader.loadClass(name);
+            }
+
+            throw new ClassNotFoundException(name);
+        }
+    }
+}
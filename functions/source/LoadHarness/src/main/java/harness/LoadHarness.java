@@ -0,0 +1,327 @@
+package harness;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the packaged functions end to end on the local machine, against in-process stand-ins of SP-API, Login With
+ * Amazon, DynamoDB, S3, Secrets Manager, KMS, STS, SQS and Step Functions.
+ * Sellers are set up through TokenStorage and NotificationsSubscriber, then ReportCreator is invoked at a fixed rate.
+ * Every report finishes after the processing delay, its notification goes through the notification processor, and
+ * the state machine stand-in retrieves, stores and presigns its document. The report lists, per function and end to
+ * end, the throughput, latency percentiles and allocations, followed by the heap usage of the run.
+ * Usage, from functions/source after mvn -P load-harness package:
+ * java -jar LoadHarness/target/load-harness.jar --rate=50 --duration=60 --pipeline-mode=FUSED
+ */
+public final class LoadHarness {
+
+    static final String AWS_REGION = "us-east-1";
+    static final String SELLING_PARTNERS_TABLE_NAME = "SellingPartners";
+    static final String REPORTS_TABLE_NAME = "SPAPIReports";
+    static final String PROCESSED_NOTIFICATIONS_TABLE_NAME = "SPAPIProcessedNotifications";
+    static final String ACCESS_TOKENS_TABLE_NAME = "SPAPIAccessTokens";
+
+    //Set in the environment of the process the harness relaunches itself in
+    private static final String HARNESS_PROCESS_ENV_VARIABLE = "LOAD_HARNESS_PROCESS";
+    private static final String AWS_ENDPOINT_URL_ENV_VARIABLE = "AWS_ENDPOINT_URL";
+    private static final String SP_API_ENDPOINT_ENV_VARIABLE = "SP_API_ENDPOINT";
+
+    private static final String IAM_USER_CREDENTIALS_SECRET_ID = "SPAPIUserCredentials";
+    private static final String APP_CREDENTIALS_SECRET_ID = "SPAPIAppCredentials";
+    private static final String ENCRYPTION_KEY_ARN = "arn:aws:kms:us-east-1:000000000000:key/00000000-0000-0000-0000-000000000000";
+    private static final String ROLE_ARN = "arn:aws:iam::000000000000:role/SPAPIRole";
+    private static final String STATE_MACHINE_ARN = "arn:aws:states:us-east-1:000000000000:stateMachine:SPAPIReportProcessor";
+    private static final String SQS_QUEUE_ARN = "arn:aws:sqs:us-east-1:000000000000:SPAPINotificationsQueue";
+    private static final String REPORTS_BUCKET_NAME = "sp-api-reports-harness";
+
+    private static final String REGION_CODE = "NA";
+    private static final String REPORT_TYPE = "GET_FLAT_FILE_OPEN_LISTINGS_DATA";
+    private static final String MARKETPLACE_ID = "ATVPDKIKX0DER";
+    private static final String NOTIFICATION_TYPE = "REPORT_PROCESSING_FINISHED";
+
+    private static final long PROGRESS_PERIOD_SECONDS = 5;
+    private static final long DRAIN_POLL_MILLIS = 100;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final HarnessOptions options;
+    private final PrintStream out;
+
+    private LoadHarness(HarnessOptions options, PrintStream out) {
+        this.options = options;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        HarnessOptions options;
+        try {
+            options = HarnessOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HarnessOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        if (!Boolean.parseBoolean(System.getenv(HARNESS_PROCESS_ENV_VARIABLE))) {
+            System.exit(relaunch(args));
+        }
+
+        //Functions leave non-daemon threads behind, e.g. the pools of their SDK clients
+        boolean completed = new LoadHarness(options, System.out).run();
+        System.exit(completed ? 0 : 1);
+    }
+
+    /**
+     * The functions read their configuration from environment variables while their classes are initialized, which
+     * is why the harness runs in a new process, with the environment of a deployment pointed at the stand-ins. AWS
+     * variables of the calling shell are not passed on, so that nothing can reach a real account.
+     */
+    private static int relaunch(String[] args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LoadHarness.class.getName());
+        command.addAll(Arrays.asList(args));
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command).inheritIO();
+        Map<String, String> environment = processBuilder.environment();
+        environment.keySet().removeIf(name -> name.startsWith("AWS_"));
+        environment.putAll(getFunctionEnvironment(findFreePort(), findFreePort()));
+        environment.put(HARNESS_PROCESS_ENV_VARIABLE, "true");
+
+        return processBuilder.start().waitFor();
+    }
+
+    //The union of the environment variables of all functions, as the stack sets them
+    private static Map<String, String> getFunctionEnvironment(int awsPort, int spApiPort) {
+        String spApiEndpoint = "http://127.0.0.1:" + spApiPort;
+
+        return ImmutableMap.<String, String>builder()
+                .put("AWS_REGION", AWS_REGION)
+                .put("AWS_ACCESS_KEY_ID", "AKIAHARNESS000000000")
+                .put("AWS_SECRET_ACCESS_KEY", "harness")
+                .put(AWS_ENDPOINT_URL_ENV_VARIABLE, "http://127.0.0.1:" + awsPort)
+                .put(SP_API_ENDPOINT_ENV_VARIABLE, spApiEndpoint)
+                .put("LWA_ENDPOINT", spApiEndpoint + FakeSellingPartnerApiServer.LWA_PATH)
+                .put("IAM_USER_CREDENTIALS_SECRET_ARN", IAM_USER_CREDENTIALS_SECRET_ID)
+                .put("SP_API_APP_CREDENTIALS_SECRET_ARN", APP_CREDENTIALS_SECRET_ID)
+                .put("ROLE_ARN", ROLE_ARN)
+                .put("ENCRYPTION_KEY_ARN", ENCRYPTION_KEY_ARN)
+                .put("SELLING_PARTNERS_TABLE_NAME", SELLING_PARTNERS_TABLE_NAME)
+                .put("REPORTS_TABLE_NAME", REPORTS_TABLE_NAME)
+                .put("PROCESSED_NOTIFICATIONS_TABLE_NAME", PROCESSED_NOTIFICATIONS_TABLE_NAME)
+                .put("ACCESS_TOKENS_TABLE_NAME", ACCESS_TOKENS_TABLE_NAME)
+                .put("STATE_MACHINE_ARN", STATE_MACHINE_ARN)
+                .put("SQS_QUEUE_ARN", SQS_QUEUE_ARN)
+                .put("DESTINATION_S3_BUCKET_NAME", REPORTS_BUCKET_NAME)
+                .put("S3_BUCKET_NAME", REPORTS_BUCKET_NAME)
+                .build();
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Returns true if every created report was stored.
+     */
+    private boolean run() throws InterruptedException {
+        PrintStream log = options.verbose ? out : null;
+        if (!options.verbose) {
+            //The functions print their metrics to stdout, which would bury the report
+            System.setOut(new PrintStream(ByteStreams.nullOutputStream()));
+        }
+
+        HeapSampler heap = new HeapSampler();
+        heap.start();
+
+        out.printf("Loading the functions from %s%n", options.functionsDir.getAbsolutePath());
+        Map<String, LambdaFunction> functions = loadFunctions(log);
+
+        NotificationQueue queue = new NotificationQueue(SQS_QUEUE_ARN);
+        FakeSellingPartnerApiServer spApi = new FakeSellingPartnerApiServer(getPort(SP_API_ENDPOINT_ENV_VARIABLE),
+                options.documentSizeKb, options.gzipDocuments, options.processingDelayMillis, queue::send);
+        ReportWorkflow workflow = new ReportWorkflow(options.pipelineMode, options.maxConcurrentExecutions, functions, spApi);
+        FakeAwsServer aws = new FakeAwsServer(getPort(AWS_ENDPOINT_URL_ENV_VARIABLE), ImmutableMap.of(
+                IAM_USER_CREDENTIALS_SECRET_ID, "{\"AccessKeyId\":\"AKIAHARNESSUSER00000\",\"SecretKey\":\"harness\"}",
+                APP_CREDENTIALS_SECRET_ID, "{\"AppClientId\":\"amzn1.application-oa2-client.harness\",\"AppClientSecret\":\"harness\"}"),
+                ENCRYPTION_KEY_ARN, workflow::start);
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("progress-%d")
+                .setDaemon(true)
+                .build());
+
+        spApi.start();
+        aws.start();
+        try {
+            List<String> sellerIds = setUpSellers(functions);
+            out.printf("%d sellers set up, creating %.1f reports per second for %d seconds%n",
+                    sellerIds.size(), options.rate, options.durationSeconds);
+
+            queue.startPolling(options.pollers, functions.get("ReportNotificationProcessor"));
+            long start = System.nanoTime();
+            progress.scheduleAtFixedRate(() -> out.printf("%4ds: %d reports created, %d stored, %d failed%n",
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), spApi.getReportsCreated(),
+                    workflow.getSucceeded(), workflow.getFailed()),
+                    PROGRESS_PERIOD_SECONDS, PROGRESS_PERIOD_SECONDS, TimeUnit.SECONDS);
+
+            createReports(functions.get("ReportCreator"), sellerIds);
+
+            long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.drainTimeoutSeconds);
+            while (workflow.getSucceeded() + workflow.getFailed() < spApi.getReportsCreated()
+                    && System.nanoTime() < drainDeadline) {
+                Thread.sleep(DRAIN_POLL_MILLIS);
+            }
+            progress.shutdownNow();
+
+            printReport(functions, workflow, queue, spApi, aws, heap);
+            return workflow.getFailed() == 0 && workflow.getSucceeded() == spApi.getReportsCreated();
+        } finally {
+            progress.shutdownNow();
+            queue.stop();
+            workflow.stop();
+            aws.stop();
+            spApi.stop();
+            heap.stop();
+        }
+    }
+
+    //Keyed by module name, or handler name for the modules with more than one
+    private Map<String, LambdaFunction> loadFunctions(PrintStream log) {
+        Map<String, LambdaFunction> functions = new LinkedHashMap<>();
+        functions.put("TokenStorage", LambdaFunction.load(options.functionsDir, "TokenStorage", "token-storage",
+                "lambda.TokenStorageHandler", "SPAPITokenStorage", log));
+        functions.put("NotificationsSubscriber", LambdaFunction.load(options.functionsDir, "NotificationsSubscriber",
+                "notifications-subscriber", "lambda.NotificationsSubscriberHandler", "SPAPINotificationsSubscriber", log));
+        functions.put("ReportCreator", LambdaFunction.load(options.functionsDir, "ReportCreator", "report-creator",
+                "lambda.ReportCreatorHandler", "SPAPIReportCreator", log));
+        functions.put("ReportNotificationProcessor", LambdaFunction.load(options.functionsDir, "ReportNotificationProcessor",
+                "report-notification-processor", "lambda.ReportNotificationProcessorHandler",
+                "SPAPIReportsNotificationsProcessor", log));
+
+        if (ReportWorkflow.FUSED_MODE.equals(options.pipelineMode)) {
+            functions.put("ReportDocumentPipeline", LambdaFunction.load(options.functionsDir, "ReportDocumentRetrieval",
+                    "report-document-retrieval", "lambda.ReportDocumentPipelineHandler", "SPAPIReportDocumentPipeline", log));
+        } else {
+            functions.put("ReportDocumentRetrieval", LambdaFunction.load(options.functionsDir, "ReportDocumentRetrieval",
+                    "report-document-retrieval", "lambda.ReportDocumentRetrievalHandler", "SPAPIReportDocumentRetrieval", log));
+            functions.put("ReportDocumentStorage", LambdaFunction.load(options.functionsDir, "ReportDocumentStorage",
+                    "report-document-storage", "lambda.ReportDocumentStorageHandler", "SPAPIReportDocumentStorage", log));
+            functions.put("ReportPresignedUrlGenerator", LambdaFunction.load(options.functionsDir, "ReportPresignedUrlGenerator",
+                    "report-presigned-url-generator", "lambda.ReportPresignedUrlGeneratorHandler",
+                    "SPAPIReportPresignedUrlGenerator", log));
+        }
+
+        return functions;
+    }
+
+    private List<String> setUpSellers(Map<String, LambdaFunction> functions) {
+        List<String> sellerIds = new ArrayList<>();
+
+        for (int i = 1; i <= options.sellers; i++) {
+            String sellerId = String.format("HARNESS%07d", i);
+
+            functions.get("TokenStorage").invoke(ImmutableMap.of(
+                    "SellerId", sellerId,
+                    "RefreshToken", FakeSellingPartnerApiServer.getRefreshToken(sellerId)));
+            functions.get("NotificationsSubscriber").invoke(ImmutableMap.of(
+                    "SellerId", sellerId,
+                    "RegionCode", REGION_CODE,
+                    "NotificationType", NOTIFICATION_TYPE));
+
+            sellerIds.add(sellerId);
+        }
+
+        return sellerIds;
+    }
+
+    //Invocations are started at the configured rate, whether or not the previous ones have returned
+    private void createReports(LambdaFunction reportCreator, List<String> sellerIds) throws InterruptedException {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("report-creation-ticker-%d")
+                .setDaemon(true)
+                .build());
+        ExecutorService creators = Executors.newFixedThreadPool(options.maxConcurrentCreations, new ThreadFactoryBuilder()
+                .setNameFormat("report-creator-%d")
+                .setDaemon(true)
+                .build());
+        AtomicLong reports = new AtomicLong();
+
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate);
+        ticker.scheduleAtFixedRate(() -> creators.submit(() -> {
+            String sellerId = sellerIds.get((int) (reports.getAndIncrement() % sellerIds.size()));
+            try {
+                reportCreator.invoke(ImmutableMap.of(
+                        "SellerId", sellerId,
+                        "RegionCode", REGION_CODE,
+                        "ReportType", REPORT_TYPE,
+                        "MarketplaceIds", MARKETPLACE_ID));
+            } catch (RuntimeException | Error e) {
+                System.err.printf("Report creation for seller %s failed: %s%n", sellerId, e);
+            }
+        }), 0, periodNanos, TimeUnit.NANOSECONDS);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.durationSeconds));
+        ticker.shutdownNow();
+        creators.shutdown();
+        creators.awaitTermination(options.drainTimeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    private void printReport(Map<String, LambdaFunction> functions, ReportWorkflow workflow, NotificationQueue queue,
+                             FakeSellingPartnerApiServer spApi, FakeAwsServer aws, HeapSampler heap) {
+        long created = spApi.getReportsCreated();
+        long succeeded = workflow.getSucceeded();
+        long failed = workflow.getFailed();
+
+        out.println();
+        out.printf("%s pipeline, %.1f reports per second for %d seconds over %d sellers, %d KB %sdocuments%n",
+                options.pipelineMode, options.rate, options.durationSeconds, options.sellers, options.documentSizeKb,
+                options.gzipDocuments ? "GZIP " : "");
+        out.println();
+        out.print(StageMetrics.header());
+        functions.values().forEach(function -> out.print(function.getMetrics().row()));
+        out.print(workflow.getNotificationToStored().row());
+        out.print(workflow.getEndToEnd().row());
+        out.println();
+
+        out.printf("Reports: %d created, %d stored, %d failed, %d pending%n", created, succeeded, failed,
+                Math.max(created - succeeded - failed, 0));
+        out.println(queue.summary());
+        out.printf("S3: %d objects, %d MB stored; SP-API: %d access tokens issued, %d MB of documents served; "
+                        + "AWS requests: %d%n",
+                aws.getS3().getStoredObjects(), aws.getS3().getStoredBytes() / BYTES_PER_MB,
+                spApi.getAccessTokensIssued(), spApi.getDocumentBytesServed() / BYTES_PER_MB, aws.getRequests());
+        out.printf("Init ms: %s%n", functions.values().stream()
+                .map(function -> function.getFunctionName() + " " + function.getInitMillis())
+                .collect(Collectors.joining(", ")));
+        out.println(heap.summary());
+    }
+
+    private static int getPort(String endpointEnvVariable) {
+        return URI.create(System.getenv(endpointEnvVariable)).getPort();
+    }
+}
@@ -0,0 +1,132 @@
+package harness;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the notifications queue and its Lambda event source mapping: pollers take batches of up to ten
+ * messages and invoke the notification processor with them. Messages reported as failed, or whole batches if the
+ * invocation failed, become visible again after a short visibility timeout.
+ */
+final class NotificationQueue {
+
+    private static final int MAX_BATCH_SIZE = 10;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final long VISIBILITY_TIMEOUT_MILLIS = 1000;
+
+    private final String queueArn;
+    private final BlockingQueue<SQSEvent.SQSMessage> messages = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService redelivery = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("sqs-redelivery-%d")
+            .setDaemon(true)
+            .build());
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong redelivered = new AtomicLong();
+    private ExecutorService pollers;
+    private volatile boolean polling;
+
+    NotificationQueue(String queueArn) {
+        this.queueArn = queueArn;
+    }
+
+    void send(String body) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(UUID.randomUUID().toString());
+        message.setReceiptHandle(UUID.randomUUID().toString());
+        message.setBody(body);
+        message.setEventSource("aws:sqs");
+        message.setEventSourceArn(queueArn);
+        message.setAwsRegion(LoadHarness.AWS_REGION);
+
+        sent.incrementAndGet();
+        enqueue(message);
+    }
+
+    void startPolling(int pollerCount, LambdaFunction processor) {
+        polling = true;
+        pollers = Executors.newFixedThreadPool(pollerCount, new ThreadFactoryBuilder()
+                .setNameFormat("sqs-poller-%d")
+                .setDaemon(true)
+                .build());
+
+        for (int i = 0; i < pollerCount; i++) {
+            pollers.submit(() -> poll(processor));
+        }
+    }
+
+    void stop() {
+        polling = false;
+        if (pollers != null) {
+            pollers.shutdownNow();
+        }
+        redelivery.shutdownNow();
+    }
+
+    String summary() {
+        return String.format("Notifications queue: %d sent, %d redelivered, max depth %d, %d left",
+                sent.get(), redelivered.get(), maxDepth.get(), messages.size());
+    }
+
+    private void poll(LambdaFunction processor) {
+        while (polling) {
+            List<SQSEvent.SQSMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+            try {
+                SQSEvent.SQSMessage first = messages.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            messages.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+            SQSEvent event = new SQSEvent();
+            event.setRecords(batch);
+
+            try {
+                SQSBatchResponse response = (SQSBatchResponse) processor.invoke(event);
+                if (response != null && response.getBatchItemFailures() != null) {
+                    Map<String, SQSEvent.SQSMessage> messagesById = new HashMap<>();
+                    batch.forEach(message -> messagesById.put(message.getMessageId(), message));
+
+                    for (SQSBatchResponse.BatchItemFailure failure : response.getBatchItemFailures()) {
+                        SQSEvent.SQSMessage message = messagesById.get(failure.getItemIdentifier());
+                        if (message != null) {
+                            redeliver(message);
+                        }
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                batch.forEach(this::redeliver);
+            }
+        }
+    }
+
+    private void redeliver(SQSEvent.SQSMessage message) {
+        redelivered.incrementAndGet();
+        redelivery.schedule(() -> enqueue(message), VISIBILITY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void enqueue(SQSEvent.SQSMessage message) {
+        messages.add(message);
+        maxDepth.accumulateAndGet(messages.size(), Math::max);
+    }
+}
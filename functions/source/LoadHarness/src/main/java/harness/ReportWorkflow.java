@@ -0,0 +1,156 @@
+package harness;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the report processor state machine: the same tasks with the same payloads, in chained or fused mode,
+ * run on a bounded pool like the concurrent executions of a state machine. The notification topic at the end is
+ * where an execution is recorded as complete, together with how long the report took from its creation and from
+ * its notification.
+ */
+final class ReportWorkflow {
+
+    static final String CHAINED_MODE = "CHAINED";
+    static final String FUSED_MODE = "FUSED";
+
+    private static final TypeReference<Map<String, String>> STRING_MAP = new TypeReference<Map<String, String>>() {
+    };
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String pipelineMode;
+    private final Map<String, LambdaFunction> functions;
+    private final FakeSellingPartnerApiServer spApi;
+    private final ExecutorService executions;
+    private final Set<String> executionNames = ConcurrentHashMap.newKeySet();
+
+    private final StageMetrics endToEnd = new StageMetrics("Report created to stored");
+    private final StageMetrics notificationToStored = new StageMetrics("Notification to stored");
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * @param functions Functions of the tasks by handler name, e.g. ReportDocumentRetrieval
+     */
+    ReportWorkflow(String pipelineMode, int maxConcurrentExecutions, Map<String, LambdaFunction> functions,
+                   FakeSellingPartnerApiServer spApi) {
+        this.pipelineMode = pipelineMode;
+        this.functions = functions;
+        this.spApi = spApi;
+        this.executions = Executors.newFixedThreadPool(maxConcurrentExecutions, new ThreadFactoryBuilder()
+                .setNameFormat("state-machine-execution-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Starts an execution unless one with the same name was started already, as standard state machines do.
+     */
+    boolean start(String name, String input) {
+        if (!executionNames.add(name)) {
+            return false;
+        }
+
+        Map<String, String> state;
+        try {
+            state = mapper.readValue(input, STRING_MAP);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        executions.submit(() -> execute(state));
+        return true;
+    }
+
+    long getSucceeded() {
+        return succeeded.get();
+    }
+
+    long getFailed() {
+        return failed.get();
+    }
+
+    StageMetrics getEndToEnd() {
+        return endToEnd;
+    }
+
+    StageMetrics getNotificationToStored() {
+        return notificationToStored;
+    }
+
+    void stop() {
+        executions.shutdownNow();
+    }
+
+    private void execute(Map<String, String> state) {
+        try {
+            if ("DONE".equals(state.get("ProcessingStatus"))) {
+                if (FUSED_MODE.equals(pipelineMode)) {
+                    processReportDocument(state);
+                } else {
+                    retrieveStoreAndPresign(state);
+                }
+            }
+
+            succeeded.incrementAndGet();
+            recordCompletion(state.get("ReportId"));
+        } catch (RuntimeException | Error e) {
+            failed.incrementAndGet();
+            System.err.printf("Execution for report %s failed: %s%n", state.get("ReportId"), e);
+        }
+    }
+
+    private void retrieveStoreAndPresign(Map<String, String> state) {
+        Map<String, String> reportDocument = toMap(functions.get("ReportDocumentRetrieval").invoke(ImmutableMap.of(
+                "ReportId", state.get("ReportId"),
+                "SellerId", state.get("SellerId"),
+                "ReportDocumentId", state.get("ReportDocumentId"))));
+
+        Map<String, String> storedDocument = toMap(functions.get("ReportDocumentStorage").invoke(ImmutableMap.of(
+                "PresignedUrl", reportDocument.get("url"),
+                "CompressionAlgorithm", reportDocument.get("compressionAlgorithm"),
+                "ReportType", state.get("ReportType"),
+                "ReportDocumentId", state.get("ReportDocumentId"))));
+
+        functions.get("ReportPresignedUrlGenerator").invoke(ImmutableMap.of(
+                "ObjectKey", storedDocument.get("objectKey")));
+    }
+
+    private void processReportDocument(Map<String, String> state) {
+        functions.get("ReportDocumentPipeline").invoke(ImmutableMap.of(
+                "ReportId", state.get("ReportId"),
+                "SellerId", state.get("SellerId"),
+                "ReportDocumentId", state.get("ReportDocumentId"),
+                "ReportType", state.get("ReportType")));
+    }
+
+    private void recordCompletion(String reportId) {
+        long now = System.nanoTime();
+
+        Long createdNanos = spApi.getReportCreatedNanos(reportId);
+        if (createdNanos != null) {
+            endToEnd.record(createdNanos, now, -1, false);
+        }
+
+        Long finishedNanos = spApi.getReportFinishedNanos(reportId);
+        if (finishedNanos != null) {
+            notificationToStored.record(finishedNanos, now, -1, false);
+        }
+    }
+
+    //Outputs are serialized the way the Lambda runtime hands them to the state machine
+    private Map<String, String> toMap(Object output) {
+        return mapper.convertValue(output, STRING_MAP);
+    }
+}
@@ -0,0 +1,87 @@
+package harness;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies, errors and allocations of one stage of the pipeline. Every sample is kept, percentiles are exact.
+ */
+final class StageMetrics {
+
+    private static final String ROW_FORMAT = "%-30s %8s %7s %10s %9s %9s %9s %9s %12s%n";
+
+    private final String name;
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private long allocatedBytes;
+    private long firstStartNanos = Long.MAX_VALUE;
+    private long lastEndNanos = Long.MIN_VALUE;
+
+    StageMetrics(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @param allocatedBytes Bytes allocated by the invoking thread, or -1 if they are not measured
+     */
+    synchronized void record(long startNanos, long endNanos, long allocatedBytes, boolean failed) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = endNanos - startNanos;
+
+        if (failed) {
+            errors++;
+        }
+        if (allocatedBytes > 0) {
+            this.allocatedBytes += allocatedBytes;
+        }
+        firstStartNanos = Math.min(firstStartNanos, startNanos);
+        lastEndNanos = Math.max(lastEndNanos, endNanos);
+    }
+
+    synchronized int getCount() {
+        return count;
+    }
+
+    static String header() {
+        return String.format(ROW_FORMAT, "Stage", "Count", "Errors", "Per second", "p50 ms", "p90 ms", "p99 ms",
+                "Max ms", "Alloc KB/op");
+    }
+
+    /**
+     * Throughput is the number of samples over the time between the start of the first one and the end of the last.
+     */
+    synchronized String row() {
+        if (count == 0) {
+            return String.format(ROW_FORMAT, name, 0, 0, "-", "-", "-", "-", "-", "-");
+        }
+
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        double windowSeconds = Math.max(lastEndNanos - firstStartNanos, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+
+        return String.format(ROW_FORMAT, name, count, errors,
+                String.format("%.1f", count / windowSeconds),
+                millis(percentile(sorted, 50)),
+                millis(percentile(sorted, 90)),
+                millis(percentile(sorted, 99)),
+                millis(sorted[count - 1]),
+                allocatedBytes > 0 ? String.format("%.1f", allocatedBytes / 1024.0 / count) : "-");
+    }
+
+    //Nearest rank percentile
+    private static long percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -17,6 +17,7 @@ import io.swagger.client.ApiCallback;
 import io.swagger.client.ApiClient;
 import io.swagger.client.ApiException;
 import io.swagger.client.ApiResponse;
+import io.swagger.client.AssumeRoleAWSSigV4Signer;
 import io.swagger.client.Configuration;
 import io.swagger.client.Pair;
 import io.swagger.client.ProgressRequestBody;
@@ -1084,6 +1085,7 @@ public class NotificationsApi {
         private Boolean disableAccessTokenCache = false;
         private AWSAuthenticationCredentialsProvider awsAuthenticationCredentialsProvider;
         private RateLimitConfiguration rateLimitConfiguration;
+        private boolean disableRateLimit = false;
 
         public Builder awsAuthenticationCredentials(AWSAuthenticationCredentials awsAuthenticationCredentials) {
             this.awsAuthenticationCredentials = awsAuthenticationCredentials;
@@ -1117,11 +1119,13 @@ public class NotificationsApi {
         
         public Builder rateLimitConfigurationOnRequests(RateLimitConfiguration rateLimitConfiguration){
             this.rateLimitConfiguration = rateLimitConfiguration;
+            this.disableRateLimit = false;
             return this;
         }
         
         public Builder disableRateLimitOnRequests() {
             this.rateLimitConfiguration = null;
+            this.disableRateLimit = true;
             return this;
         }
         
@@ -1144,7 +1148,7 @@ public class NotificationsApi {
                 awsSigV4Signer = new AWSSigV4Signer(awsAuthenticationCredentials);
             }
             else {
-                awsSigV4Signer = new AWSSigV4Signer(awsAuthenticationCredentials,awsAuthenticationCredentialsProvider);
+                awsSigV4Signer = new AssumeRoleAWSSigV4Signer(awsAuthenticationCredentials,awsAuthenticationCredentialsProvider);
             }
             
             LWAAuthorizationSigner lwaAuthorizationSigner = null;            
@@ -1158,11 +1162,16 @@ public class NotificationsApi {
                  lwaAuthorizationSigner = new LWAAuthorizationSigner(lwaAuthorizationCredentials,lwaAccessTokenCache);
             }
 
-            return new NotificationsApi(new ApiClient()
+            ApiClient apiClient = new ApiClient()
                 .setAWSSigV4Signer(awsSigV4Signer)
                 .setLWAAuthorizationSigner(lwaAuthorizationSigner)
                 .setBasePath(endpoint)
-                .setRateLimiter(rateLimitConfiguration));
+                .setRateLimiter(rateLimitConfiguration);
+            if (disableRateLimit) {
+                apiClient.disableRateLimiter();
+            }
+
+            return new NotificationsApi(apiClient);
         }
     }
 }
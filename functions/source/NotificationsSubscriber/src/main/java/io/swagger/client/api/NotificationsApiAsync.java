@@ -0,0 +1,70 @@
+package io.swagger.client.api;
+
+import io.swagger.client.ApiFutures;
+import io.swagger.client.model.CreateDestinationRequest;
+import io.swagger.client.model.CreateDestinationResponse;
+import io.swagger.client.model.CreateSubscriptionRequest;
+import io.swagger.client.model.CreateSubscriptionResponse;
+import io.swagger.client.model.DeleteDestinationResponse;
+import io.swagger.client.model.DeleteSubscriptionByIdResponse;
+import io.swagger.client.model.GetDestinationResponse;
+import io.swagger.client.model.GetDestinationsResponse;
+import io.swagger.client.model.GetSubscriptionByIdResponse;
+import io.swagger.client.model.GetSubscriptionResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * CompletableFuture based facade over the *Async methods of NotificationsApi.
+ * Calls are sent without blocking the caller, so many of them can be in flight at once; each future fails with the
+ * ApiException of its call. Usage plan limits still apply to the credentials of the wrapped NotificationsApi.
+ */
+public class NotificationsApiAsync {
+
+    private final NotificationsApi notificationsApi;
+
+    public NotificationsApiAsync(NotificationsApi notificationsApi) {
+        this.notificationsApi = notificationsApi;
+    }
+
+    public NotificationsApi getNotificationsApi() {
+        return notificationsApi;
+    }
+
+    public CompletableFuture<CreateDestinationResponse> createDestination(CreateDestinationRequest body) {
+        return ApiFutures.toCompletableFuture(callback -> notificationsApi.createDestinationAsync(body, callback));
+    }
+
+    public CompletableFuture<CreateSubscriptionResponse> createSubscription(CreateSubscriptionRequest body,
+                                                                            String notificationType) {
+        return ApiFutures.toCompletableFuture(callback ->
+                notificationsApi.createSubscriptionAsync(body, notificationType, callback));
+    }
+
+    public CompletableFuture<DeleteDestinationResponse> deleteDestination(String destinationId) {
+        return ApiFutures.toCompletableFuture(callback -> notificationsApi.deleteDestinationAsync(destinationId, callback));
+    }
+
+    public CompletableFuture<DeleteSubscriptionByIdResponse> deleteSubscriptionById(String subscriptionId,
+                                                                                    String notificationType) {
+        return ApiFutures.toCompletableFuture(callback ->
+                notificationsApi.deleteSubscriptionByIdAsync(subscriptionId, notificationType, callback));
+    }
+
+    public CompletableFuture<GetDestinationResponse> getDestination(String destinationId) {
+        return ApiFutures.toCompletableFuture(callback -> notificationsApi.getDestinationAsync(destinationId, callback));
+    }
+
+    public CompletableFuture<GetDestinationsResponse> getDestinations() {
+        return ApiFutures.toCompletableFuture(notificationsApi::getDestinationsAsync);
+    }
+
+    public CompletableFuture<GetSubscriptionResponse> getSubscription(String notificationType) {
+        return ApiFutures.toCompletableFuture(callback -> notificationsApi.getSubscriptionAsync(notificationType, callback));
+    }
+
+    public CompletableFuture<GetSubscriptionByIdResponse> getSubscriptionById(String subscriptionId, String notificationType) {
+        return ApiFutures.toCompletableFuture(callback ->
+                notificationsApi.getSubscriptionByIdAsync(subscriptionId, notificationType, callback));
+    }
+}
@@ -1,63 +1,43 @@
 package lambda;
 
-import com.amazon.SellingPartnerAPIAA.AWSAuthenticationCredentials;
-import com.amazon.SellingPartnerAPIAA.AWSAuthenticationCredentialsProvider;
 import com.amazon.SellingPartnerAPIAA.LWAAuthorizationCredentials;
-import com.amazon.SellingPartnerAPIAA.LWAClientScopes;
-import com.amazonaws.encryptionsdk.AwsCrypto;
-import com.amazonaws.encryptionsdk.CommitmentPolicy;
-import com.amazonaws.encryptionsdk.CryptoResult;
-import com.amazonaws.encryptionsdk.kms.KmsMasterKey;
-import com.amazonaws.encryptionsdk.kms.KmsMasterKeyProvider;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
-import com.amazonaws.services.dynamodbv2.model.GetItemResult;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
+import io.swagger.client.ApiClient;
 import io.swagger.client.ApiException;
+import io.swagger.client.ApiFutures;
+import io.swagger.client.JSON;
 import io.swagger.client.api.NotificationsApi;
+import io.swagger.client.api.NotificationsApiAsync;
 import io.swagger.client.model.CreateDestinationRequest;
-import io.swagger.client.model.CreateDestinationResponse;
 import io.swagger.client.model.CreateSubscriptionRequest;
 import io.swagger.client.model.CreateSubscriptionResponse;
 import io.swagger.client.model.Destination;
 import io.swagger.client.model.DestinationResourceSpecification;
-import io.swagger.client.model.GetDestinationsResponse;
-import io.swagger.client.model.GetSubscriptionResponse;
 import io.swagger.client.model.SqsResource;
-import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
-import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
-import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
-import utils.AppCredentials;
-import utils.IAMUserCredentials;
-import utils.NotificationsSubscriberResponse;
 import utils.RegionConfig;
+import utils.AwsClients;
+import utils.NotificationsSubscriberResponse;
+import utils.SellingPartnerApiCredentials;
+import utils.StartupPriming;
+import utils.StartupReport;
 
-import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import static utils.Constants.LWA_ENDPOINT;
-import static utils.Constants.VALID_SP_API_REGION_CONFIG;
 import static utils.Constants.VALID_SQS_NOTIFICATION_TYPES;
 
 public class NotificationsSubscriberHandler implements RequestHandler<Map<String, String>, NotificationsSubscriberResponse> {
 
     //Lambda Environment Variables
-    private static final String IAM_USER_CREDENTIALS_SECRET_ARN_ENV_VARIABLE = "IAM_USER_CREDENTIALS_SECRET_ARN";
-    private static final String SP_API_APP_CREDENTIALS_SECRET_ARN_ENV_VARIABLE = "SP_API_APP_CREDENTIALS_SECRET_ARN";
-    private static final String ROLE_ARN_ENV_VARIABLE = "ROLE_ARN";
-    private static final String ENCRYPTION_KEY_ARN_ENV_VARIABLE = "ENCRYPTION_KEY_ARN";
-    private static final String SELLING_PARTNERS_TABLE_NAME_ENV_VARIABLE = "SELLING_PARTNERS_TABLE_NAME";
     private static final String SQS_QUEUE_ARN_ENV_VARIABLE = "SQS_QUEUE_ARN";
 
     //Lambda Input Parameters
@@ -68,13 +48,23 @@ public class NotificationsSubscriberHandler implements RequestHandler<Map<String
     private static final String ROLE_SESSION_NAME = "notifications-subscriber-lambda-role-session";
     private static final String LWA_NOTIFICATIONS_SCOPE = "sellingpartnerapi::notifications";
     private static final String NOTIFICATION_PAYLOAD_VERSION = "1.0";
-    private static final String SELLING_PARTNERS_TABLE_HASH_KEY_NAME = "SellerId";
-    private static final String SELLING_PARTNERS_TABLE_TOKEN_NAME = "RefreshToken";
+    private static final String GRANTLESS_RATE_LIMIT_SCOPE = "grantless";
     private static final int DESTINATION_EXISTS_STATUS_CODE = 409;
     private static final int SUBSCRIPTION_EXISTS_STATUS_CODE = 409;
+    private static final int UNAUTHORIZED_STATUS_CODE = 401;
+    private static final int FORBIDDEN_STATUS_CODE = 403;
+
+    //Shared across warm invocations of the same container
+    private static final SellingPartnerApiCredentials CREDENTIALS = SellingPartnerApiCredentials.fromEnvironment(ROLE_SESSION_NAME);
+
+    static {
+        StartupPriming.register(NotificationsSubscriberHandler::prime);
+        StartupReport.markInitialized();
+    }
 
     @Override
     public NotificationsSubscriberResponse handleRequest(Map<String, String> event, Context context) {
+        StartupReport.report(context);
         LambdaLogger logger = context.getLogger();
         logger.log("NotificationsSubscriber Lambda handler started");
 
@@ -86,30 +76,45 @@ public class NotificationsSubscriberHandler implements RequestHandler<Map<String
 
         validateNotificationType(notificationType);
 
-        String destinationId = "";
+        //The grantless destination call is in flight while the seller credentials are being resolved
+        CompletableFuture<String> destination;
+        NotificationsApiAsync sellerNotificationsApi;
         try {
-            destinationId = createDestination(regionCode);
-            logger.log(String.format("Destination created - Destination Id: %s", destinationId));
+            destination = retryOnAuthorizationFailure(createDestination(getNotificationsApi(regionCode, null, true)),
+                    CREDENTIALS::invalidateGrantless, logger,
+                    () -> createDestination(getNotificationsApi(regionCode, null, true)));
+            sellerNotificationsApi = getNotificationsApi(regionCode, sellerId, false);
         } catch (Exception e) {
-            throw new InternalError("Create destination failed", e);
+            throw new InternalError("Notifications API client could not be built", e);
         }
 
+        String destinationId;
         try {
-            String refreshToken = getRefreshToken(sellerId);
+            destinationId = destination.join();
+            logger.log(String.format("Destination created - Destination Id: %s", destinationId));
+        } catch (CompletionException e) {
+            throw new InternalError("Create destination failed", ApiFutures.unwrap(e));
+        }
 
-            String subscriptionId = createSubscription(regionCode, refreshToken, notificationType, destinationId);
+        try {
+            String subscriptionId = retryOnAuthorizationFailure(
+                    createSubscription(sellerNotificationsApi, notificationType, destinationId),
+                    () -> CREDENTIALS.invalidate(sellerId), logger,
+                    () -> createSubscription(getNotificationsApi(regionCode, sellerId, false), notificationType,
+                            destinationId))
+                    .join();
             logger.log(String.format("Subscription created - Subscription Id: %s", subscriptionId));
 
             return NotificationsSubscriberResponse.builder()
                     .destinationId(destinationId)
                     .subscriptionId(subscriptionId)
                     .build();
-        } catch (Exception e) {
-            throw new InternalError("Create subscription failed", e);
+        } catch (CompletionException e) {
+            throw new InternalError("Create subscription failed", ApiFutures.unwrap(e));
         }
     }
 
-    private String createDestination(String regionCode) throws Exception {
+    private CompletableFuture<String> createDestination(NotificationsApiAsync notificationsApi) {
         String sqsQueueArn = System.getenv(SQS_QUEUE_ARN_ENV_VARIABLE);
 
         SqsResource sqsResource = new SqsResource();
@@ -122,124 +127,122 @@ public class NotificationsSubscriberHandler implements RequestHandler<Map<String
         request.setName(UUID.randomUUID().toString());
         request.setResourceSpecification(resourceSpec);
 
-        NotificationsApi notificationsApi = getNotificationsApi(regionCode, null, true);
+        CompletableFuture<String> destinationId = notificationsApi.createDestination(request)
+                .thenApply(response -> response.getPayload().getDestinationId());
 
-        String destinationId = "";
-        try {
-            CreateDestinationResponse createDestinationResponse = notificationsApi.createDestination(request);
-            destinationId = createDestinationResponse.getPayload().getDestinationId();
-        } catch (ApiException e) {
-            if (e.getCode() == DESTINATION_EXISTS_STATUS_CODE) {
-                GetDestinationsResponse getDestinationsResponse = notificationsApi.getDestinations();
-
-                Destination sqsDestination = getDestinationsResponse.getPayload().stream()
-                        .filter(destination -> destination.getResource().getSqs() != null)
-                        .filter(destination -> sqsQueueArn.equals(destination.getResource().getSqs().getArn()))
-                        .findFirst()
-                        .get();
-
-                destinationId = sqsDestination.getDestinationId();
-            } else {
-                throw e;
-            }
-        }
+        return recoverOnStatusCode(destinationId, DESTINATION_EXISTS_STATUS_CODE, () -> notificationsApi.getDestinations()
+                .thenApply(response -> {
+                    Destination sqsDestination = response.getPayload().stream()
+                            .filter(destination -> destination.getResource().getSqs() != null)
+                            .filter(destination -> sqsQueueArn.equals(destination.getResource().getSqs().getArn()))
+                            .findFirst()
+                            .get();
 
-        return destinationId;
+                    return sqsDestination.getDestinationId();
+                }));
     }
 
-    private String createSubscription(String regionCode, String refreshToken, String notificationType, String destinationId)
-            throws Exception {
-
+    private CompletableFuture<String> createSubscription(NotificationsApiAsync notificationsApi, String notificationType,
+                                                         String destinationId) {
         CreateSubscriptionRequest request = new CreateSubscriptionRequest();
         request.setDestinationId(destinationId);
         request.setPayloadVersion(NOTIFICATION_PAYLOAD_VERSION);
 
-        NotificationsApi notificationsApi = getNotificationsApi(regionCode, refreshToken, false);
-
-        String subscriptionId = "";
-        try {
-            CreateSubscriptionResponse response = notificationsApi.createSubscription(request, notificationType);
-            subscriptionId = response.getPayload().getSubscriptionId();
-        } catch (ApiException e) {
-            if (e.getCode() == SUBSCRIPTION_EXISTS_STATUS_CODE) {
-                GetSubscriptionResponse getSubscriptionResponse = notificationsApi.getSubscription(notificationType);
-                subscriptionId = getSubscriptionResponse.getPayload().getSubscriptionId();
-            } else {
-                throw e;
-            }
-        }
+        CompletableFuture<String> subscriptionId = notificationsApi.createSubscription(request, notificationType)
+                .thenApply(response -> response.getPayload().getSubscriptionId());
 
-        return subscriptionId;
+        return recoverOnStatusCode(subscriptionId, SUBSCRIPTION_EXISTS_STATUS_CODE, () -> notificationsApi
+                .getSubscription(notificationType)
+                .thenApply(response -> response.getPayload().getSubscriptionId()));
     }
 
-    private NotificationsApi getNotificationsApi(String regionCode, String refreshToken, boolean isGrantlessOperation)
-            throws Exception {
+    /**
+     * Falls back to the given call when the future failed with an ApiException of the given status code.
+     */
+    private static <T> CompletableFuture<T> recoverOnStatusCode(CompletableFuture<T> future, int statusCode,
+                                                                Supplier<CompletableFuture<T>> fallback) {
+        return future.handle((result, e) -> {
+            if (e == null) {
+                return CompletableFuture.completedFuture(result);
+            }
 
-        RegionConfig regionConfig = getRegionConfig(regionCode);
+            Throwable cause = ApiFutures.unwrap(e);
+            if (cause instanceof ApiException && ((ApiException) cause).getCode() == statusCode) {
+                return fallback.get();
+            }
 
-        ObjectMapper mapper = new ObjectMapper();
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(cause);
+            return failed;
+        }).thenCompose(Function.identity());
+    }
 
-        String iamUserCredentialsSecret = getSecretString(System.getenv(IAM_USER_CREDENTIALS_SECRET_ARN_ENV_VARIABLE));
-        IAMUserCredentials iamUserCredentials = mapper.readValue(iamUserCredentialsSecret, IAMUserCredentials.class);
+    /**
+     * Refreshes the cached credentials the call was made with when the future failed because SP-API rejected them,
+     * and makes the call once more with a client built from the refreshed credentials.
+     */
+    private static <T> CompletableFuture<T> retryOnAuthorizationFailure(CompletableFuture<T> future, Runnable invalidation,
+                                                                        LambdaLogger logger,
+                                                                        Callable<CompletableFuture<T>> retry) {
+        return future.handle((result, e) -> {
+            if (e == null) {
+                return CompletableFuture.completedFuture(result);
+            }
 
-        AWSAuthenticationCredentials awsAuthenticationCredentials=AWSAuthenticationCredentials.builder()
-                .accessKeyId(iamUserCredentials.getAccessKeyId())
-                .secretKey(iamUserCredentials.getSecretKey())
-                .region(regionConfig.getAwsRegion())
-                .build();
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            Throwable cause = ApiFutures.unwrap(e);
+            if (!(cause instanceof ApiException) || (((ApiException) cause).getCode() != UNAUTHORIZED_STATUS_CODE
+                    && ((ApiException) cause).getCode() != FORBIDDEN_STATUS_CODE)) {
+                failed.completeExceptionally(cause);
+                return failed;
+            }
 
-        AWSAuthenticationCredentialsProvider awsAuthenticationCredentialsProvider=AWSAuthenticationCredentialsProvider.builder()
-                .roleArn(System.getenv(ROLE_ARN_ENV_VARIABLE))
-                .roleSessionName(ROLE_SESSION_NAME)
-                .build();
+            logger.log(String.format("Notifications API call was rejected with status %s, refreshing cached credentials",
+                    ((ApiException) cause).getCode()));
+            invalidation.run();
+            try {
+                return retry.call();
+            } catch (Exception retryException) {
+                failed.completeExceptionally(retryException);
+                return failed;
+            }
+        }).thenCompose(Function.identity());
+    }
 
-        String appCredentialsSecret = getSecretString(System.getenv(SP_API_APP_CREDENTIALS_SECRET_ARN_ENV_VARIABLE));
-        AppCredentials appCredentials = mapper.readValue(appCredentialsSecret, AppCredentials.class);
+    private NotificationsApiAsync getNotificationsApi(String regionCode, String sellerId, boolean isGrantlessOperation)
+            throws Exception {
 
-        LWAAuthorizationCredentials lwaAuthorizationCredentials = LWAAuthorizationCredentials.builder()
-                .clientId(appCredentials.getClientId())
-                .clientSecret(appCredentials.getClientSecret())
-                .endpoint(LWA_ENDPOINT)
-                .build();
+        RegionConfig regionConfig = RegionConfig.fromRegionCode(regionCode);
 
-        if (isGrantlessOperation) {
-            Set<String> scopesSet = new HashSet<>();
-            scopesSet.add(LWA_NOTIFICATIONS_SCOPE);
-            lwaAuthorizationCredentials.setScopes(new LWAClientScopes(scopesSet));
-        } else {
-            lwaAuthorizationCredentials.setRefreshToken(refreshToken);
-        }
+        LWAAuthorizationCredentials lwaAuthorizationCredentials = isGrantlessOperation
+                ? CREDENTIALS.getGrantlessLwaAuthorizationCredentials(LWA_NOTIFICATIONS_SCOPE)
+                : CREDENTIALS.getLwaAuthorizationCredentials(sellerId);
 
-        return new NotificationsApi.Builder()
-                .awsAuthenticationCredentials(awsAuthenticationCredentials)
+        NotificationsApi notificationsApi = new NotificationsApi.Builder()
+                .awsAuthenticationCredentials(CREDENTIALS.getAwsAuthenticationCredentials(regionConfig))
                 .lwaAuthorizationCredentials(lwaAuthorizationCredentials)
-                .awsAuthenticationCredentialsProvider(awsAuthenticationCredentialsProvider)
+                .lwaAccessTokenCache(CREDENTIALS.getLwaAccessTokenCache())
+                .awsAuthenticationCredentialsProvider(CREDENTIALS.getAwsAuthenticationCredentialsProvider())
                 .endpoint(regionConfig.getSpApiEndpoint())
                 .build();
-    }
-
-    private String getRefreshToken(String sellerId) {
-        Map<String, AttributeValue> key = new HashMap<>();
-        key.put(SELLING_PARTNERS_TABLE_HASH_KEY_NAME, new AttributeValue(sellerId));
+        notificationsApi.getApiClient().setRateLimitScope(isGrantlessOperation ? GRANTLESS_RATE_LIMIT_SCOPE : sellerId);
 
-        GetItemRequest getItemRequest = new GetItemRequest()
-                .withTableName(System.getenv(SELLING_PARTNERS_TABLE_NAME_ENV_VARIABLE))
-                .withKey(key);
-
-        AmazonDynamoDB dynamoDB = AmazonDynamoDBClientBuilder.defaultClient();
-        GetItemResult getItemResult = dynamoDB.getItem(getItemRequest);
-        Map<String, AttributeValue> item = getItemResult.getItem();
-        ByteBuffer encryptedRefreshToken = item.get(SELLING_PARTNERS_TABLE_TOKEN_NAME).getB();
-        byte[] encryptedRefreshTokenBytes = encryptedRefreshToken.array();
+        return new NotificationsApiAsync(notificationsApi);
+    }
 
-        AwsCrypto crypto = AwsCrypto.builder()
-                .withCommitmentPolicy(CommitmentPolicy.RequireEncryptRequireDecrypt)
-                .build();
+    //Exercises the request and response serialization paths without calling any remote service
+    private static void prime() {
+        AwsClients.getDynamoDB();
+        AwsClients.getSecretsManager();
 
-        KmsMasterKeyProvider keyProvider = KmsMasterKeyProvider.builder().buildStrict(System.getenv(ENCRYPTION_KEY_ARN_ENV_VARIABLE));
+        CreateSubscriptionRequest request = new CreateSubscriptionRequest();
+        request.setDestinationId("0");
+        request.setPayloadVersion(NOTIFICATION_PAYLOAD_VERSION);
 
-        CryptoResult<byte[], KmsMasterKey> decryptedData = crypto.decryptData(keyProvider, encryptedRefreshTokenBytes);
-        return new String(decryptedData.getResult());
+        JSON json = new ApiClient().getJSON();
+        json.serialize(request);
+        json.deserialize("{\"payload\":{\"subscriptionId\":\"0\",\"payloadVersion\":\"1.0\",\"destinationId\":\"0\"}}",
+                CreateSubscriptionResponse.class);
     }
 
     private void validateInput(Map<String, String> event) {
@@ -265,26 +268,4 @@ public class NotificationsSubscriberHandler implements RequestHandler<Map<String
             throw new IllegalArgumentException(msg);
         }
     }
-
-    private String getSecretString(String secretId) {
-        SecretsManagerClient client = SecretsManagerClient.builder().build();
-        GetSecretValueRequest request = GetSecretValueRequest.builder()
-                .secretId(secretId)
-                .build();
-
-        GetSecretValueResponse response = client.getSecretValue(request);
-        return response.secretString();
-    }
-
-    private RegionConfig getRegionConfig(String regionCode) {
-        if (!VALID_SP_API_REGION_CONFIG.containsKey(regionCode)) {
-            String msg = String.format("Region Code %s is not valid. Value must be one of %s",
-                    regionCode,
-                    VALID_SP_API_REGION_CONFIG.keySet());
-
-            throw new IllegalArgumentException(msg);
-        }
-
-        return VALID_SP_API_REGION_CONFIG.get(regionCode);
-    }
 }
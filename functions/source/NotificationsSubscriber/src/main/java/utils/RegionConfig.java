@@ -1,12 +0,0 @@
-package utils;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-
-@Data
-@AllArgsConstructor
-public class RegionConfig {
-
-    public String awsRegion;
-    public String spApiEndpoint;
-}
@@ -0,0 +1,74 @@
+package io.swagger.client.api;
+
+import io.swagger.client.ApiFutures;
+import io.swagger.client.model.CreateReportResponse;
+import io.swagger.client.model.CreateReportScheduleResponse;
+import io.swagger.client.model.CreateReportScheduleSpecification;
+import io.swagger.client.model.CreateReportSpecification;
+import io.swagger.client.model.GetReportsResponse;
+import io.swagger.client.model.Report;
+import io.swagger.client.model.ReportDocument;
+import io.swagger.client.model.ReportSchedule;
+import io.swagger.client.model.ReportScheduleList;
+import org.threeten.bp.OffsetDateTime;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * CompletableFuture based facade over the *Async methods of ReportsApi.
+ * Calls are sent without blocking the caller, so many of them can be in flight at once; each future fails with the
+ * ApiException of its call. Usage plan limits still apply to the credentials of the wrapped ReportsApi.
+ */
+public class ReportsApiAsync {
+
+    private final ReportsApi reportsApi;
+
+    public ReportsApiAsync(ReportsApi reportsApi) {
+        this.reportsApi = reportsApi;
+    }
+
+    public ReportsApi getReportsApi() {
+        return reportsApi;
+    }
+
+    public CompletableFuture<Void> cancelReport(String reportId) {
+        return ApiFutures.toCompletableFuture(callback -> reportsApi.cancelReportAsync(reportId, callback));
+    }
+
+    public CompletableFuture<Void> cancelReportSchedule(String reportScheduleId) {
+        return ApiFutures.toCompletableFuture(callback -> reportsApi.cancelReportScheduleAsync(reportScheduleId, callback));
+    }
+
+    public CompletableFuture<CreateReportResponse> createReport(CreateReportSpecification body) {
+        return ApiFutures.toCompletableFuture(callback -> reportsApi.createReportAsync(body, callback));
+    }
+
+    public CompletableFuture<CreateReportScheduleResponse> createReportSchedule(CreateReportScheduleSpecification body) {
+        return ApiFutures.toCompletableFuture(callback -> reportsApi.createReportScheduleAsync(body, callback));
+    }
+
+    public CompletableFuture<Report> getReport(String reportId) {
+        return ApiFutures.toCompletableFuture(callback -> reportsApi.getReportAsync(reportId, callback));
+    }
+
+    public CompletableFuture<ReportDocument> getReportDocument(String reportDocumentId) {
+        return ApiFutures.toCompletableFuture(callback -> reportsApi.getReportDocumentAsync(reportDocumentId, callback));
+    }
+
+    public CompletableFuture<ReportSchedule> getReportSchedule(String reportScheduleId) {
+        return ApiFutures.toCompletableFuture(callback -> reportsApi.getReportScheduleAsync(reportScheduleId, callback));
+    }
+
+    public CompletableFuture<ReportScheduleList> getReportSchedules(List<String> reportTypes) {
+        return ApiFutures.toCompletableFuture(callback -> reportsApi.getReportSchedulesAsync(reportTypes, callback));
+    }
+
+    public CompletableFuture<GetReportsResponse> getReports(List<String> reportTypes, List<String> processingStatuses,
+                                                            List<String> marketplaceIds, Integer pageSize,
+                                                            OffsetDateTime createdSince, OffsetDateTime createdUntil,
+                                                            String nextToken) {
+        return ApiFutures.toCompletableFuture(callback -> reportsApi.getReportsAsync(reportTypes, processingStatuses,
+                marketplaceIds, pageSize, createdSince, createdUntil, nextToken, callback));
+    }
+}
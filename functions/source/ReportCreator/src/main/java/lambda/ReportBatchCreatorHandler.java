@@ -0,0 +1,307 @@
+package lambda;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.swagger.client.ApiException;
+import io.swagger.client.ApiFutures;
+import io.swagger.client.api.ReportsApi;
+import io.swagger.client.api.ReportsApiAsync;
+import io.swagger.client.model.CreateReportResponse;
+import io.swagger.client.model.CreateReportSpecification;
+import utils.AwsClients;
+import utils.RegionConfig;
+import utils.ReportBatchCreatorResponse;
+import utils.ReportBatchCreatorResult;
+import utils.ReportRequests;
+import utils.ReportsTable;
+import utils.SellingPartnerApiCredentials;
+import utils.StartupPriming;
+import utils.StartupReport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static utils.ReportRequests.REGION_CODE_KEY_NAME;
+import static utils.ReportRequests.REPORT_TYPE_KEY_NAME;
+import static utils.ReportRequests.SELLER_ID_KEY_NAME;
+
+/**
+ * Batch variant of ReportCreatorHandler: the input is a list of report requests, each with the same keys as the input
+ * of the single report function. Requests are grouped by seller and region so that credentials and API clients are
+ * resolved once per group, groups are processed concurrently and the reports of a group are submitted with a bounded
+ * number of calls in flight. A request failing does not fail the batch, it is reported in the response instead.
+ */
+public class ReportBatchCreatorHandler implements RequestHandler<List<Map<String, String>>, ReportBatchCreatorResponse> {
+
+    //Lambda Environment Variables
+    private static final String REPORTS_TABLE_NAME_ENV_VARIABLE = "REPORTS_TABLE_NAME";
+    private static final String MAX_CONCURRENT_SELLERS_ENV_VARIABLE = "MAX_CONCURRENT_SELLERS";
+    private static final String MAX_CONCURRENT_REQUESTS_PER_SELLER_ENV_VARIABLE = "MAX_CONCURRENT_REQUESTS_PER_SELLER";
+    private static final String MAX_REQUESTS_PER_SELLER_ENV_VARIABLE = "MAX_REQUESTS_PER_SELLER";
+
+    private static final String ROLE_SESSION_NAME = "report-batch-creator-lambda-role-session";
+    private static final int DEFAULT_MAX_CONCURRENT_SELLERS = 10;
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS_PER_SELLER = 5;
+    //Burst of the createReport usage plan, the rate (one per minute) is too low to send more in the same invocation
+    private static final int DEFAULT_MAX_REQUESTS_PER_SELLER = 15;
+    private static final int UNAUTHORIZED_STATUS_CODE = 401;
+    private static final int FORBIDDEN_STATUS_CODE = 403;
+
+    //Shared across warm invocations of the same container
+    private static final SellingPartnerApiCredentials CREDENTIALS = SellingPartnerApiCredentials.fromEnvironment(ROLE_SESSION_NAME);
+    private static final ReportsTable REPORTS_TABLE = new ReportsTable(System.getenv(REPORTS_TABLE_NAME_ENV_VARIABLE));
+    private static final ExecutorService SELLER_EXECUTOR = Executors.newFixedThreadPool(
+            getIntEnv(MAX_CONCURRENT_SELLERS_ENV_VARIABLE, DEFAULT_MAX_CONCURRENT_SELLERS),
+            new ThreadFactoryBuilder()
+                    .setNameFormat("report-batch-seller-%d")
+                    .setDaemon(true)
+                    .build());
+    private static final int MAX_CONCURRENT_REQUESTS_PER_SELLER =
+            getIntEnv(MAX_CONCURRENT_REQUESTS_PER_SELLER_ENV_VARIABLE, DEFAULT_MAX_CONCURRENT_REQUESTS_PER_SELLER);
+    private static final int MAX_REQUESTS_PER_SELLER =
+            getIntEnv(MAX_REQUESTS_PER_SELLER_ENV_VARIABLE, DEFAULT_MAX_REQUESTS_PER_SELLER);
+
+    static {
+        StartupPriming.register(AwsClients::getDynamoDB);
+        StartupReport.markInitialized();
+    }
+
+    @Override
+    public ReportBatchCreatorResponse handleRequest(List<Map<String, String>> event, Context context) {
+        StartupReport.report(context);
+        LambdaLogger logger = context.getLogger();
+
+        if (event == null || event.isEmpty()) {
+            throw new IllegalArgumentException("The provided input must contain at least one report request");
+        }
+        logger.log(String.format("ReportBatchCreator Lambda handler started. Batch size: %d", event.size()));
+
+        //Results are kept in input order, each slot is written once by the stage that completes its request
+        ReportBatchCreatorResult[] results = new ReportBatchCreatorResult[event.size()];
+        Map<String, List<Integer>> sellerGroups = groupBySeller(event, results);
+
+        List<CompletableFuture<Void>> groups = new ArrayList<>();
+        for (List<Integer> group : sellerGroups.values()) {
+            groups.add(submitSellerReports(event, group, results));
+        }
+        CompletableFuture.allOf(groups.toArray(new CompletableFuture[0])).join();
+
+        storeReportData(results);
+
+        int failedCount = (int) Arrays.stream(results).filter(result -> result.getErrorMessage() != null).count();
+        logger.log(String.format("Finished submitting reports. Submitted: %d, failed: %d",
+                results.length - failedCount, failedCount));
+
+        return ReportBatchCreatorResponse.builder()
+                .submittedCount(results.length - failedCount)
+                .failedCount(failedCount)
+                .reports(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Groups the indexes of the valid requests by seller and region. Invalid requests, and the requests above the
+     * per seller limit, get their failed result right away.
+     */
+    private Map<String, List<Integer>> groupBySeller(List<Map<String, String>> event, ReportBatchCreatorResult[] results) {
+        Map<String, List<Integer>> sellerGroups = new LinkedHashMap<>();
+
+        for (int i = 0; i < event.size(); i++) {
+            Map<String, String> reportEvent = event.get(i) == null ? Collections.emptyMap() : event.get(i);
+
+            try {
+                ReportRequests.validateInput(reportEvent);
+            } catch (IllegalArgumentException e) {
+                results[i] = getFailedResult(reportEvent, e.getMessage());
+                continue;
+            }
+
+            String sellerKey = String.format("%s#%s", reportEvent.get(SELLER_ID_KEY_NAME), reportEvent.get(REGION_CODE_KEY_NAME));
+            List<Integer> group = sellerGroups.computeIfAbsent(sellerKey, key -> new ArrayList<>());
+
+            if (group.size() < MAX_REQUESTS_PER_SELLER) {
+                group.add(i);
+            } else {
+                results[i] = getFailedResult(reportEvent, String.format(
+                        "Not submitted, more than %d reports were requested for the seller in this batch", MAX_REQUESTS_PER_SELLER));
+            }
+        }
+
+        return sellerGroups;
+    }
+
+    private CompletableFuture<Void> submitSellerReports(List<Map<String, String>> event, List<Integer> group,
+                                                      ReportBatchCreatorResult[] results) {
+        Map<String, String> firstEvent = event.get(group.get(0));
+        String sellerId = firstEvent.get(SELLER_ID_KEY_NAME);
+        String regionCode = firstEvent.get(REGION_CODE_KEY_NAME);
+
+        //Resolving the seller credentials blocks on DynamoDB, KMS and Secrets Manager, the calls themselves don't
+        return CompletableFuture.supplyAsync(() -> getReportsApi(regionCode, sellerId), SELLER_EXECUTOR)
+                .thenCompose(reportsApi -> {
+                    Set<Integer> authorizationFailures = new HashSet<>();
+                    List<Supplier<CompletableFuture<Void>>> tasks = new ArrayList<>();
+
+                    for (int index : group) {
+                        Map<String, String> reportEvent = event.get(index);
+                        tasks.add(() -> createReport(reportsApi, reportEvent).handle((reportId, e) -> {
+                            if (e == null) {
+                                results[index] = getResult(reportEvent, reportId, null);
+                            } else {
+                                Throwable cause = ApiFutures.unwrap(e);
+                                if (isAuthorizationFailure(cause)) {
+                                    synchronized (authorizationFailures) {
+                                        authorizationFailures.add(index);
+                                    }
+                                }
+                                results[index] = getFailedResult(reportEvent, getErrorMessage(cause));
+                            }
+                            return null;
+                        }));
+                    }
+
+                    return runWithConcurrencyLimit(tasks, MAX_CONCURRENT_REQUESTS_PER_SELLER)
+                            .thenRun(() -> {
+                                //Cached credentials may be stale, the next batch for this seller resolves them again
+                                if (!authorizationFailures.isEmpty()) {
+                                    CREDENTIALS.invalidate(sellerId);
+                                }
+                            });
+                })
+                .exceptionally(e -> {
+                    String errorMessage = String.format("Seller credentials could not be resolved: %s",
+                            getErrorMessage(ApiFutures.unwrap(e)));
+                    for (int index : group) {
+                        results[index] = getFailedResult(event.get(index), errorMessage);
+                    }
+                    return null;
+                });
+    }
+
+    private CompletableFuture<String> createReport(ReportsApiAsync reportsApi, Map<String, String> reportEvent) {
+        CreateReportSpecification request;
+        try {
+            request = ReportRequests.getCreateReportSpecification(ReportRequests.getReportRequest(reportEvent));
+        } catch (IOException | RuntimeException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        return reportsApi.createReport(request).thenApply(CreateReportResponse::getReportId);
+    }
+
+    /**
+     * Runs the tasks with at most maxConcurrency of them in flight, starting the next one as soon as one completes.
+     * Tasks are expected to handle their own failures.
+     */
+    private static CompletableFuture<Void> runWithConcurrencyLimit(List<Supplier<CompletableFuture<Void>>> tasks,
+                                                                   int maxConcurrency) {
+        AtomicInteger nextTask = new AtomicInteger();
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(maxConcurrency, tasks.size())];
+
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = runNext(tasks, nextTask);
+        }
+
+        return CompletableFuture.allOf(lanes);
+    }
+
+    private static CompletableFuture<Void> runNext(List<Supplier<CompletableFuture<Void>>> tasks, AtomicInteger nextTask) {
+        int index = nextTask.getAndIncrement();
+        if (index >= tasks.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return tasks.get(index).get().thenCompose(ignored -> runNext(tasks, nextTask));
+    }
+
+    private void storeReportData(ReportBatchCreatorResult[] results) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, ReportBatchCreatorResult> resultsByReportId = new LinkedHashMap<>();
+
+        for (ReportBatchCreatorResult result : results) {
+            if (result.getReportId() != null) {
+                items.add(ReportsTable.getReportItem(result.getReportId(), result.getSellerId(), result.getRegionCode()));
+                resultsByReportId.put(result.getReportId(), result);
+            }
+        }
+
+        //Without its row the report notification cannot be processed, so the report is reported as failed. Its report id
+        //is still returned: the report was submitted and is not to be requested again blindly
+        for (Map<String, AttributeValue> item : REPORTS_TABLE.batchWriteItems(items)) {
+            resultsByReportId.get(ReportsTable.getReportId(item))
+                    .setErrorMessage("Report submitted but its data could not be stored");
+        }
+    }
+
+    private ReportsApiAsync getReportsApi(String regionCode, String sellerId) {
+        try {
+            RegionConfig regionConfig = RegionConfig.fromRegionCode(regionCode);
+
+            ReportsApi reportsApi = new ReportsApi.Builder()
+                    .awsAuthenticationCredentials(CREDENTIALS.getAwsAuthenticationCredentials(regionConfig))
+                    .lwaAuthorizationCredentials(CREDENTIALS.getLwaAuthorizationCredentials(sellerId))
+                    .lwaAccessTokenCache(CREDENTIALS.getLwaAccessTokenCache())
+                    .awsAuthenticationCredentialsProvider(CREDENTIALS.getAwsAuthenticationCredentialsProvider())
+                    .endpoint(regionConfig.getSpApiEndpoint())
+                    .build();
+            reportsApi.getApiClient().setRateLimitScope(sellerId);
+
+            return new ReportsApiAsync(reportsApi);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static boolean isAuthorizationFailure(Throwable e) {
+        return e instanceof ApiException
+                && (((ApiException) e).getCode() == UNAUTHORIZED_STATUS_CODE
+                || ((ApiException) e).getCode() == FORBIDDEN_STATUS_CODE);
+    }
+
+    private static String getErrorMessage(Throwable e) {
+        if (e instanceof ApiException) {
+            ApiException apiException = (ApiException) e;
+            return String.format("SP-API call failed with status %d: %s", apiException.getCode(),
+                    apiException.getResponseBody() != null ? apiException.getResponseBody() : apiException.getMessage());
+        }
+
+        return String.valueOf(e.getMessage());
+    }
+
+    private static ReportBatchCreatorResult getFailedResult(Map<String, String> reportEvent, String errorMessage) {
+        return getResult(reportEvent, null, errorMessage);
+    }
+
+    private static ReportBatchCreatorResult getResult(Map<String, String> reportEvent, String reportId, String errorMessage) {
+        return ReportBatchCreatorResult.builder()
+                .sellerId(reportEvent.get(SELLER_ID_KEY_NAME))
+                .regionCode(reportEvent.get(REGION_CODE_KEY_NAME))
+                .reportType(reportEvent.get(REPORT_TYPE_KEY_NAME))
+                .reportId(reportId)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+}
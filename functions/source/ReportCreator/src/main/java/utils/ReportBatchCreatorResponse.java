@@ -0,0 +1,15 @@
+package utils;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ReportBatchCreatorResponse {
+
+    public int submittedCount;
+    public int failedCount;
+    public List<ReportBatchCreatorResult> reports;
+}
@@ -0,0 +1,15 @@
+package utils;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ReportBatchCreatorResult {
+
+    public String sellerId;
+    public String regionCode;
+    public String reportType;
+    public String reportId;
+    public String errorMessage;
+}
@@ -0,0 +1,91 @@
+package utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import io.swagger.client.model.CreateReportSpecification;
+import io.swagger.client.model.ReportOptions;
+import org.threeten.bp.OffsetDateTime;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the input of the report creation functions, shared by the single and the batch handler.
+ */
+public final class ReportRequests {
+
+    //Lambda Input Parameters
+    public static final String SELLER_ID_KEY_NAME = "SellerId";
+    public static final String REGION_CODE_KEY_NAME = "RegionCode";
+    public static final String REPORT_TYPE_KEY_NAME = "ReportType";
+    public static final String MARKETPLACE_IDS_KEY_NAME = "MarketplaceIds";
+    public static final String REPORT_DATA_START_TIME_KEY_NAME = "ReportDataStartTime";
+    public static final String REPORT_DATA_END_TIME_KEY_NAME = "ReportDataEndTime";
+    public static final String REPORT_OPTIONS_KEY_NAME = "ReportOptions";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ReportRequests() {
+    }
+
+    public static void validateInput(Map<String, String> event) {
+        List<String> requiredParameters = Lists.newArrayList(
+                REGION_CODE_KEY_NAME,
+                SELLER_ID_KEY_NAME,
+                REPORT_TYPE_KEY_NAME,
+                MARKETPLACE_IDS_KEY_NAME);
+
+        if (!event.keySet().containsAll(requiredParameters)) {
+            String msg = String.format("The provided input must contain all the following keys: %s",
+                    requiredParameters);
+
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    public static ReportRequest getReportRequest(Map<String, String> event) throws IOException {
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setReportType(event.get(REPORT_TYPE_KEY_NAME));
+        reportRequest.setMarketplaceIds(Arrays.asList(event.get(MARKETPLACE_IDS_KEY_NAME).split(",")));
+
+        if (event.containsKey(REPORT_DATA_START_TIME_KEY_NAME) && event.containsKey(REPORT_DATA_END_TIME_KEY_NAME)) {
+            OffsetDateTime dataStartTime = OffsetDateTime.parse(event.get(REPORT_DATA_START_TIME_KEY_NAME));
+            OffsetDateTime dataEndTime = OffsetDateTime.parse(event.get(REPORT_DATA_END_TIME_KEY_NAME));
+
+            reportRequest.setReportDataStartTime(dataStartTime);
+            reportRequest.setReportDataEndTime(dataEndTime);
+        }
+
+        if (event.containsKey(REPORT_OPTIONS_KEY_NAME)) {
+            String reportOptionsStr = event.get(REPORT_OPTIONS_KEY_NAME);
+
+            if (!reportOptionsStr.isEmpty()) {
+                Map<String, String> reportOptionsMap = MAPPER.readValue(reportOptionsStr, HashMap.class);
+
+                ReportOptions reportOptions = new ReportOptions();
+                for (Map.Entry<String, String> entry : reportOptionsMap.entrySet()) {
+                    reportOptions.put(entry.getKey(), entry.getValue());
+                }
+
+                reportRequest.setReportOptions(reportOptions);
+            }
+        }
+
+        return reportRequest;
+    }
+
+    public static CreateReportSpecification getCreateReportSpecification(ReportRequest reportRequest) {
+        CreateReportSpecification request = new CreateReportSpecification();
+        request.setReportType(reportRequest.getReportType());
+        request.setMarketplaceIds(reportRequest.getMarketplaceIds());
+        request.setDataStartTime(reportRequest.getReportDataStartTime());
+        request.setDataEndTime(reportRequest.getReportDataEndTime());
+
+        request.setReportOptions(reportRequest.getReportOptions());
+
+        return request;
+    }
+}
@@ -0,0 +1,110 @@
+package utils;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Writes the rows that link a submitted report to its seller, so that its notification can be processed later on.
+ */
+public class ReportsTable {
+
+    private static final String REPORTS_TABLE_HASH_KEY_NAME = "ReportId";
+    private static final String REPORTS_TABLE_RANGE_KEY_NAME = "SellerId";
+    private static final String REPORTS_TABLE_REGION_CODE_NAME = "RegionCode";
+
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_BATCH_WRITE_ATTEMPTS = 5;
+    private static final long BATCH_WRITE_BACKOFF_BASE_MILLIS = 100;
+
+    private final String tableName;
+    private final Supplier<AmazonDynamoDB> dynamoDB;
+
+    public ReportsTable(String tableName) {
+        this(tableName, AwsClients::getDynamoDB);
+    }
+
+    public ReportsTable(String tableName, Supplier<AmazonDynamoDB> dynamoDB) {
+        this.tableName = tableName;
+        this.dynamoDB = dynamoDB;
+    }
+
+    public static Map<String, AttributeValue> getReportItem(String reportId, String sellerId, String regionCode) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(REPORTS_TABLE_HASH_KEY_NAME, new AttributeValue(reportId));
+        item.put(REPORTS_TABLE_RANGE_KEY_NAME, new AttributeValue(sellerId));
+        item.put(REPORTS_TABLE_REGION_CODE_NAME, new AttributeValue(regionCode));
+
+        return item;
+    }
+
+    public static String getReportId(Map<String, AttributeValue> item) {
+        return item.get(REPORTS_TABLE_HASH_KEY_NAME).getS();
+    }
+
+    public void putItem(Map<String, AttributeValue> item) {
+        PutItemRequest putItemRequest = new PutItemRequest()
+                .withTableName(tableName)
+                .withItem(item);
+
+        dynamoDB.get().putItem(putItemRequest);
+    }
+
+    /**
+     * Writes the items in batches of 25, retrying the items DynamoDB leaves unprocessed with an exponential backoff.
+     * Returns the items that could not be written after the last attempt, including the items of a batch whose write
+     * failed, so that the caller keeps track of every item. When interrupted, the items not written yet are returned
+     * with the interrupt flag set.
+     */
+    public List<Map<String, AttributeValue>> batchWriteItems(List<Map<String, AttributeValue>> items) {
+        List<Map<String, AttributeValue>> failedItems = new ArrayList<>();
+
+        for (List<Map<String, AttributeValue>> batch : Lists.partition(items, MAX_BATCH_WRITE_ITEMS)) {
+            List<WriteRequest> writeRequests = new ArrayList<>();
+            for (Map<String, AttributeValue> item : batch) {
+                writeRequests.add(new WriteRequest().withPutRequest(new PutRequest().withItem(item)));
+            }
+
+            Map<String, List<WriteRequest>> requestItems = Collections.singletonMap(tableName, writeRequests);
+            for (int attempt = 0; attempt < MAX_BATCH_WRITE_ATTEMPTS && !requestItems.isEmpty()
+                    && !Thread.currentThread().isInterrupted(); attempt++) {
+                try {
+                    if (attempt > 0) {
+                        Thread.sleep(BATCH_WRITE_BACKOFF_BASE_MILLIS << attempt);
+                    }
+
+                    BatchWriteItemResult result = dynamoDB.get().batchWriteItem(new BatchWriteItemRequest()
+                            .withRequestItems(requestItems));
+                    requestItems = result.getUnprocessedItems() == null
+                            ? Collections.emptyMap()
+                            : result.getUnprocessedItems();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    //Whatever the previous attempts left unprocessed is failed, the next batches are still written
+                    LambdaRuntime.getLogger().log(String.format("Batch write to %s failed: %s", tableName, e));
+                    break;
+                }
+            }
+
+            for (WriteRequest writeRequest : requestItems.getOrDefault(tableName, Collections.emptyList())) {
+                failedItems.add(writeRequest.getPutRequest().getItem());
+            }
+        }
+
+        return failedItems;
+    }
+}
@@ -0,0 +1,110 @@
+package utils;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReportsTableTest {
+
+    private static final String TABLE_NAME = "Reports";
+
+    @Test
+    public void batchWriteItems_allProcessed_returnsNoFailedItems() {
+        StubDynamoDB dynamoDB = new StubDynamoDB(request -> new BatchWriteItemResult());
+        ReportsTable table = new ReportsTable(TABLE_NAME, () -> dynamoDB);
+
+        assertTrue(table.batchWriteItems(newItems(30)).isEmpty());
+        assertEquals(2, dynamoDB.requests.size());
+        assertEquals(25, dynamoDB.requests.get(0).getRequestItems().get(TABLE_NAME).size());
+        assertEquals(5, dynamoDB.requests.get(1).getRequestItems().get(TABLE_NAME).size());
+    }
+
+    @Test
+    public void batchWriteItems_unprocessedItems_areRetried() {
+        StubDynamoDB dynamoDB = new StubDynamoDB(request -> {
+            List<WriteRequest> writeRequests = request.getRequestItems().get(TABLE_NAME);
+            return writeRequests.size() > 1
+                    ? new BatchWriteItemResult().withUnprocessedItems(
+                            Collections.singletonMap(TABLE_NAME, writeRequests.subList(1, writeRequests.size())))
+                    : new BatchWriteItemResult();
+        });
+        ReportsTable table = new ReportsTable(TABLE_NAME, () -> dynamoDB);
+
+        assertTrue(table.batchWriteItems(newItems(3)).isEmpty());
+        assertEquals(3, dynamoDB.requests.size());
+    }
+
+    @Test
+    public void batchWriteItems_batchWriteThrows_returnsItsItemsAndWritesTheNextBatches() {
+        StubDynamoDB dynamoDB = new StubDynamoDB(request -> {
+            if (ReportsTable.getReportId(request.getRequestItems().get(TABLE_NAME).get(0).getPutRequest().getItem())
+                    .equals("report-0")) {
+                throw new AmazonServiceException("Service unavailable");
+            }
+            return new BatchWriteItemResult();
+        });
+        ReportsTable table = new ReportsTable(TABLE_NAME, () -> dynamoDB);
+
+        List<Map<String, AttributeValue>> failedItems = table.batchWriteItems(newItems(30));
+
+        assertEquals(25, failedItems.size());
+        assertEquals("report-0", ReportsTable.getReportId(failedItems.get(0)));
+        assertEquals("report-24", ReportsTable.getReportId(failedItems.get(24)));
+        assertEquals(2, dynamoDB.requests.size());
+    }
+
+    @Test
+    public void batchWriteItems_interrupted_returnsTheItemsNotWritten() {
+        StubDynamoDB dynamoDB = new StubDynamoDB(request -> new BatchWriteItemResult());
+        ReportsTable table = new ReportsTable(TABLE_NAME, () -> dynamoDB);
+
+        Thread.currentThread().interrupt();
+        List<Map<String, AttributeValue>> failedItems;
+        try {
+            failedItems = table.batchWriteItems(newItems(30));
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+
+        assertEquals(30, failedItems.size());
+        assertTrue(dynamoDB.requests.isEmpty());
+    }
+
+    private static List<Map<String, AttributeValue>> newItems(int count) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(ReportsTable.getReportItem("report-" + i, "A1SELLER", "NA"));
+        }
+
+        return items;
+    }
+
+    private static final class StubDynamoDB extends AbstractAmazonDynamoDB {
+
+        private final Function<BatchWriteItemRequest, BatchWriteItemResult> batchWriteItem;
+        private final List<BatchWriteItemRequest> requests = new ArrayList<>();
+
+        StubDynamoDB(Function<BatchWriteItemRequest, BatchWriteItemResult> batchWriteItem) {
+            this.batchWriteItem = batchWriteItem;
+        }
+
+        @Override
+        public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+            requests.add(request);
+            return batchWriteItem.apply(request);
+        }
+    }
+}
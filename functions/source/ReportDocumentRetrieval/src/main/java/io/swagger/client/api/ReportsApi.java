@@ -17,6 +17,7 @@ import io.swagger.client.ApiCallback;
 import io.swagger.client.ApiClient;
 import io.swagger.client.ApiException;
 import io.swagger.client.ApiResponse;
+import io.swagger.client.AssumeRoleAWSSigV4Signer;
 import io.swagger.client.Configuration;
 import io.swagger.client.Pair;
 import io.swagger.client.ProgressRequestBody;
@@ -1213,6 +1214,7 @@ public class ReportsApi {
         private Boolean disableAccessTokenCache = false;
         private AWSAuthenticationCredentialsProvider awsAuthenticationCredentialsProvider;
         private RateLimitConfiguration rateLimitConfiguration;
+        private boolean disableRateLimit = false;
 
         public Builder awsAuthenticationCredentials(AWSAuthenticationCredentials awsAuthenticationCredentials) {
             this.awsAuthenticationCredentials = awsAuthenticationCredentials;
@@ -1246,11 +1248,13 @@ public class ReportsApi {
         
         public Builder rateLimitConfigurationOnRequests(RateLimitConfiguration rateLimitConfiguration){
             this.rateLimitConfiguration = rateLimitConfiguration;
+            this.disableRateLimit = false;
             return this;
         }
         
         public Builder disableRateLimitOnRequests() {
             this.rateLimitConfiguration = null;
+            this.disableRateLimit = true;
             return this;
         }
         
@@ -1273,7 +1277,7 @@ public class ReportsApi {
                 awsSigV4Signer = new AWSSigV4Signer(awsAuthenticationCredentials);
             }
             else {
-                awsSigV4Signer = new AWSSigV4Signer(awsAuthenticationCredentials,awsAuthenticationCredentialsProvider);
+                awsSigV4Signer = new AssumeRoleAWSSigV4Signer(awsAuthenticationCredentials,awsAuthenticationCredentialsProvider);
             }
             
             LWAAuthorizationSigner lwaAuthorizationSigner = null;            
@@ -1287,11 +1291,16 @@ public class ReportsApi {
                  lwaAuthorizationSigner = new LWAAuthorizationSigner(lwaAuthorizationCredentials,lwaAccessTokenCache);
             }
 
-            return new ReportsApi(new ApiClient()
+            ApiClient apiClient = new ApiClient()
                 .setAWSSigV4Signer(awsSigV4Signer)
                 .setLWAAuthorizationSigner(lwaAuthorizationSigner)
                 .setBasePath(endpoint)
-                .setRateLimiter(rateLimitConfiguration));
+                .setRateLimiter(rateLimitConfiguration);
+            if (disableRateLimit) {
+                apiClient.disableRateLimiter();
+            }
+
+            return new ReportsApi(apiClient);
         }
     }
 }
@@ -0,0 +1,152 @@
+package lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.google.common.collect.Lists;
+import io.swagger.client.ApiClient;
+import io.swagger.client.ApiException;
+import io.swagger.client.JSON;
+import io.swagger.client.model.ReportDocument;
+import utils.AwsClients;
+import utils.ReportDocumentClient;
+import utils.ReportDocumentPipelineResponse;
+import utils.ReportDocumentStore;
+import utils.ReportStorage;
+import utils.ReportStorageClients;
+import utils.S3Presigner;
+import utils.SellingPartnerApiCredentials;
+import utils.StartupPriming;
+import utils.StartupReport;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retrieves a report document, stores it in the reports bucket and presigns it, in a single invocation.
+ * It replaces the ReportDocumentRetrieval, ReportDocumentStorage and ReportPresignedUrlGenerator chain when the state
+ * machine runs in fused mode: one Lambda invoke and state transition instead of three, and the SP-API document URL is
+ * used right after it was issued.
+ */
+public class ReportDocumentPipelineHandler implements RequestHandler<Map<String, String>, ReportDocumentPipelineResponse> {
+
+    //Lambda Environment Variables
+    private static final String REPORTS_TABLE_NAME_ENV_VARIABLE = "REPORTS_TABLE_NAME";
+    private static final String DESTINATION_S3_BUCKET_NAME_ENV_VARIABLE = "DESTINATION_S3_BUCKET_NAME";
+
+    //Lambda Input Parameters
+    private static final String REPORT_ID_KEY_NAME = "ReportId";
+    private static final String SELLER_ID_KEY_NAME = "SellerId";
+    private static final String REPORT_DOCUMENT_ID_KEY_NAME = "ReportDocumentId";
+    private static final String REPORT_TYPE_KEY_NAME = "ReportType";
+
+    private static final String ROLE_SESSION_NAME = "report-document-pipeline-lambda-role-session";
+    private static final int UNAUTHORIZED_STATUS_CODE = 401;
+    private static final int FORBIDDEN_STATUS_CODE = 403;
+
+    //Shared across warm invocations of the same container
+    private static final SellingPartnerApiCredentials CREDENTIALS = SellingPartnerApiCredentials.fromEnvironment(ROLE_SESSION_NAME);
+    private static final ReportDocumentClient REPORT_DOCUMENT_CLIENT = new ReportDocumentClient(CREDENTIALS,
+            System.getenv(REPORTS_TABLE_NAME_ENV_VARIABLE));
+    private static final ReportDocumentStore DOCUMENT_STORE = ReportDocumentStore.fromEnvironment();
+    private static final S3Presigner PRESIGNER = S3Presigner.fromEnvironment();
+
+    static {
+        StartupPriming.register(ReportDocumentPipelineHandler::prime);
+        StartupReport.markInitialized();
+    }
+
+    @Override
+    public ReportDocumentPipelineResponse handleRequest(Map<String, String> event, Context context) {
+        StartupReport.report(context);
+        LambdaLogger logger = context.getLogger();
+        logger.log("ReportDocumentPipeline Lambda handler started");
+
+        validateInput(event);
+
+        String reportId = event.get(REPORT_ID_KEY_NAME);
+        String sellerId = event.get(SELLER_ID_KEY_NAME);
+        String reportDocumentId = event.get(REPORT_DOCUMENT_ID_KEY_NAME);
+        String reportType = event.get(REPORT_TYPE_KEY_NAME);
+        String destinationS3Bucket = System.getenv(DESTINATION_S3_BUCKET_NAME_ENV_VARIABLE);
+
+        ReportDocument reportDocument;
+        try {
+            reportDocument = getReportDocument(reportId, sellerId, reportDocumentId, logger);
+            logger.log("Report document retrieved");
+        } catch (Exception e) {
+            throw new InternalError("Report document retrieval failed", e);
+        }
+
+        String compressionAlgorithm = reportDocument.getCompressionAlgorithm() != null ?
+                reportDocument.getCompressionAlgorithm().getValue() : "";
+        String storedCompressionAlgorithm = DOCUMENT_STORE.getStoredCompressionAlgorithm(compressionAlgorithm);
+        String fileKey = ReportStorage.getObjectKey(reportType, reportDocumentId);
+        logger.log(String.format("File Key: %s", fileKey));
+
+        try {
+            //SP-API document urls expire after five minutes, a large document may outlast its url
+            DOCUMENT_STORE.store(reportDocument.getUrl(),
+                    () -> getReportDocument(reportId, sellerId, reportDocumentId, logger).getUrl(),
+                    compressionAlgorithm, destinationS3Bucket, fileKey, reportType, logger);
+        } catch (Exception e) {
+            throw new InternalError("Report document storage failed", e);
+        }
+
+        try {
+            URL url = PRESIGNER.presignGetObject(destinationS3Bucket, fileKey, ReportStorage.DEFAULT_PRESIGNED_URL_EXPIRATION);
+            logger.log("Presigned Url successfully generated");
+
+            return ReportDocumentPipelineResponse.builder()
+                    .url(url.toString())
+                    .objectKey(fileKey)
+                    .compressionAlgorithm(storedCompressionAlgorithm)
+                    .build();
+        } catch (Exception e) {
+            throw new InternalError("Report document presigned url generation failed", e);
+        }
+    }
+
+    private ReportDocument getReportDocument(String reportId, String sellerId, String reportDocumentId, LambdaLogger logger)
+            throws Exception {
+        try {
+            return REPORT_DOCUMENT_CLIENT.getReportDocument(reportId, sellerId, reportDocumentId);
+        } catch (ApiException e) {
+            if (e.getCode() != UNAUTHORIZED_STATUS_CODE && e.getCode() != FORBIDDEN_STATUS_CODE) {
+                throw e;
+            }
+
+            logger.log(String.format("Get report document was rejected with status %s, refreshing cached credentials",
+                    e.getCode()));
+            CREDENTIALS.invalidate(sellerId);
+            return REPORT_DOCUMENT_CLIENT.getReportDocument(reportId, sellerId, reportDocumentId);
+        }
+    }
+
+    //Exercises the response deserialization path without calling any remote service
+    private static void prime() {
+        AwsClients.getDynamoDB();
+        AwsClients.getSecretsManager();
+        ReportStorageClients.getS3();
+
+        JSON json = new ApiClient().getJSON();
+        json.deserialize("{\"reportDocumentId\":\"0\",\"url\":\"https://example.com\",\"compressionAlgorithm\":\"GZIP\"}",
+                ReportDocument.class);
+    }
+
+    private void validateInput(Map<String, String> event) {
+        List<String> requiredParameters = Lists.newArrayList(
+                REPORT_ID_KEY_NAME,
+                SELLER_ID_KEY_NAME,
+                REPORT_DOCUMENT_ID_KEY_NAME,
+                REPORT_TYPE_KEY_NAME);
+
+        if (!event.keySet().containsAll(requiredParameters)) {
+            String msg = String.format("The provided input must contain all the following keys: %s",
+                    requiredParameters);
+
+            throw new IllegalArgumentException(msg);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package utils;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import io.swagger.client.api.ReportsApi;
+import io.swagger.client.model.ReportDocument;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Retrieves report documents from SP-API on behalf of the seller that requested the report, in the region the report
+ * was created in.
+ */
+public class ReportDocumentClient {
+
+    private static final String REPORTS_TABLE_HASH_KEY_NAME = "ReportId";
+    private static final String REPORTS_TABLE_RANGE_KEY_NAME = "SellerId";
+    private static final String REPORTS_TABLE_REGION_CODE_NAME = "RegionCode";
+
+    private final SellingPartnerApiCredentials credentials;
+    private final String reportsTableName;
+
+    public ReportDocumentClient(SellingPartnerApiCredentials credentials, String reportsTableName) {
+        this.credentials = credentials;
+        this.reportsTableName = reportsTableName;
+    }
+
+    public ReportDocument getReportDocument(String reportId, String sellerId, String reportDocumentId) throws Exception {
+        String regionCode = getReportRegionCode(reportId, sellerId);
+
+        ReportsApi reportsApi = getReportsApi(regionCode, sellerId);
+        return reportsApi.getReportDocument(reportDocumentId);
+    }
+
+    private ReportsApi getReportsApi(String regionCode, String sellerId) throws Exception {
+        RegionConfig regionConfig = RegionConfig.fromRegionCode(regionCode);
+
+        ReportsApi reportsApi = new ReportsApi.Builder()
+                .awsAuthenticationCredentials(credentials.getAwsAuthenticationCredentials(regionConfig))
+                .lwaAuthorizationCredentials(credentials.getLwaAuthorizationCredentials(sellerId))
+                .lwaAccessTokenCache(credentials.getLwaAccessTokenCache())
+                .awsAuthenticationCredentialsProvider(credentials.getAwsAuthenticationCredentialsProvider())
+                .endpoint(regionConfig.getSpApiEndpoint())
+                .build();
+        reportsApi.getApiClient().setRateLimitScope(sellerId);
+
+        return reportsApi;
+    }
+
+    private String getReportRegionCode(String reportId, String sellerId) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(REPORTS_TABLE_HASH_KEY_NAME, new AttributeValue(reportId));
+        key.put(REPORTS_TABLE_RANGE_KEY_NAME, new AttributeValue(sellerId));
+
+        GetItemRequest getItemRequest = new GetItemRequest()
+                .withTableName(reportsTableName)
+                .withKey(key);
+
+        GetItemResult getItemResult = AwsClients.getDynamoDB().getItem(getItemRequest);
+        Map<String, AttributeValue> item = getItemResult.getItem();
+
+        return item.get(REPORTS_TABLE_REGION_CODE_NAME).getS();
+    }
+}
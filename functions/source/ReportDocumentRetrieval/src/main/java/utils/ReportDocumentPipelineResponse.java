@@ -0,0 +1,13 @@
+package utils;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ReportDocumentPipelineResponse {
+
+    private String url;
+    private String objectKey;
+    private String compressionAlgorithm;
+}
@@ -3,21 +3,22 @@ package lambda;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.util.StringUtils;
 import com.google.common.collect.Lists;
+import utils.ReportDocumentStorageResponse;
+import utils.ReportDocumentStore;
+import utils.ReportStorage;
+import utils.StartupReport;
 
-import java.io.InputStream;
-import java.net.URI;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
-import static utils.Constants.COMPRESSION_METADATA_MAP;
-
-public class ReportDocumentStorageHandler implements RequestHandler<Map<String, String>, String> {
+/**
+ * Stores a report document retrieved by the ReportDocumentRetrieval function when the state machine runs in chained
+ * mode, and returns its object key with the compression algorithm it was stored with, which is the one readers of the
+ * stored document must use.
+ */
+public class ReportDocumentStorageHandler implements RequestHandler<Map<String, String>, ReportDocumentStorageResponse> {
 
     //Lambda Environment Variables
     private static final String DESTINATION_S3_BUCKET_NAME_ENV_VARIABLE = "DESTINATION_S3_BUCKET_NAME";
@@ -26,9 +27,18 @@ public class ReportDocumentStorageHandler implements RequestHandler<Map<String,
     private static final String OBJECT_PRESIGNED_URL_KEY_NAME = "PresignedUrl";
     private static final String COMPRESSION_ALGORITHM_KEY_NAME = "CompressionAlgorithm";
     private static final String REPORT_TYPE_KEY_NAME = "ReportType";
+    private static final String REPORT_DOCUMENT_ID_KEY_NAME = "ReportDocumentId";
+
+    //Shared across warm invocations of the same container
+    private static final ReportDocumentStore DOCUMENT_STORE = ReportDocumentStore.fromEnvironment();
+
+    static {
+        StartupReport.markInitialized();
+    }
 
     @Override
-    public String handleRequest(Map<String, String> event, Context context) {
+    public ReportDocumentStorageResponse handleRequest(Map<String, String> event, Context context) {
+        StartupReport.report(context);
         LambdaLogger logger = context.getLogger();
         logger.log("ReportDocumentStorage Lambda handler started");
 
@@ -37,32 +47,27 @@ public class ReportDocumentStorageHandler implements RequestHandler<Map<String,
         String objectPresignedUrl = event.get(OBJECT_PRESIGNED_URL_KEY_NAME);
         String compressionAlgorithm = event.get(COMPRESSION_ALGORITHM_KEY_NAME);
         String reportType = event.get(REPORT_TYPE_KEY_NAME);
+        String reportDocumentId = event.get(REPORT_DOCUMENT_ID_KEY_NAME);
         String destinationS3Bucket = System.getenv(DESTINATION_S3_BUCKET_NAME_ENV_VARIABLE);
 
-        String fileKey = String.format("%s/%s", reportType, UUID.randomUUID());
+        //Callers that don't send the report document id get a new object on every invocation
+        String fileKey = StringUtils.isNullOrEmpty(reportDocumentId)
+                ? ReportStorage.newObjectKey(reportType)
+                : ReportStorage.getObjectKey(reportType, reportDocumentId);
         logger.log(String.format("File Key: %s", fileKey));
 
         try {
-            InputStream inputStream = URI.create(objectPresignedUrl).toURL().openConnection().getInputStream();
-            ObjectMetadata metadata = new ObjectMetadata();
-
-            if (!StringUtils.isNullOrEmpty(compressionAlgorithm)) {
-                if (!COMPRESSION_METADATA_MAP.containsKey(compressionAlgorithm)) {
-                    throw new InternalError(String.format("Report document storage failed. Unsupported compression algorithm: %s",
-                            compressionAlgorithm));
-                }
-
-                String contentType = COMPRESSION_METADATA_MAP.get(compressionAlgorithm);
-                metadata.setContentType(contentType);
-            }
-
-            AmazonS3 s3 = AmazonS3ClientBuilder.defaultClient();
-            s3.putObject(destinationS3Bucket, fileKey, inputStream, metadata);
+            //The url was fetched by the retrieval function, the rest of the document is read at once before it expires
+            DOCUMENT_STORE.store(objectPresignedUrl, null, compressionAlgorithm, destinationS3Bucket, fileKey, reportType,
+                    logger);
         } catch (Exception e) {
             throw new InternalError("Report document storage failed", e);
         }
 
-        return fileKey;
+        return ReportDocumentStorageResponse.builder()
+                .objectKey(fileKey)
+                .compressionAlgorithm(DOCUMENT_STORE.getStoredCompressionAlgorithm(compressionAlgorithm))
+                .build();
     }
 
     private void validateInput(Map<String, String> event) {
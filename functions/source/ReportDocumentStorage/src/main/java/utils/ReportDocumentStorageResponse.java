@@ -0,0 +1,12 @@
+package utils;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ReportDocumentStorageResponse {
+
+    private String objectKey;
+    private String compressionAlgorithm;
+}
@@ -3,31 +3,82 @@ package lambda;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
-import com.amazonaws.services.stepfunctions.AWSStepFunctions;
-import com.amazonaws.services.stepfunctions.AWSStepFunctionsClientBuilder;
+import com.amazonaws.services.stepfunctions.model.ExecutionAlreadyExistsException;
 import com.amazonaws.services.stepfunctions.model.StartExecutionRequest;
 import com.amazonaws.services.stepfunctions.model.StartExecutionResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import utils.AwsClients;
+import utils.NotificationDeduplicator;
 import utils.ReportProcessingFinishedNotification;
 import utils.SPAPINotification;
+import utils.StartupPriming;
+import utils.StartupReport;
 import utils.StateMachineInput;
 
-import java.util.UUID;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static utils.Constants.NOTIFICATION_TYPE_REPORT_PROCESSING_FINISHED;
 import static utils.Constants.REPORT_PROCESSING_FINAL_STATUSES;
 
-public class ReportNotificationProcessorHandler implements RequestHandler<SQSEvent, String> {
+public class ReportNotificationProcessorHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
 
     //Lambda Environment Variables
     private static final String STATE_MACHINE_ARN_ENV_VARIABLE = "STATE_MACHINE_ARN";
+    private static final String MAX_CONCURRENT_EXECUTIONS_ENV_VARIABLE = "MAX_CONCURRENT_EXECUTIONS";
+    private static final String PROCESSED_NOTIFICATIONS_TABLE_NAME_ENV_VARIABLE = "PROCESSED_NOTIFICATIONS_TABLE_NAME";
+
+    private static final int DEFAULT_MAX_CONCURRENT_EXECUTIONS = 10;
+    private static final int MAX_EXECUTION_NAME_LENGTH = 80;
+
+    //Shared across warm invocations of the same container
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader NOTIFICATION_READER = MAPPER.readerFor(SPAPINotification.class);
+    private static final ObjectWriter STATE_MACHINE_INPUT_WRITER = MAPPER.writerFor(StateMachineInput.class);
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(getMaxConcurrentExecutions(),
+            new ThreadFactoryBuilder()
+                    .setNameFormat("start-execution-%d")
+                    .setDaemon(true)
+                    .build());
+    private static final NotificationDeduplicator DEDUPLICATOR =
+            new NotificationDeduplicator(System.getenv(PROCESSED_NOTIFICATIONS_TABLE_NAME_ENV_VARIABLE));
+
+    private final NotificationDeduplicator deduplicator;
+
+    static {
+        StartupPriming.register(ReportNotificationProcessorHandler::prime);
+        StartupReport.markInitialized();
+    }
+
+    public ReportNotificationProcessorHandler() {
+        this(DEDUPLICATOR);
+    }
+
+    ReportNotificationProcessorHandler(NotificationDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
 
     @Override
-    public String handleRequest(SQSEvent event, Context context) {
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        StartupReport.report(context);
         LambdaLogger logger = context.getLogger();
-        logger.log("NotificationProcessor Lambda handler started");
+        logger.log(String.format("NotificationProcessor Lambda handler started. Batch size: %d", event.getRecords().size()));
+
+        //Executions are started concurrently, keyed by the id of the message that requested them
+        Map<String, Future<String>> executions = new LinkedHashMap<>();
 
         for (SQSEvent.SQSMessage message : event.getRecords()) {
             logger.log(String.format("Received new notification: %s", message.getBody()));
@@ -43,44 +94,120 @@ public class ReportNotificationProcessorHandler implements RequestHandler<SQSEve
                 ReportProcessingFinishedNotification reportNotification = notification.getPayload().getReportProcessingFinishedNotification();
 
                 if (REPORT_PROCESSING_FINAL_STATUSES.contains(reportNotification.getProcessingStatus())) {
-                    logger.log("Starting state machine execution");
-                    String executionArn = startStepFunctionsExecution(reportNotification);
-                    logger.log(String.format("State machine successfully started. Execution arn: %s", executionArn));
+                    logger.log(String.format("Starting state machine execution for report %s", reportNotification.getReportId()));
+                    String notificationId = getNotificationId(notification);
+                    executions.put(message.getMessageId(),
+                            EXECUTOR.submit(() -> startDeduplicatedExecution(reportNotification, notificationId)));
                 } else {
                     logger.log(String.format("Report processing status %s skipped", reportNotification.getProcessingStatus()));
                 }
             } catch (JsonProcessingException e) {
+                //Malformed messages would fail again on every redelivery, so they are not reported as failures
                 logger.log(String.format("Message body could not be mapped to a SP-API Notification: %s", e.getMessage()));
-                continue;
             }
         }
 
-        return "Finished processing incoming notifications";
+        List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
+        for (Map.Entry<String, Future<String>> execution : executions.entrySet()) {
+            try {
+                String executionArn = execution.getValue().get();
+                if (executionArn == null) {
+                    logger.log(String.format("Duplicate notification skipped for message %s", execution.getKey()));
+                } else {
+                    logger.log(String.format("State machine successfully started. Execution arn: %s", executionArn));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(execution.getKey()));
+            } catch (ExecutionException e) {
+                logger.log(String.format("State machine execution could not be started for message %s: %s",
+                        execution.getKey(), e.getCause().getMessage()));
+                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(execution.getKey()));
+            }
+        }
+
+        logger.log(String.format("Finished processing incoming notifications. Failed messages: %d", batchItemFailures.size()));
+        return new SQSBatchResponse(batchItemFailures);
+    }
+
+    //Exercises the notification and state machine input mappings without calling any remote service
+    private static void prime() {
+        AwsClients.getStepFunctions();
+        AwsClients.getDynamoDB();
+
+        try {
+            SPAPINotification notification = NOTIFICATION_READER.readValue("{\"notificationType\":\"REPORT_PROCESSING_FINISHED\","
+                    + "\"eventTime\":\"2022-01-01T00:00:00.000Z\",\"payload\":{\"reportProcessingFinishedNotification\":"
+                    + "{\"sellerId\":\"0\",\"reportId\":\"0\",\"reportType\":\"0\",\"processingStatus\":\"DONE\","
+                    + "\"reportDocumentId\":\"0\"}},\"notificationMetadata\":{\"notificationId\":\"0\"}}");
+            STATE_MACHINE_INPUT_WRITER.writeValueAsString(StateMachineInput.builder()
+                    .SellerId(notification.getPayload().getReportProcessingFinishedNotification().getSellerId())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private SPAPINotification mapNotification(String notificationBody) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        SPAPINotification notification = mapper.readValue(notificationBody, SPAPINotification.class);
+        return NOTIFICATION_READER.readValue(notificationBody);
+    }
+
+    /**
+     * Starts the state machine unless the report has been processed already, in which case null is returned.
+     * The claim on the report is given up if the execution cannot be started, so that SQS can redeliver it, and
+     * completed once it was. An execution that already exists was started by an earlier delivery, whose claim is
+     * completed in its place.
+     */
+    private String startDeduplicatedExecution(ReportProcessingFinishedNotification reportNotification, String notificationId)
+            throws JsonProcessingException {
+        String deduplicationKey = NotificationDeduplicator.getDeduplicationKey(
+                reportNotification.getSellerId(), reportNotification.getReportId());
+
+        if (!deduplicator.tryClaim(deduplicationKey, notificationId)) {
+            return null;
+        }
+
+        String executionArn;
+        try {
+            executionArn = startStepFunctionsExecution(reportNotification);
+        } catch (ExecutionAlreadyExistsException e) {
+            executionArn = null;
+        } catch (JsonProcessingException | RuntimeException e) {
+            deduplicator.release(deduplicationKey);
+            throw e;
+        }
 
-        return notification;
+        deduplicator.complete(deduplicationKey, notificationId);
+        return executionArn;
     }
 
     private String startStepFunctionsExecution(ReportProcessingFinishedNotification reportNotification) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
         StateMachineInput input = getStateMachineInput(reportNotification);
-        String inputStr = mapper.writeValueAsString(input);
+        String inputStr = STATE_MACHINE_INPUT_WRITER.writeValueAsString(input);
 
         StartExecutionRequest request = new StartExecutionRequest();
         request.setStateMachineArn(System.getenv(STATE_MACHINE_ARN_ENV_VARIABLE));
-        request.setName(String.format("%s-%s-%s", reportNotification.getSellerId(), reportNotification.getReportId(), UUID.randomUUID()));
+        request.setName(getExecutionName(reportNotification));
         request.setInput(inputStr);
 
-        AWSStepFunctions stepFunctions = AWSStepFunctionsClientBuilder.defaultClient();
-        StartExecutionResult result = stepFunctions.startExecution(request);
+        StartExecutionResult result = AwsClients.getStepFunctions().startExecution(request);
 
         return result.getExecutionArn();
     }
 
+    //Execution names are unique per standard state machine, which makes Step Functions reject duplicates that get this
+    //far. Express state machines don't enforce it, the deduplication table is all that stands in the way
+    private String getExecutionName(ReportProcessingFinishedNotification reportNotification) {
+        String name = String.format("%s-%s", reportNotification.getSellerId(), reportNotification.getReportId())
+                .replaceAll("[^A-Za-z0-9_-]", "_");
+
+        return name.length() > MAX_EXECUTION_NAME_LENGTH ? name.substring(0, MAX_EXECUTION_NAME_LENGTH) : name;
+    }
+
+    private String getNotificationId(SPAPINotification notification) {
+        return notification.getNotificationMetadata() == null ? null : notification.getNotificationMetadata().getNotificationId();
+    }
+
     private StateMachineInput getStateMachineInput(ReportProcessingFinishedNotification reportNotification) {
         return StateMachineInput.builder()
                 .SellerId(reportNotification.getSellerId())
@@ -90,4 +217,12 @@ public class ReportNotificationProcessorHandler implements RequestHandler<SQSEve
                 .ReportDocumentId(reportNotification.getReportDocumentId())
                 .build();
     }
+
+    private static int getMaxConcurrentExecutions() {
+        String maxConcurrentExecutions = System.getenv(MAX_CONCURRENT_EXECUTIONS_ENV_VARIABLE);
+
+        return maxConcurrentExecutions == null || maxConcurrentExecutions.isEmpty()
+                ? DEFAULT_MAX_CONCURRENT_EXECUTIONS
+                : Integer.parseInt(maxConcurrentExecutions);
+    }
 }
@@ -0,0 +1,65 @@
+package utils;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.stepfunctions.AWSStepFunctions;
+import com.amazonaws.services.stepfunctions.AWSStepFunctionsClientBuilder;
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+/**
+ * Holds the AWS SDK clients used by this function. Each client is built on first use and then reused by every
+ * invocation served by the same container, so warm invocations keep their pooled, kept-alive connections.
+ */
+public final class AwsClients {
+
+    //Lambda Environment Variables
+    //Only set to run the functions against local stand-ins of the AWS services, e.g. in the load harness
+    private static final String ENDPOINT_URL_ENV_VARIABLE = "AWS_ENDPOINT_URL";
+    private static final String REGION_ENV_VARIABLE = "AWS_REGION";
+
+    private static final int MAX_CONNECTIONS = 50;
+    private static final long CONNECTION_MAX_IDLE_MILLIS = 60000;
+
+    private static final Supplier<AWSStepFunctions> STEP_FUNCTIONS = Suppliers.memoize(() ->
+            withEndpoint(AWSStepFunctionsClientBuilder.standard())
+                    .withClientConfiguration(getClientConfiguration())
+                    .build());
+
+    private static final Supplier<AmazonDynamoDB> DYNAMO_DB = Suppliers.memoize(() ->
+            withEndpoint(AmazonDynamoDBClientBuilder.standard())
+                    .withClientConfiguration(getClientConfiguration())
+                    .build());
+
+    private AwsClients() {
+    }
+
+    public static AWSStepFunctions getStepFunctions() {
+        return STEP_FUNCTIONS.get();
+    }
+
+    public static AmazonDynamoDB getDynamoDB() {
+        return DYNAMO_DB.get();
+    }
+
+    //Points the client at AWS_ENDPOINT_URL when there is one, otherwise leaves the region to the default provider chain
+    private static <B extends AwsClientBuilder<B, ?>> B withEndpoint(B builder) {
+        String endpointUrl = System.getenv(ENDPOINT_URL_ENV_VARIABLE);
+        if (Strings.isNullOrEmpty(endpointUrl)) {
+            return builder;
+        }
+
+        return builder.withEndpointConfiguration(new EndpointConfiguration(endpointUrl, System.getenv(REGION_ENV_VARIABLE)));
+    }
+
+    private static ClientConfiguration getClientConfiguration() {
+        return new ClientConfiguration()
+                .withMaxConnections(MAX_CONNECTIONS)
+                .withTcpKeepAlive(true)
+                .withConnectionMaxIdleMillis(CONNECTION_MAX_IDLE_MILLIS);
+    }
+}
@@ -0,0 +1,161 @@
+package utils;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Makes sure each report notification is processed once, even if SP-API or SQS deliver it more than once.
+ * A notification is claimed with a conditional write to the processed notifications table, keyed on seller and
+ * report id so that redeliveries with a new notification id are caught as well. Keys already seen by this container
+ * are kept in a local LRU cache to skip the DynamoDB round trip for repeated duplicates.
+ * A claim is PENDING until {@link #complete} records that the notification was processed. A PENDING claim is only
+ * held for a short lease, longer than the function timeout: if the invocation that holds it dies before completing,
+ * a redelivery takes the claim over once the lease expired instead of being skipped as a duplicate.
+ * Claims written before claims had a status are considered COMPLETE.
+ */
+public class NotificationDeduplicator {
+
+    private static final String PROCESSED_NOTIFICATIONS_TABLE_HASH_KEY_NAME = "DeduplicationKey";
+    private static final String PROCESSED_NOTIFICATIONS_TABLE_NOTIFICATION_ID_NAME = "NotificationId";
+    private static final String PROCESSED_NOTIFICATIONS_TABLE_TTL_NAME = "ExpiresAt";
+    private static final String PROCESSED_NOTIFICATIONS_TABLE_STATUS_NAME = "ClaimStatus";
+    private static final String PROCESSED_NOTIFICATIONS_TABLE_LEASE_NAME = "LeaseExpiresAt";
+
+    private static final String CLAIM_STATUS_PENDING = "PENDING";
+    private static final String CLAIM_STATUS_COMPLETE = "COMPLETE";
+
+    private static final long MAX_CACHED_KEYS = 10000;
+    private static final long CACHED_KEY_TTL_MINUTES = 60;
+    private static final long CLAIM_TTL_SECONDS = TimeUnit.DAYS.toSeconds(7);
+    private static final long CLAIM_LEASE_SECONDS = 120;
+
+    private final String tableName;
+    private final Supplier<AmazonDynamoDB> dynamoDB;
+    private final Cache<String, Boolean> claimedKeys;
+
+    public NotificationDeduplicator(String tableName) {
+        this(tableName, AwsClients::getDynamoDB);
+    }
+
+    public NotificationDeduplicator(String tableName, Supplier<AmazonDynamoDB> dynamoDB) {
+        this.tableName = tableName;
+        this.dynamoDB = dynamoDB;
+        this.claimedKeys = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_KEYS)
+                .expireAfterWrite(CACHED_KEY_TTL_MINUTES, TimeUnit.MINUTES)
+                .build();
+    }
+
+    public static String getDeduplicationKey(String sellerId, String reportId) {
+        return String.format("%s#%s", sellerId, reportId);
+    }
+
+    /**
+     * Returns true if the caller claimed the key, false if it has been processed already.
+     *
+     * @throws IllegalStateException if another invocation holds an unexpired claim on the key, in which case the
+     *                               notification should be redelivered later
+     */
+    public boolean tryClaim(String deduplicationKey, String notificationId) {
+        if (claimedKeys.getIfPresent(deduplicationKey) != null) {
+            return false;
+        }
+
+        long now = Instant.now().getEpochSecond();
+        Map<String, AttributeValue> item = getClaimItem(deduplicationKey, notificationId, CLAIM_STATUS_PENDING, now);
+        item.put(PROCESSED_NOTIFICATIONS_TABLE_LEASE_NAME, new AttributeValue().withN(String.valueOf(now + CLAIM_LEASE_SECONDS)));
+
+        Map<String, String> expressionAttributeNames = new HashMap<>();
+        expressionAttributeNames.put("#key", PROCESSED_NOTIFICATIONS_TABLE_HASH_KEY_NAME);
+        expressionAttributeNames.put("#status", PROCESSED_NOTIFICATIONS_TABLE_STATUS_NAME);
+        expressionAttributeNames.put("#lease", PROCESSED_NOTIFICATIONS_TABLE_LEASE_NAME);
+
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":pending", new AttributeValue(CLAIM_STATUS_PENDING));
+        expressionAttributeValues.put(":now", new AttributeValue().withN(String.valueOf(now)));
+
+        PutItemRequest putItemRequest = new PutItemRequest()
+                .withTableName(tableName)
+                .withItem(item)
+                .withConditionExpression("attribute_not_exists(#key) OR (#status = :pending AND #lease < :now)")
+                .withExpressionAttributeNames(expressionAttributeNames)
+                .withExpressionAttributeValues(expressionAttributeValues);
+
+        try {
+            dynamoDB.get().putItem(putItemRequest);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            if (isPending(deduplicationKey)) {
+                throw new IllegalStateException(String.format("Notification %s is being processed by another invocation",
+                        deduplicationKey));
+            }
+
+            claimedKeys.put(deduplicationKey, Boolean.TRUE);
+            return false;
+        }
+    }
+
+    /**
+     * Records that the notification of a claimed key was processed, so that its redeliveries are skipped.
+     */
+    public void complete(String deduplicationKey, String notificationId) {
+        PutItemRequest putItemRequest = new PutItemRequest()
+                .withTableName(tableName)
+                .withItem(getClaimItem(deduplicationKey, notificationId, CLAIM_STATUS_COMPLETE,
+                        Instant.now().getEpochSecond()));
+
+        dynamoDB.get().putItem(putItemRequest);
+        claimedKeys.put(deduplicationKey, Boolean.TRUE);
+    }
+
+    /**
+     * Gives up a claim so that a redelivery of the same notification can be processed again.
+     */
+    public void release(String deduplicationKey) {
+        claimedKeys.invalidate(deduplicationKey);
+
+        DeleteItemRequest deleteItemRequest = new DeleteItemRequest()
+                .withTableName(tableName)
+                .withKey(Collections.singletonMap(PROCESSED_NOTIFICATIONS_TABLE_HASH_KEY_NAME, new AttributeValue(deduplicationKey)));
+
+        dynamoDB.get().deleteItem(deleteItemRequest);
+    }
+
+    private Map<String, AttributeValue> getClaimItem(String deduplicationKey, String notificationId, String status, long now) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(PROCESSED_NOTIFICATIONS_TABLE_HASH_KEY_NAME, new AttributeValue(deduplicationKey));
+        item.put(PROCESSED_NOTIFICATIONS_TABLE_STATUS_NAME, new AttributeValue(status));
+        item.put(PROCESSED_NOTIFICATIONS_TABLE_TTL_NAME, new AttributeValue().withN(String.valueOf(now + CLAIM_TTL_SECONDS)));
+        if (notificationId != null) {
+            item.put(PROCESSED_NOTIFICATIONS_TABLE_NOTIFICATION_ID_NAME, new AttributeValue(notificationId));
+        }
+
+        return item;
+    }
+
+    //Whether the key is held by a PENDING claim, the claim that made the conditional write fail
+    private boolean isPending(String deduplicationKey) {
+        GetItemRequest getItemRequest = new GetItemRequest()
+                .withTableName(tableName)
+                .withKey(Collections.singletonMap(PROCESSED_NOTIFICATIONS_TABLE_HASH_KEY_NAME, new AttributeValue(deduplicationKey)))
+                .withConsistentRead(true);
+
+        Map<String, AttributeValue> item = dynamoDB.get().getItem(getItemRequest).getItem();
+        AttributeValue status = item == null ? null : item.get(PROCESSED_NOTIFICATIONS_TABLE_STATUS_NAME);
+
+        return status != null && CLAIM_STATUS_PENDING.equals(status.getS());
+    }
+}
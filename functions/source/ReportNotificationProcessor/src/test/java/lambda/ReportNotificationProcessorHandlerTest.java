@@ -0,0 +1,169 @@
+package lambda;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import org.junit.Test;
+import utils.NotificationDeduplicator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReportNotificationProcessorHandlerTest {
+
+    private static final String NOTIFICATION = "{\"notificationType\":\"REPORT_PROCESSING_FINISHED\","
+            + "\"eventTime\":\"2022-01-01T00:00:00.000Z\",\"payload\":{\"reportProcessingFinishedNotification\":"
+            + "{\"sellerId\":\"A1SELLER\",\"reportId\":\"50001\",\"reportType\":\"GET_FLAT_FILE_OPEN_LISTINGS_DATA\","
+            + "\"processingStatus\":\"DONE\",\"reportDocumentId\":\"amzn1.doc.1\"}},"
+            + "\"notificationMetadata\":{\"notificationId\":\"notification-2\"}}";
+
+    private final StubContext context = new StubContext();
+
+    @Test
+    public void handleRequest_completedDuplicate_reportsNoFailure() {
+        ReportNotificationProcessorHandler handler = new ReportNotificationProcessorHandler(
+                newDeduplicator("COMPLETE"));
+
+        SQSBatchResponse response = handler.handleRequest(newEvent("message-1"), context);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        assertTrue(context.logged("Duplicate notification skipped for message message-1"));
+    }
+
+    @Test
+    public void handleRequest_pendingDuplicate_reportsFailureForRedelivery() {
+        ReportNotificationProcessorHandler handler = new ReportNotificationProcessorHandler(
+                newDeduplicator("PENDING"));
+
+        SQSBatchResponse response = handler.handleRequest(newEvent("message-1"), context);
+
+        assertEquals(1, response.getBatchItemFailures().size());
+        assertEquals("message-1", response.getBatchItemFailures().get(0).getItemIdentifier());
+    }
+
+    //A deduplicator whose table already holds a claim on the notification's report, in the given status
+    private static NotificationDeduplicator newDeduplicator(String claimStatus) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("DeduplicationKey", new AttributeValue(NotificationDeduplicator.getDeduplicationKey("A1SELLER", "50001")));
+        item.put("ClaimStatus", new AttributeValue(claimStatus));
+        item.put("LeaseExpiresAt", new AttributeValue().withN(String.valueOf(Long.MAX_VALUE)));
+
+        return new NotificationDeduplicator("ProcessedNotifications", () -> new AbstractAmazonDynamoDB() {
+            @Override
+            public PutItemResult putItem(PutItemRequest request) {
+                throw new ConditionalCheckFailedException("The conditional request failed");
+            }
+
+            @Override
+            public GetItemResult getItem(GetItemRequest request) {
+                return new GetItemResult().withItem(item);
+            }
+        });
+    }
+
+    private static SQSEvent newEvent(String messageId) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(messageId);
+        message.setBody(NOTIFICATION);
+
+        SQSEvent event = new SQSEvent();
+        event.setRecords(Collections.singletonList(message));
+
+        return event;
+    }
+
+    private static final class StubContext implements Context {
+
+        private final List<String> messages = new ArrayList<>();
+
+        boolean logged(String message) {
+            synchronized (messages) {
+                return messages.contains(message);
+            }
+        }
+
+        @Override
+        public String getAwsRequestId() {
+            return "request-1";
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return "/aws/lambda/ReportNotificationProcessor";
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return "test";
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "ReportNotificationProcessor";
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return "$LATEST";
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return "arn:aws:lambda:us-east-1:000000000000:function:ReportNotificationProcessor";
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return 60000;
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            return 512;
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return new LambdaLogger() {
+                @Override
+                public void log(String message) {
+                    synchronized (messages) {
+                        messages.add(message);
+                    }
+                }
+
+                @Override
+                public void log(byte[] message) {
+                    log(new String(message, StandardCharsets.UTF_8));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package utils;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationDeduplicatorTest {
+
+    private static final String TABLE_NAME = "ProcessedNotifications";
+    private static final String KEY = NotificationDeduplicator.getDeduplicationKey("A1SELLER", "50001");
+
+    private final StubDynamoDB dynamoDB = new StubDynamoDB();
+    private final NotificationDeduplicator deduplicator = new NotificationDeduplicator(TABLE_NAME, () -> dynamoDB);
+
+    @Test
+    public void tryClaim_newKey_claimsPending() {
+        assertTrue(deduplicator.tryClaim(KEY, "notification-1"));
+
+        assertEquals("PENDING", dynamoDB.items.get(KEY).get("ClaimStatus").getS());
+        assertEquals(0, dynamoDB.getItemCalls);
+    }
+
+    @Test
+    public void tryClaim_completedKey_isDuplicate() {
+        dynamoDB.items.put(KEY, newItem("COMPLETE", Instant.now().getEpochSecond()));
+
+        assertFalse(deduplicator.tryClaim(KEY, "notification-2"));
+
+        assertEquals(1, dynamoDB.getItemCalls);
+        assertTrue(dynamoDB.lastGetItemRequest.getConsistentRead());
+        assertEquals(TABLE_NAME, dynamoDB.lastGetItemRequest.getTableName());
+    }
+
+    @Test
+    public void tryClaim_legacyClaimWithoutStatus_isDuplicate() {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("DeduplicationKey", new AttributeValue(KEY));
+        dynamoDB.items.put(KEY, item);
+
+        assertFalse(deduplicator.tryClaim(KEY, "notification-2"));
+    }
+
+    @Test
+    public void tryClaim_repeatedDuplicate_skipsDynamoDB() {
+        dynamoDB.items.put(KEY, newItem("COMPLETE", Instant.now().getEpochSecond()));
+        assertFalse(deduplicator.tryClaim(KEY, "notification-2"));
+        int putItemCalls = dynamoDB.putItemCalls;
+
+        assertFalse(deduplicator.tryClaim(KEY, "notification-3"));
+
+        assertEquals(putItemCalls, dynamoDB.putItemCalls);
+        assertEquals(1, dynamoDB.getItemCalls);
+    }
+
+    @Test
+    public void tryClaim_pendingKey_throws() {
+        dynamoDB.items.put(KEY, newItem("PENDING", Instant.now().getEpochSecond() + 60));
+
+        assertThrows(IllegalStateException.class, () -> deduplicator.tryClaim(KEY, "notification-2"));
+    }
+
+    @Test
+    public void tryClaim_expiredLease_takesClaimOver() {
+        dynamoDB.items.put(KEY, newItem("PENDING", Instant.now().getEpochSecond() - 1));
+
+        assertTrue(deduplicator.tryClaim(KEY, "notification-2"));
+        assertEquals("notification-2", dynamoDB.items.get(KEY).get("NotificationId").getS());
+    }
+
+    @Test
+    public void release_allowsClaimAgain() {
+        assertTrue(deduplicator.tryClaim(KEY, "notification-1"));
+        deduplicator.release(KEY);
+
+        assertTrue(deduplicator.tryClaim(KEY, "notification-2"));
+    }
+
+    @Test
+    public void complete_makesRedeliveriesDuplicates() {
+        assertTrue(deduplicator.tryClaim(KEY, "notification-1"));
+        deduplicator.complete(KEY, "notification-1");
+
+        assertEquals("COMPLETE", dynamoDB.items.get(KEY).get("ClaimStatus").getS());
+        assertFalse(deduplicator.tryClaim(KEY, "notification-2"));
+    }
+
+    private static Map<String, AttributeValue> newItem(String status, long leaseExpiresAt) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("DeduplicationKey", new AttributeValue(KEY));
+        item.put("ClaimStatus", new AttributeValue(status));
+        item.put("LeaseExpiresAt", new AttributeValue().withN(String.valueOf(leaseExpiresAt)));
+
+        return item;
+    }
+
+    //Evaluates the claim condition of the deduplicator against an in memory table
+    static final class StubDynamoDB extends AbstractAmazonDynamoDB {
+
+        final Map<String, Map<String, AttributeValue>> items = new HashMap<>();
+        int putItemCalls;
+        int getItemCalls;
+        GetItemRequest lastGetItemRequest;
+
+        @Override
+        public synchronized PutItemResult putItem(PutItemRequest request) {
+            putItemCalls++;
+            String key = request.getItem().get("DeduplicationKey").getS();
+            Map<String, AttributeValue> existing = items.get(key);
+
+            if (request.getConditionExpression() != null && existing != null) {
+                AttributeValue status = existing.get("ClaimStatus");
+                AttributeValue lease = existing.get("LeaseExpiresAt");
+                long now = Long.parseLong(request.getExpressionAttributeValues().get(":now").getN());
+                boolean expiredPending = status != null && "PENDING".equals(status.getS())
+                        && lease != null && Long.parseLong(lease.getN()) < now;
+
+                if (!expiredPending) {
+                    throw new ConditionalCheckFailedException("The conditional request failed");
+                }
+            }
+
+            items.put(key, request.getItem());
+            return new PutItemResult();
+        }
+
+        @Override
+        public synchronized GetItemResult getItem(GetItemRequest request) {
+            getItemCalls++;
+            lastGetItemRequest = request;
+
+            return new GetItemResult().withItem(items.get(request.getKey().get("DeduplicationKey").getS()));
+        }
+
+        @Override
+        public synchronized DeleteItemResult deleteItem(DeleteItemRequest request) {
+            items.remove(request.getKey().get("DeduplicationKey").getS());
+            return new DeleteItemResult();
+        }
+    }
+}
@@ -1,17 +1,14 @@
 package lambda;
 
-import com.amazonaws.HttpMethod;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.google.common.collect.Lists;
+import utils.ReportStorage;
+import utils.S3Presigner;
+import utils.StartupReport;
 
 import java.net.URL;
-import java.time.Instant;
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -23,8 +20,17 @@ public class ReportPresignedUrlGeneratorHandler implements RequestHandler<Map<St
     //Lambda Input Parameters
     private static final String OBJECT_KEY_KEY_NAME = "ObjectKey";
 
+    //Shared across warm invocations of the same container
+    //Presigning is a local computation, it doesn't need an S3 client
+    private static final S3Presigner PRESIGNER = S3Presigner.fromEnvironment();
+
+    static {
+        StartupReport.markInitialized();
+    }
+
     @Override
     public String handleRequest(Map<String, String> event, Context context) {
+        StartupReport.report(context);
         LambdaLogger logger = context.getLogger();
         logger.log("ReportPresignedUrlGenerator Lambda handler started");
 
@@ -33,18 +39,9 @@ public class ReportPresignedUrlGeneratorHandler implements RequestHandler<Map<St
         String s3BucketName = System.getenv(S3_BUCKET_NAME_ENV_VARIABLE);
         String objectKey = event.get(OBJECT_KEY_KEY_NAME);
 
-        // Set the presigned URL to expire after one hour
-        Instant expirationTime = Instant.now().plusMillis(1000 * 60 * 60);
-        Date expirationDate = new Date(expirationTime.toEpochMilli());
-
         try {
-            GeneratePresignedUrlRequest generatePresignedUrlRequest =
-                    new GeneratePresignedUrlRequest(s3BucketName, objectKey)
-                            .withMethod(HttpMethod.GET)
-                            .withExpiration(expirationDate);
-
-            AmazonS3 s3 = AmazonS3ClientBuilder.defaultClient();
-            URL url = s3.generatePresignedUrl(generatePresignedUrlRequest);
+            // The presigned URL expires after one hour
+            URL url = PRESIGNER.presignGetObject(s3BucketName, objectKey, ReportStorage.DEFAULT_PRESIGNED_URL_EXPIRATION);
 
             logger.log("Presigned Url successfully generated");
             return url.toString();
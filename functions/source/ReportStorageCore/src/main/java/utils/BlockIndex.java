@@ -0,0 +1,95 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row index of a document stored in BGZF blocks, written next to it so that readers can start reading at a row
+ * without decompressing what comes before it.
+ * There is an entry for the first row, and for the first row that starts at least interval bytes after the previous
+ * entry. Each entry has the row number, counted from zero and including any header row, its offset in the
+ * uncompressed document, the offset of the BGZF block it starts in, and its offset in that block once decompressed.
+ * A reader range GETs the stored object from the block offset, decompresses, and skips the offset in the block.
+ * The block offset and the offset in the block make the BGZF virtual offset that tools such as htsjdk use.
+ * The index is a tab separated file with a header line.
+ */
+public class BlockIndex {
+
+    private static final String HEADER = "row\tuncompressed_offset\tblock_offset\toffset_in_block";
+
+    private final int blockSize;
+    private final long interval;
+
+    //Row, uncompressed offset and block offset, which is only known once the block was compressed
+    private final List<long[]> entries = new ArrayList<>();
+    private int resolvedEntries;
+    private long uncompressedLength;
+    private long rows;
+    private long nextEntryOffset;
+
+    /**
+     * @param blockSize Uncompressed size of every block but the last
+     * @param interval  Minimum uncompressed bytes between two entries
+     */
+    BlockIndex(int blockSize, long interval) {
+        this.blockSize = blockSize;
+        this.interval = interval;
+
+        addEntry(0, 0);
+    }
+
+    /**
+     * Number of entries whose block was written.
+     */
+    public int getEntryCount() {
+        return resolvedEntries;
+    }
+
+    public byte[] toBytes() {
+        StringBuilder index = new StringBuilder(HEADER).append('\n');
+
+        for (long[] entry : entries.subList(0, resolvedEntries)) {
+            index.append(entry[0]).append('\t')
+                    .append(entry[1]).append('\t')
+                    .append(entry[2]).append('\t')
+                    .append(entry[1] % blockSize).append('\n');
+        }
+
+        return index.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * To be called with the uncompressed bytes, in order, before they are added to a block.
+     */
+    void scan(byte[] b, int off, int len) {
+        for (int i = 0; i < len; i++) {
+            if (b[off + i] == '\n') {
+                rows++;
+
+                long rowOffset = uncompressedLength + i + 1;
+                if (rowOffset >= nextEntryOffset) {
+                    addEntry(rows, rowOffset);
+                }
+            }
+        }
+
+        uncompressedLength += len;
+    }
+
+    /**
+     * To be called for every block, in order, with its offset in the stored document. Entries of rows starting at
+     * the end of the document have no block and are left out.
+     */
+    void blockWritten(long blockNumber, long blockOffset) {
+        while (resolvedEntries < entries.size() && entries.get(resolvedEntries)[1] / blockSize == blockNumber) {
+            entries.get(resolvedEntries)[2] = blockOffset;
+            resolvedEntries++;
+        }
+    }
+
+    private void addEntry(long row, long rowOffset) {
+        entries.add(new long[] {row, rowOffset, -1});
+        nextEntryOffset = rowOffset + interval;
+    }
+}
@@ -0,0 +1,263 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * GZIP compresses a stream on several threads, the way pigz does: the input is split into fixed-size blocks which are
+ * compressed concurrently, each into a complete GZIP member, and the members are written in order. The output is a
+ * standard multi-member GZIP file, which gunzip and {@link java.util.zip.GZIPInputStream} read as a single document.
+ * At most maxPendingBlocks blocks are compressed or waiting to be written at a time, so memory use is bounded by about
+ * twice blockSize * maxPendingBlocks regardless of the document size.
+ * In BGZF mode, see {@link #bgzf}, the members are BGZF blocks: at most 64 KB compressed, with their size in the
+ * header, followed by the BGZF end of file block. Such files can be read from any block, and a {@link BlockIndex} of
+ * the rows is built as the document is written.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    private static final byte[] MEMBER_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int MEMBER_TRAILER_SIZE = 8;
+
+    public static final int BGZF_BLOCK_SIZE = 0xff00;
+    private static final int BGZF_MAX_MEMBER_SIZE = 0x10000;
+    private static final int BGZF_BLOCK_SIZE_OFFSET = 16;
+    private static final byte[] BGZF_MEMBER_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 4, 0, 0, 0, 0, 0, (byte) 0xff,
+            6, 0, 'B', 'C', 2, 0, 0, 0};
+    private static final byte[] BGZF_EOF = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 4, 0, 0, 0, 0, 0, (byte) 0xff,
+            6, 0, 'B', 'C', 2, 0, 0x1b, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    //Deflaters are reused by the threads of the compression pool, which outlive the streams
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(
+            Deflater.DEFAULT_COMPRESSION, true));
+
+    private final OutputStream out;
+    private final int level;
+    private final int blockSize;
+    private final int maxPendingBlocks;
+    private final ExecutorService executor;
+    private final BlockIndex index;
+
+    //Members being compressed, in stream order
+    private final Queue<Future<Member>> pending = new ArrayDeque<>();
+    private final Queue<byte[]> freeBlocks = new ConcurrentLinkedQueue<>();
+
+    private byte[] block;
+    private int blockLength;
+    private long membersWritten;
+    private long compressedLength;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out, int level, int blockSize, int maxPendingBlocks,
+                                    ExecutorService executor) {
+        this(out, level, blockSize, maxPendingBlocks, executor, null);
+    }
+
+    private ParallelGzipOutputStream(OutputStream out, int level, int blockSize, int maxPendingBlocks,
+                                     ExecutorService executor, BlockIndex index) {
+        this.out = out;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxPendingBlocks = maxPendingBlocks;
+        this.executor = executor;
+        this.index = index;
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * Returns a stream that writes BGZF blocks and indexes the rows of the document at least every indexInterval
+     * uncompressed bytes.
+     */
+    public static ParallelGzipOutputStream bgzf(OutputStream out, int level, int maxPendingBlocks,
+                                                ExecutorService executor, long indexInterval) {
+        return new ParallelGzipOutputStream(out, level, BGZF_BLOCK_SIZE, maxPendingBlocks, executor,
+                new BlockIndex(BGZF_BLOCK_SIZE, indexInterval));
+    }
+
+    /**
+     * Row index of the document in BGZF mode, complete once the stream is closed, null otherwise.
+     */
+    public BlockIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (index != null) {
+            index.scan(b, off, len);
+        }
+
+        while (len > 0) {
+            int copied = Math.min(len, blockSize - blockLength);
+            System.arraycopy(b, off, block, blockLength, copied);
+            blockLength += copied;
+            off += copied;
+            len -= copied;
+
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the last block, waits for every member to be written and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            //Empty input still makes a valid, empty GZIP file
+            if (blockLength > 0 || (membersWritten == 0 && pending.isEmpty())) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeMember();
+            }
+            if (index != null) {
+                out.write(BGZF_EOF);
+            }
+        } finally {
+            closed = true;
+            for (Future<Member> member : pending) {
+                member.cancel(true);
+            }
+            pending.clear();
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] input = block;
+        int length = blockLength;
+        pending.add(executor.submit(() -> {
+            try {
+                return compress(input, length);
+            } finally {
+                freeBlocks.offer(input);
+            }
+        }));
+
+        byte[] freeBlock = freeBlocks.poll();
+        block = freeBlock != null ? freeBlock : new byte[blockSize];
+        blockLength = 0;
+
+        //Writes the members that are ready without waiting, and waits for the oldest one once the window is full
+        while (!pending.isEmpty() && (pending.peek().isDone() || pending.size() >= maxPendingBlocks)) {
+            writeMember();
+        }
+    }
+
+    private void writeMember() throws IOException {
+        Member member;
+        try {
+            member = pending.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("GZIP compression interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("GZIP compression failed", e.getCause());
+        }
+
+        if (index != null) {
+            index.blockWritten(membersWritten, compressedLength);
+        }
+
+        out.write(member.data, 0, member.length);
+        membersWritten++;
+        compressedLength += member.length;
+    }
+
+    private Member compress(byte[] input, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(input, 0, length);
+
+        if (index == null) {
+            return deflate(MEMBER_HEADER, level, input, length, crc);
+        }
+
+        //Incompressible blocks are stored instead, so that every block fits in the 64 KB BGZF limit
+        Member member = deflate(BGZF_MEMBER_HEADER, level, input, length, crc);
+        if (member.length > BGZF_MAX_MEMBER_SIZE) {
+            member = deflate(BGZF_MEMBER_HEADER, Deflater.NO_COMPRESSION, input, length, crc);
+        }
+
+        int blockSizeMinusOne = member.length - 1;
+        member.data[BGZF_BLOCK_SIZE_OFFSET] = (byte) blockSizeMinusOne;
+        member.data[BGZF_BLOCK_SIZE_OFFSET + 1] = (byte) (blockSizeMinusOne >> 8);
+
+        return member;
+    }
+
+    private static Member deflate(byte[] header, int level, byte[] input, int length, CRC32 crc) {
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+
+        //Deflate output can exceed its input, by a few bytes per stored 16 KB block
+        byte[] data = new byte[header.length + length + (length >> 12) + (length >> 14) + 64];
+        System.arraycopy(header, 0, data, 0, header.length);
+        int size = header.length;
+
+        while (!deflater.finished()) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            size += deflater.deflate(data, size, data.length - size);
+        }
+
+        if (data.length - size < MEMBER_TRAILER_SIZE) {
+            data = Arrays.copyOf(data, size + MEMBER_TRAILER_SIZE);
+        }
+        size = writeIntLE(data, size, (int) crc.getValue());
+        size = writeIntLE(data, size, length);
+
+        return new Member(data, size);
+    }
+
+    private static int writeIntLE(byte[] data, int offset, int value) {
+        data[offset] = (byte) value;
+        data[offset + 1] = (byte) (value >> 8);
+        data[offset + 2] = (byte) (value >> 16);
+        data[offset + 3] = (byte) (value >> 24);
+
+        return offset + 4;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static class Member {
+
+        private final byte[] data;
+        private final int length;
+
+        Member(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads a document over several connections at once, as an input stream that can be read like a single one.
+ * The first range is requested on its own; a 206 response with a Content-Range header gives the document length
+ * and confirms that the server supports ranges. The remaining ranges are then fetched concurrently, at most
+ * maxConcurrentRanges ahead of the reader, and handed out in order. Memory use is bounded by
+ * rangeSize * (maxConcurrentRanges + 1) regardless of the document size, and a slow reader, e.g. an upload,
+ * throttles the download rather than the other way around.
+ * Servers that ignore the Range header answer the probe with the whole document, which is then read as a single
+ * stream.
+ * Each range request is authorized on its own, while ranges are requested as the reader gets to them, so a presigned
+ * URL may expire before the last range is requested. Given a way to get the document URL again, a range rejected with
+ * HTTP 403 is requested again with a new URL. Otherwise, shortly before the URL expires, the rest of the document is
+ * requested at once and read as a single stream. Failed range requests are retried after a jittered backoff.
+ */
+public class ParallelRangeDownloader {
+
+    private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final int MAX_RANGE_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+    private static final long EXPIRATION_MARGIN_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final DateTimeFormatter AMZ_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final int rangeSize;
+    private final int maxConcurrentRanges;
+    private final ExecutorService executor;
+
+    public ParallelRangeDownloader(int rangeSize, int maxConcurrentRanges) {
+        this.rangeSize = rangeSize;
+        this.maxConcurrentRanges = maxConcurrentRanges;
+        this.executor = Executors.newFixedThreadPool(maxConcurrentRanges, new ThreadFactoryBuilder()
+                .setNameFormat("document-range-download-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Opens the document at the given url. The returned stream must be closed, which cancels the ranges that
+     * were not read yet.
+     */
+    public InputStream open(String url) throws IOException {
+        return open(url, null);
+    }
+
+    /**
+     * Opens the document at the given url, see {@link #open(String)}.
+     *
+     * @param urlRefresher Gets a new url of the same document once the url is rejected, null if there is no way to
+     *                     get one
+     */
+    public InputStream open(String url, Callable<String> urlRefresher) throws IOException {
+        HttpURLConnection probe = openRange(url, 0, rangeSize - 1);
+
+        if (probe.getResponseCode() == HTTP_RANGE_NOT_SATISFIABLE) {
+            //Empty documents have no first range
+            probe.disconnect();
+            return getInputStream((HttpURLConnection) URI.create(url).toURL().openConnection());
+        }
+        if (probe.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+            //The Range header was ignored, so this is the whole document
+            return getInputStream(probe);
+        }
+
+        Matcher contentRange = parseContentRange(probe);
+        long length = Long.parseLong(contentRange.group(3));
+        if (length <= rangeSize) {
+            return getInputStream(probe);
+        }
+
+        return new RangeInputStream(url, urlRefresher, length, probe);
+    }
+
+    private static HttpURLConnection openRange(String url, long first, long last) throws IOException {
+        URLConnection connection = URI.create(url).toURL().openConnection();
+        if (!(connection instanceof HttpURLConnection)) {
+            throw new IOException(String.format("Unsupported document url protocol: %s", connection.getURL().getProtocol()));
+        }
+
+        connection.setRequestProperty("Range", String.format("bytes=%d-%d", first, last));
+        return (HttpURLConnection) connection;
+    }
+
+    private static InputStream getInputStream(HttpURLConnection connection) throws IOException {
+        int responseCode = connection.getResponseCode();
+        if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL) {
+            connection.disconnect();
+            throw new IOException(String.format("Document download failed with HTTP %d", responseCode));
+        }
+
+        return connection.getInputStream();
+    }
+
+    private static Matcher parseContentRange(HttpURLConnection connection) throws IOException {
+        String contentRange = connection.getHeaderField("Content-Range");
+        Matcher matcher = contentRange == null ? null : CONTENT_RANGE_PATTERN.matcher(contentRange);
+
+        if (matcher == null || !matcher.matches()) {
+            connection.disconnect();
+            throw new IOException(String.format("Unexpected Content-Range: %s", contentRange));
+        }
+
+        return matcher;
+    }
+
+    //Expiration of a SigV4 or SigV2 presigned url, -1 if the url doesn't tell
+    static long getExpirationMillis(String url) {
+        String query = URI.create(url).getRawQuery();
+        if (query == null) {
+            return -1;
+        }
+
+        String amzDate = null;
+        String amzExpires = null;
+        String expires = null;
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator < 0) {
+                continue;
+            }
+
+            String name = parameter.substring(0, separator);
+            String value = decode(parameter.substring(separator + 1));
+            if ("X-Amz-Date".equals(name)) {
+                amzDate = value;
+            } else if ("X-Amz-Expires".equals(name)) {
+                amzExpires = value;
+            } else if ("Expires".equals(name)) {
+                expires = value;
+            }
+        }
+
+        try {
+            if (amzDate != null && amzExpires != null) {
+                return LocalDateTime.parse(amzDate, AMZ_DATE_FORMAT).toInstant(ZoneOffset.UTC).toEpochMilli()
+                        + TimeUnit.SECONDS.toMillis(Long.parseLong(amzExpires));
+            }
+            return expires == null ? -1 : TimeUnit.SECONDS.toMillis(Long.parseLong(expires));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //Full jitter: a random wait up to an exponentially growing bound, so that ranges failing together don't retry together
+    private static void backoff(int attempt) throws InterruptedIOException {
+        long bound = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Document download interrupted");
+        }
+    }
+
+    private static int readFully(InputStream inputStream, byte[] buffer, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int read = inputStream.read(buffer, offset, length - offset);
+            if (read == -1) {
+                break;
+            }
+
+            offset += read;
+        }
+
+        return offset;
+    }
+
+    private class RangeInputStream extends InputStream {
+
+        private final Callable<String> urlRefresher;
+        private final long expirationMillis;
+        private final long length;
+        private final int rangeCount;
+        private volatile String url;
+
+        //Ranges in flight, in document order, then the rest of the document once the url is about to expire
+        private final Queue<Future<byte[]>> ranges = new ArrayDeque<>();
+        private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+        private int nextRange;
+        private Future<HttpURLConnection> remainder;
+        private InputStream remainderStream;
+        private long remainderOffset;
+
+        private int currentRange = -1;
+        private byte[] buffer;
+        private int position;
+        private int limit;
+        private boolean closed;
+
+        RangeInputStream(String url, Callable<String> urlRefresher, long length, HttpURLConnection probe) {
+            this.url = url;
+            this.urlRefresher = urlRefresher;
+            this.expirationMillis = urlRefresher == null ? getExpirationMillis(url) : -1;
+            this.length = length;
+            this.rangeCount = (int) ((length + rangeSize - 1) / rangeSize);
+
+            ranges.add(executor.submit(() -> readRange(0, probe)));
+            nextRange = 1;
+            fillWindow();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextBuffer()) {
+                return -1;
+            }
+
+            return buffer[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextBuffer()) {
+                return -1;
+            }
+
+            int read = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, read);
+            position += read;
+
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer == null ? 0 : limit - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            for (Future<byte[]> range : ranges) {
+                range.cancel(true);
+            }
+            ranges.clear();
+
+            if (remainderStream != null) {
+                remainderStream.close();
+            } else if (remainder != null) {
+                remainder.cancel(true);
+            }
+        }
+
+        //Returns false once every range was read
+        private boolean nextBuffer() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (buffer != null && position < limit) {
+                return true;
+            }
+
+            Future<byte[]> range = ranges.poll();
+            if (range == null) {
+                return remainder != null && nextRemainderBuffer();
+            }
+
+            if (buffer != null) {
+                freeBuffers.offer(buffer);
+            }
+
+            buffer = get(range);
+            currentRange++;
+            position = 0;
+            limit = getRangeLength(currentRange);
+            fillWindow();
+
+            return true;
+        }
+
+        //Reads the rest of the document in range sized chunks, from the single request that asked for it
+        private boolean nextRemainderBuffer() throws IOException {
+            if (remainderStream == null) {
+                HttpURLConnection connection = get(remainder);
+                remainderStream = connection.getInputStream();
+                remainderOffset = (long) (currentRange + 1) * rangeSize;
+            }
+            if (remainderOffset == length) {
+                return false;
+            }
+
+            if (buffer == null) {
+                buffer = new byte[rangeSize];
+            }
+
+            int chunkLength = (int) Math.min(rangeSize, length - remainderOffset);
+            int read = readFully(remainderStream, buffer, chunkLength);
+            if (read < chunkLength) {
+                throw new IOException(String.format("Document ended after %d of %d bytes", remainderOffset + read, length));
+            }
+
+            remainderOffset += read;
+            position = 0;
+            limit = read;
+
+            return true;
+        }
+
+        private <T> T get(Future<T> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new InterruptedIOException("Document download interrupted");
+            } catch (ExecutionException | CancellationException e) {
+                close();
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException("Document download failed", e);
+            }
+        }
+
+        private void fillWindow() {
+            while (remainder == null && ranges.size() < maxConcurrentRanges && nextRange < rangeCount) {
+                if (expirationMillis > 0 && System.currentTimeMillis() >= expirationMillis - EXPIRATION_MARGIN_MILLIS) {
+                    //Requested while the url is still valid, the response can then be read for as long as it takes
+                    long first = (long) nextRange * rangeSize;
+                    nextRange = rangeCount;
+                    remainder = executor.submit(() -> openRemainder(first));
+                    return;
+                }
+
+                int index = nextRange++;
+                ranges.add(executor.submit(() -> downloadRange(index)));
+            }
+        }
+
+        private HttpURLConnection openRemainder(long first) throws IOException {
+            HttpURLConnection connection = openRange(url, first, length - 1);
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                connection.disconnect();
+                throw new IOException(String.format(
+                        "Document download from byte %d failed with HTTP %d", first, connection.getResponseCode()));
+            }
+
+            checkContentRange(connection, first);
+            return connection;
+        }
+
+        private byte[] downloadRange(int index) throws IOException {
+            long first = (long) index * rangeSize;
+            long last = first + getRangeLength(index) - 1;
+            boolean urlRefreshed = false;
+
+            for (int attempt = 1; ; attempt++) {
+                if (attempt > 1) {
+                    backoff(attempt - 1);
+                }
+
+                boolean lastAttempt = attempt >= MAX_RANGE_ATTEMPTS;
+                String rangeUrl = url;
+                HttpURLConnection connection;
+                int responseCode;
+                try {
+                    connection = openRange(rangeUrl, first, last);
+                    responseCode = connection.getResponseCode();
+                } catch (IOException e) {
+                    if (lastAttempt) {
+                        throw e;
+                    }
+                    continue;
+                }
+
+                if (responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                    connection.disconnect();
+
+                    //An expired presigned url is rejected with 403, a new one is fetched once per range
+                    if (responseCode == HttpURLConnection.HTTP_FORBIDDEN && urlRefresher != null && !urlRefreshed) {
+                        refreshUrl(rangeUrl);
+                        urlRefreshed = true;
+                        attempt--;
+                        continue;
+                    }
+
+                    //Other client errors won't go away on retry
+                    if (lastAttempt || responseCode < HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                        throw new IOException(String.format(
+                                "Range %d-%d download failed with HTTP %d", first, last, responseCode));
+                    }
+                    continue;
+                }
+
+                checkContentRange(connection, first);
+                try {
+                    return readRange(index, connection);
+                } catch (IOException e) {
+                    if (lastAttempt) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        //Ranges rejected together refresh the url once, the others find it already replaced
+        private synchronized void refreshUrl(String rejectedUrl) throws IOException {
+            if (!rejectedUrl.equals(url)) {
+                return;
+            }
+
+            try {
+                url = urlRefresher.call();
+            } catch (Exception e) {
+                throw new IOException("Document url could not be refreshed", e);
+            }
+        }
+
+        private void checkContentRange(HttpURLConnection connection, long first) throws IOException {
+            Matcher contentRange = parseContentRange(connection);
+            if (Long.parseLong(contentRange.group(1)) != first || Long.parseLong(contentRange.group(3)) != length) {
+                connection.disconnect();
+                throw new IOException(String.format(
+                        "Download from byte %d returned %s", first, contentRange.group()));
+            }
+        }
+
+        private byte[] readRange(int index, HttpURLConnection connection) throws IOException {
+            int rangeLength = getRangeLength(index);
+            byte[] rangeBuffer = freeBuffers.poll();
+            if (rangeBuffer == null) {
+                rangeBuffer = new byte[rangeSize];
+            }
+
+            try (InputStream inputStream = connection.getInputStream()) {
+                int read = readFully(inputStream, rangeBuffer, rangeLength);
+                if (read < rangeLength) {
+                    throw new IOException(String.format("Range %d ended after %d of %d bytes", index, read, rangeLength));
+                }
+            }
+
+            return rangeBuffer;
+        }
+
+        private int getRangeLength(int index) {
+            return (int) Math.min(rangeSize, length - (long) index * rangeSize);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package utils;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+
+/**
+ * Copies a report document from SP-API to the reports bucket, shared by the chained storage function and the fused
+ * report document pipeline. The document is downloaded in parallel ranges, re-encoded when storage compression is
+ * configured, and uploaded in parallel parts, all as a single stream. A block index, if the storage compression
+ * builds one, is stored next to the document.
+ * Downloads, uploads and compression are tuned with the environment variables below and run on thread pools, so a
+ * single instance should be kept in a static field and shared by all invocations of the function.
+ */
+public class ReportDocumentStore {
+
+    //Lambda Environment Variables
+    private static final String UPLOAD_PART_SIZE_MB_ENV_VARIABLE = "UPLOAD_PART_SIZE_MB";
+    private static final String UPLOAD_MAX_CONCURRENT_PARTS_ENV_VARIABLE = "UPLOAD_MAX_CONCURRENT_PARTS";
+    private static final String DOWNLOAD_RANGE_SIZE_MB_ENV_VARIABLE = "DOWNLOAD_RANGE_SIZE_MB";
+    private static final String DOWNLOAD_MAX_CONCURRENT_RANGES_ENV_VARIABLE = "DOWNLOAD_MAX_CONCURRENT_RANGES";
+
+    private static final int DEFAULT_UPLOAD_PART_SIZE_MB = 16;
+    private static final int DEFAULT_UPLOAD_MAX_CONCURRENT_PARTS = 4;
+    private static final int DEFAULT_DOWNLOAD_RANGE_SIZE_MB = 8;
+    private static final int DEFAULT_DOWNLOAD_MAX_CONCURRENT_RANGES = 4;
+    private static final int BYTES_PER_MB = 1024 * 1024;
+
+    private final StreamingMultipartUploader uploader;
+    private final ParallelRangeDownloader downloader;
+    private final ReportTranscoder transcoder;
+
+    public ReportDocumentStore(StreamingMultipartUploader uploader, ParallelRangeDownloader downloader,
+                               ReportTranscoder transcoder) {
+        this.uploader = uploader;
+        this.downloader = downloader;
+        this.transcoder = transcoder;
+    }
+
+    public static ReportDocumentStore fromEnvironment() {
+        return new ReportDocumentStore(
+                new StreamingMultipartUploader(ReportStorageClients.getS3(),
+                        getIntEnv(UPLOAD_PART_SIZE_MB_ENV_VARIABLE, DEFAULT_UPLOAD_PART_SIZE_MB) * BYTES_PER_MB,
+                        getIntEnv(UPLOAD_MAX_CONCURRENT_PARTS_ENV_VARIABLE, DEFAULT_UPLOAD_MAX_CONCURRENT_PARTS)),
+                new ParallelRangeDownloader(
+                        getIntEnv(DOWNLOAD_RANGE_SIZE_MB_ENV_VARIABLE, DEFAULT_DOWNLOAD_RANGE_SIZE_MB) * BYTES_PER_MB,
+                        getIntEnv(DOWNLOAD_MAX_CONCURRENT_RANGES_ENV_VARIABLE, DEFAULT_DOWNLOAD_MAX_CONCURRENT_RANGES)),
+                ReportTranscoder.fromEnvironment());
+    }
+
+    /**
+     * Compression algorithm of the stored documents, given the SP-API compression algorithm of the source, see
+     * {@link ReportTranscoder#getStoredCompressionAlgorithm}.
+     */
+    public String getStoredCompressionAlgorithm(String sourceCompressionAlgorithm) {
+        return transcoder.getStoredCompressionAlgorithm(sourceCompressionAlgorithm);
+    }
+
+    /**
+     * Stores the document at the given url under the given key and returns the number of bytes stored.
+     *
+     * @param urlRefresher         Gets a new url of the document once the url expired, null if there is no way to get
+     *                             one, see {@link ParallelRangeDownloader#open(String, Callable)}
+     * @param compressionAlgorithm SP-API compression algorithm of the document, null or empty if not compressed
+     */
+    public long store(String url, Callable<String> urlRefresher, String compressionAlgorithm, String bucketName,
+                      String objectKey, String reportType, LambdaLogger logger) throws IOException, InterruptedException {
+        try (InputStream inputStream = openDocument(url, urlRefresher, compressionAlgorithm)) {
+            ObjectMetadata metadata = ReportStorage.newObjectMetadata(getStoredCompressionAlgorithm(compressionAlgorithm));
+            if (transcoder.isBlockIndexed()) {
+                metadata.addUserMetadata(ReportStorage.BLOCK_INDEX_METADATA_KEY, ReportStorage.getBlockIndexObjectKey(objectKey));
+            }
+
+            long uploadedBytes = uploader.upload(bucketName, objectKey, inputStream, metadata);
+            logger.log(String.format("Report document stored. Size: %d bytes", uploadedBytes));
+
+            if (inputStream instanceof TranscodingInputStream) {
+                TranscodingInputStream transcodingStream = (TranscodingInputStream) inputStream;
+                logger.log(transcodingStream.getMetricLine(reportType) + System.lineSeparator());
+
+                BlockIndex blockIndex = transcodingStream.getBlockIndex();
+                if (blockIndex != null) {
+                    storeBlockIndex(bucketName, objectKey, blockIndex);
+                    logger.log(String.format("Block index stored. Entries: %d", blockIndex.getEntryCount()));
+                }
+            }
+
+            return uploadedBytes;
+        }
+    }
+
+    //Re-encodes the document on its way to S3 when storage compression is configured
+    private InputStream openDocument(String url, Callable<String> urlRefresher, String compressionAlgorithm)
+            throws IOException {
+        InputStream documentStream = downloader.open(url, urlRefresher);
+        if (!transcoder.isEnabled()) {
+            return documentStream;
+        }
+
+        try {
+            return transcoder.transcode(documentStream, compressionAlgorithm);
+        } catch (IOException e) {
+            documentStream.close();
+            throw e;
+        }
+    }
+
+    //Written after the document, which it describes once the document stream was read to the end
+    private void storeBlockIndex(String bucketName, String objectKey, BlockIndex blockIndex)
+            throws IOException, InterruptedException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(ReportStorage.BLOCK_INDEX_CONTENT_TYPE);
+
+        uploader.upload(bucketName, ReportStorage.getBlockIndexObjectKey(objectKey),
+                new ByteArrayInputStream(blockIndex.toBytes()), metadata);
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return StringUtils.isNullOrEmpty(value) ? defaultValue : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,72 @@
+package utils;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.util.StringUtils;
+import com.google.common.collect.ImmutableMap;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Naming and metadata of the report documents stored in the reports bucket, shared by the chained
+ * storage functions and the fused report document pipeline.
+ */
+public final class ReportStorage {
+
+    public static final String COMPRESSION_GZIP_KEY_NAME = "GZIP";
+    public static final String COMPRESSION_GZIP_METADATA_VALUE = "application/x-gzip";
+    public static final String COMPRESSION_ZSTD_KEY_NAME = "ZSTD";
+    public static final String COMPRESSION_ZSTD_METADATA_VALUE = "application/zstd";
+
+    public static final Map<String, String> COMPRESSION_METADATA_MAP = ImmutableMap.of(
+            COMPRESSION_GZIP_KEY_NAME, COMPRESSION_GZIP_METADATA_VALUE,
+            COMPRESSION_ZSTD_KEY_NAME, COMPRESSION_ZSTD_METADATA_VALUE);
+
+    public static final String BLOCK_INDEX_METADATA_KEY = "block-index";
+    public static final String BLOCK_INDEX_CONTENT_TYPE = "text/tab-separated-values";
+
+    public static final Duration DEFAULT_PRESIGNED_URL_EXPIRATION = Duration.ofHours(1);
+
+    private ReportStorage() {
+    }
+
+    public static String newObjectKey(String reportType) {
+        return String.format("%s/%s", reportType, UUID.randomUUID());
+    }
+
+    /**
+     * Key of the given report document: storing the same document again overwrites the same object, which makes the
+     * storage tasks safe to run more than once, as express workflows may do.
+     */
+    public static String getObjectKey(String reportType, String reportDocumentId) {
+        return String.format("%s/%s", reportType, reportDocumentId);
+    }
+
+    /**
+     * Key of the block index of the given stored document, see {@link BlockIndex}. The stored document refers to it in
+     * its block-index user metadata.
+     */
+    public static String getBlockIndexObjectKey(String objectKey) {
+        return objectKey + ".index.tsv";
+    }
+
+    /**
+     * Metadata of a report document compressed with the given compression algorithm, null or empty if it is not
+     * compressed. GZIP is the only algorithm SP-API uses, ZSTD documents are produced by {@link ReportTranscoder}.
+     */
+    public static ObjectMetadata newObjectMetadata(String compressionAlgorithm) {
+        ObjectMetadata metadata = new ObjectMetadata();
+
+        if (!StringUtils.isNullOrEmpty(compressionAlgorithm)) {
+            if (!COMPRESSION_METADATA_MAP.containsKey(compressionAlgorithm)) {
+                throw new IllegalArgumentException(String.format("Unsupported compression algorithm: %s",
+                        compressionAlgorithm));
+            }
+
+            metadata.setContentType(COMPRESSION_METADATA_MAP.get(compressionAlgorithm));
+        }
+
+        return metadata;
+    }
+}
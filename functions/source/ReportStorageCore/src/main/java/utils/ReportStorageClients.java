@@ -0,0 +1,56 @@
+package utils;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+/**
+ * Holds the S3 client used to store and presign report documents. It is built on first use and then reused by every
+ * invocation served by the same container, so warm invocations keep their pooled, kept-alive connections.
+ */
+public final class ReportStorageClients {
+
+    //Lambda Environment Variables
+    //Only set to run the functions against local stand-ins of the AWS services, e.g. in the load harness
+    private static final String ENDPOINT_URL_ENV_VARIABLE = "AWS_ENDPOINT_URL";
+    private static final String REGION_ENV_VARIABLE = "AWS_REGION";
+
+    private static final int MAX_CONNECTIONS = 50;
+    private static final long CONNECTION_MAX_IDLE_MILLIS = 60000;
+
+    private static final Supplier<AmazonS3> S3 = Suppliers.memoize(() ->
+            withEndpoint(AmazonS3ClientBuilder.standard())
+                    .withClientConfiguration(getClientConfiguration())
+                    .build());
+
+    private ReportStorageClients() {
+    }
+
+    public static AmazonS3 getS3() {
+        return S3.get();
+    }
+
+    //Points the client at AWS_ENDPOINT_URL when there is one, otherwise leaves the region to the default provider chain
+    private static AmazonS3ClientBuilder withEndpoint(AmazonS3ClientBuilder builder) {
+        String endpointUrl = System.getenv(ENDPOINT_URL_ENV_VARIABLE);
+        if (Strings.isNullOrEmpty(endpointUrl)) {
+            return builder;
+        }
+
+        //Stand-ins are reached by address, with the bucket in the path rather than in the host name
+        return builder.withEndpointConfiguration(new EndpointConfiguration(endpointUrl, System.getenv(REGION_ENV_VARIABLE)))
+                .withPathStyleAccessEnabled(true);
+    }
+
+    private static ClientConfiguration getClientConfiguration() {
+        return new ClientConfiguration()
+                .withMaxConnections(MAX_CONNECTIONS)
+                .withTcpKeepAlive(true)
+                .withConnectionMaxIdleMillis(CONNECTION_MAX_IDLE_MILLIS);
+    }
+}
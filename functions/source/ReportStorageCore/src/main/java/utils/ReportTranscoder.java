@@ -0,0 +1,140 @@
+package utils;
+
+import com.amazonaws.util.StringUtils;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Optionally re-encodes report documents before they are stored: GZIP documents are decompressed on the fly and
+ * compressed again with the codec set in the STORAGE_COMPRESSION environment variable, ZSTD, GZIP, BGZF or NONE, at
+ * the level set in STORAGE_COMPRESSION_LEVEL. Documents are stored as SP-API serves them when STORAGE_COMPRESSION is
+ * not set. BGZF documents are GZIP files that can be read from any block, with a {@link BlockIndex} of their rows.
+ * Transcoding is done chunk by chunk as the stored stream is read, so it runs in bounded memory without holding the
+ * document. Compression uses every vCPU of the function: GZIP in independently compressed blocks, see
+ * {@link ParallelGzipOutputStream}, and ZSTD with its own worker threads.
+ */
+public class ReportTranscoder {
+
+    //Lambda Environment Variables
+    private static final String STORAGE_COMPRESSION_ENV_VARIABLE = "STORAGE_COMPRESSION";
+    private static final String STORAGE_COMPRESSION_LEVEL_ENV_VARIABLE = "STORAGE_COMPRESSION_LEVEL";
+
+    public static final String COMPRESSION_NONE = "NONE";
+    public static final String COMPRESSION_BGZF = "BGZF";
+
+    private static final int DEFAULT_ZSTD_LEVEL = 3;
+    private static final int DEFAULT_GZIP_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_BLOCK_SIZE = 1024 * 1024;
+    private static final int COMPRESSION_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final long BLOCK_INDEX_INTERVAL = 1024 * 1024;
+
+    private final String codec;
+    private final int level;
+    private final ExecutorService gzipExecutor;
+
+    /**
+     * @param codec Codec of the stored documents, ZSTD, GZIP, BGZF or NONE, null to store the documents as they are
+     * @param level Compression level of the codec, ignored for NONE
+     */
+    public ReportTranscoder(String codec, int level) {
+        if (codec != null && !COMPRESSION_NONE.equals(codec) && !COMPRESSION_BGZF.equals(codec)
+                && !ReportStorage.COMPRESSION_METADATA_MAP.containsKey(codec)) {
+            throw new IllegalArgumentException(String.format("Unsupported storage compression: %s", codec));
+        }
+
+        this.codec = codec;
+        this.level = level;
+        this.gzipExecutor = !ReportStorage.COMPRESSION_GZIP_KEY_NAME.equals(codec) && !COMPRESSION_BGZF.equals(codec) ? null
+                : Executors.newFixedThreadPool(COMPRESSION_THREADS, new ThreadFactoryBuilder()
+                        .setNameFormat("gzip-block-compression-%d")
+                        .setDaemon(true)
+                        .build());
+    }
+
+    public static ReportTranscoder fromEnvironment() {
+        String codec = System.getenv(STORAGE_COMPRESSION_ENV_VARIABLE);
+        if (StringUtils.isNullOrEmpty(codec)) {
+            return new ReportTranscoder(null, 0);
+        }
+
+        String level = System.getenv(STORAGE_COMPRESSION_LEVEL_ENV_VARIABLE);
+        return new ReportTranscoder(codec, StringUtils.isNullOrEmpty(level)
+                ? getDefaultLevel(codec)
+                : Integer.parseInt(level));
+    }
+
+    public boolean isEnabled() {
+        return codec != null;
+    }
+
+    /**
+     * Whether stored documents come with a block index, see {@link TranscodingInputStream#getBlockIndex()}.
+     */
+    public boolean isBlockIndexed() {
+        return COMPRESSION_BGZF.equals(codec);
+    }
+
+    /**
+     * Compression algorithm of the stored document, given the SP-API compression algorithm of the source, empty if
+     * the stored document is not compressed. BGZF documents are GZIP files to readers that don't use the index.
+     */
+    public String getStoredCompressionAlgorithm(String sourceCompressionAlgorithm) {
+        if (!isEnabled()) {
+            return sourceCompressionAlgorithm;
+        }
+        if (COMPRESSION_BGZF.equals(codec)) {
+            return ReportStorage.COMPRESSION_GZIP_KEY_NAME;
+        }
+
+        return COMPRESSION_NONE.equals(codec) ? "" : codec;
+    }
+
+    /**
+     * Returns the source re-encoded with the configured codec. Closing the returned stream closes the source.
+     *
+     * @param sourceCompressionAlgorithm SP-API compression algorithm of the source, null or empty if not compressed
+     */
+    public TranscodingInputStream transcode(InputStream source, String sourceCompressionAlgorithm) throws IOException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Storage compression is not configured");
+        }
+
+        return new TranscodingInputStream(source, codec, this::newEncoder,
+                ReportStorage.COMPRESSION_GZIP_KEY_NAME.equals(sourceCompressionAlgorithm)
+                        ? input -> new GZIPInputStream(input, GZIP_BUFFER_SIZE)
+                        : input -> input);
+    }
+
+    private OutputStream newEncoder(OutputStream output) throws IOException {
+        switch (codec) {
+            case ReportStorage.COMPRESSION_ZSTD_KEY_NAME:
+                ZstdOutputStream zstdOutputStream = new ZstdOutputStream(output, level);
+                if (COMPRESSION_THREADS > 1) {
+                    zstdOutputStream.setWorkers(COMPRESSION_THREADS);
+                }
+                return zstdOutputStream;
+            case ReportStorage.COMPRESSION_GZIP_KEY_NAME:
+                //Twice as many blocks as threads keeps every thread busy while the oldest block is written
+                return new ParallelGzipOutputStream(output, level, GZIP_BLOCK_SIZE, 2 * COMPRESSION_THREADS, gzipExecutor);
+            case COMPRESSION_BGZF:
+                //BGZF blocks are 64 KB, so more of them are kept in flight for about the same memory
+                return ParallelGzipOutputStream.bgzf(output, level, 16 * COMPRESSION_THREADS, gzipExecutor,
+                        BLOCK_INDEX_INTERVAL);
+            default:
+                return output;
+        }
+    }
+
+    private static int getDefaultLevel(String codec) {
+        return ReportStorage.COMPRESSION_ZSTD_KEY_NAME.equals(codec) ? DEFAULT_ZSTD_LEVEL : DEFAULT_GZIP_LEVEL;
+    }
+}
@@ -0,0 +1,190 @@
+package utils;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.AWSSessionCredentials;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.BaseEncoding;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Presigns S3 GetObject URLs with AWS Signature Version 4 query parameters, without an S3 client.
+ * Presigning is a purely local computation: the only inputs are the credentials of the execution role, which Lambda
+ * provides as environment variables, the region, the bucket and the key. The signing key only changes with the
+ * credentials and the day, so it is derived once and cached.
+ */
+public final class S3Presigner {
+
+    private static final String REGION_ENV_VARIABLE = "AWS_REGION";
+
+    private static final String SERVICE_NAME = "s3";
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String TERMINATOR = "aws4_request";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String SIGNED_HEADERS = "host";
+    private static final Duration MAX_EXPIRATION = Duration.ofDays(7);
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final int DATE_LENGTH = 8;
+
+    private static final int MAX_SIGNING_KEYS = 10;
+    private static final Cache<String, byte[]> SIGNING_KEYS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SIGNING_KEYS)
+            .build();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<Mac> HMAC_SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final AWSCredentialsProvider credentialsProvider;
+    private final String region;
+    private final String endpointSuffix;
+
+    public S3Presigner(AWSCredentialsProvider credentialsProvider, String region) {
+        this.credentialsProvider = credentialsProvider;
+        this.region = region;
+        this.endpointSuffix = region.startsWith("cn-") ? "amazonaws.com.cn" : "amazonaws.com";
+    }
+
+    /**
+     * Presigner for the region the function runs in. The default provider chain reads the execution role credentials
+     * from the environment variables and remembers that it did, so getting them again is a map lookup.
+     */
+    public static S3Presigner fromEnvironment() {
+        return new S3Presigner(DefaultAWSCredentialsProviderChain.getInstance(), System.getenv(REGION_ENV_VARIABLE));
+    }
+
+    public URL presignGetObject(String bucketName, String objectKey, Duration expiration) {
+        return presignGetObject(bucketName, objectKey, expiration, ZonedDateTime.now(ZoneOffset.UTC));
+    }
+
+    URL presignGetObject(String bucketName, String objectKey, Duration expiration, ZonedDateTime now) {
+        if (expiration.isNegative() || expiration.isZero() || expiration.compareTo(MAX_EXPIRATION) > 0) {
+            throw new IllegalArgumentException(String.format("Presigned url expiration must be between 1 second and %d"
+                    + " days: %s", MAX_EXPIRATION.toDays(), expiration));
+        }
+
+        AWSCredentials credentials = credentialsProvider.getCredentials();
+
+        //Virtual hosted-style urls, unless the bucket name doesn't fit in a certificate wildcard
+        String host;
+        String path;
+        if (bucketName.contains(".")) {
+            host = String.format("%s.%s.%s", SERVICE_NAME, region, endpointSuffix);
+            path = "/" + uriEncode(bucketName, true) + "/" + uriEncode(objectKey, false);
+        } else {
+            host = String.format("%s.%s.%s.%s", bucketName, SERVICE_NAME, region, endpointSuffix);
+            path = "/" + uriEncode(objectKey, false);
+        }
+
+        String dateTime = DATE_TIME_FORMAT.format(now);
+        String date = dateTime.substring(0, DATE_LENGTH);
+        String scope = String.format("%s/%s/%s/%s", date, region, SERVICE_NAME, TERMINATOR);
+
+        //Parameters in canonical order, i.e. sorted by name
+        StringBuilder query = new StringBuilder()
+                .append("X-Amz-Algorithm=").append(ALGORITHM)
+                .append("&X-Amz-Credential=").append(uriEncode(credentials.getAWSAccessKeyId() + "/" + scope, true))
+                .append("&X-Amz-Date=").append(dateTime)
+                .append("&X-Amz-Expires=").append(expiration.getSeconds());
+        if (credentials instanceof AWSSessionCredentials) {
+            query.append("&X-Amz-Security-Token=")
+                    .append(uriEncode(((AWSSessionCredentials) credentials).getSessionToken(), true));
+        }
+        query.append("&X-Amz-SignedHeaders=").append(SIGNED_HEADERS);
+
+        String canonicalRequest = "GET\n"
+                + path + "\n"
+                + query + "\n"
+                + "host:" + host + "\n\n"
+                + SIGNED_HEADERS + "\n"
+                + UNSIGNED_PAYLOAD;
+
+        String stringToSign = ALGORITHM + "\n"
+                + dateTime + "\n"
+                + scope + "\n"
+                + hex(SHA_256.get().digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] signingKey = getSigningKey(credentials.getAWSSecretKey(), date);
+        String signature = hex(hmac(signingKey, stringToSign));
+
+        try {
+            //Signed as is, but sent with the second slash escaped so that no client collapses empty key segments
+            return new URL(String.format("https://%s%s?%s&X-Amz-Signature=%s", host, path.replace("//", "/%2F"), query,
+                    signature));
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(String.format("Invalid object location: %s/%s", bucketName, objectKey), e);
+        }
+    }
+
+    private byte[] getSigningKey(String secretKey, String date) {
+        try {
+            return SIGNING_KEYS.get(String.join("|", secretKey, date, region), () -> {
+                byte[] dateKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+                byte[] regionKey = hmac(dateKey, region);
+                byte[] serviceKey = hmac(regionKey, SERVICE_NAME);
+                return hmac(serviceKey, TERMINATOR);
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        Mac mac = HMAC_SHA_256.get();
+        try {
+            mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hex(byte[] bytes) {
+        return BaseEncoding.base16().lowerCase().encode(bytes);
+    }
+
+    //RFC 3986 encoding of everything but the unreserved characters, and of the slashes if asked to
+    private static String uriEncode(String value, boolean encodeSlash) {
+        StringBuilder encoded = new StringBuilder();
+
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_' || c == '~' || (c == '/' && !encodeSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+
+        return encoded.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package utils;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uploads a stream of unknown length to S3 without holding it in memory.
+ * The source is read in fixed-size parts which are uploaded in parallel as an S3 multipart upload. At most
+ * maxConcurrentParts part buffers exist at a time, so memory use is bounded by partSize * maxConcurrentParts
+ * regardless of the object size. Streams that fit in a single part are stored with a plain PutObject instead.
+ * If any part fails the multipart upload is aborted so that no orphaned parts are left in the bucket.
+ */
+public class StreamingMultipartUploader {
+
+    private final AmazonS3 s3;
+    private final int partSize;
+    private final int maxConcurrentParts;
+    private final ExecutorService executor;
+
+    public StreamingMultipartUploader(AmazonS3 s3, int partSize, int maxConcurrentParts) {
+        this.s3 = s3;
+        this.partSize = partSize;
+        this.maxConcurrentParts = maxConcurrentParts;
+        this.executor = Executors.newFixedThreadPool(maxConcurrentParts, new ThreadFactoryBuilder()
+                .setNameFormat("s3-part-upload-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Uploads the stream to the given location and returns the number of bytes written.
+     * The stream is read until exhausted but not closed.
+     */
+    public long upload(String bucketName, String key, InputStream inputStream, ObjectMetadata metadata)
+            throws IOException, InterruptedException {
+        byte[] firstPart = new byte[partSize];
+        int firstPartLength = readPart(inputStream, firstPart);
+
+        if (firstPartLength < partSize) {
+            metadata.setContentLength(firstPartLength);
+            s3.putObject(new PutObjectRequest(bucketName, key,
+                    new ByteArrayInputStream(firstPart, 0, firstPartLength), metadata));
+
+            return firstPartLength;
+        }
+
+        String uploadId = s3.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key, metadata))
+                .getUploadId();
+
+        //Buffers are handed back by the part uploads once they are done, which throttles reading from the source
+        BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(maxConcurrentParts);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        List<Future<PartETag>> parts = new ArrayList<>();
+
+        try {
+            byte[] buffer = firstPart;
+            int length = firstPartLength;
+            int allocatedBuffers = 1;
+            long totalLength = 0;
+
+            while (length > 0) {
+                parts.add(submitPart(bucketName, key, uploadId, parts.size() + 1, buffer, length, freeBuffers, failure));
+                totalLength += length;
+
+                if (freeBuffers.isEmpty() && allocatedBuffers < maxConcurrentParts) {
+                    buffer = new byte[partSize];
+                    allocatedBuffers++;
+                } else {
+                    buffer = freeBuffers.take();
+                }
+
+                if (failure.get() != null) {
+                    throw failure.get();
+                }
+
+                length = readPart(inputStream, buffer);
+            }
+
+            List<PartETag> partETags = new ArrayList<>(parts.size());
+            for (Future<PartETag> part : parts) {
+                partETags.add(part.get());
+            }
+
+            s3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+            return totalLength;
+        } catch (Exception e) {
+            for (Future<PartETag> part : parts) {
+                part.cancel(true);
+            }
+
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+            throw asUploadException(e);
+        }
+    }
+
+    private Future<PartETag> submitPart(String bucketName, String key, String uploadId, int partNumber,
+                                        byte[] buffer, int length, BlockingQueue<byte[]> freeBuffers,
+                                        AtomicReference<Exception> failure) {
+        return executor.submit(() -> {
+            try {
+                UploadPartRequest request = new UploadPartRequest()
+                        .withBucketName(bucketName)
+                        .withKey(key)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber)
+                        .withInputStream(new ByteArrayInputStream(buffer, 0, length))
+                        .withPartSize(length);
+
+                return s3.uploadPart(request).getPartETag();
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            } finally {
+                freeBuffers.offer(buffer);
+            }
+        });
+    }
+
+    private static int readPart(InputStream inputStream, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read == -1) {
+                break;
+            }
+
+            length += read;
+        }
+
+        return length;
+    }
+
+    private static IOException asUploadException(Exception e) throws InterruptedException {
+        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+
+        if (cause instanceof InterruptedException) {
+            throw (InterruptedException) cause;
+        }
+
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+
+        return new IOException("Multipart upload failed", cause);
+    }
+}
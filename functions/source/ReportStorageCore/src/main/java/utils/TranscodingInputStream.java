@@ -0,0 +1,189 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stream of a source document decoded and encoded again, produced a chunk at a time as it is read: every refill
+ * decodes one chunk of the source and keeps only what the encoder wrote in the meantime.
+ * Counts the bytes on both sides and the time the reader spent in the codecs, excluding the time spent waiting on the
+ * source, and formats them as CloudWatch embedded metric format metrics once the stream is exhausted.
+ */
+public class TranscodingInputStream extends InputStream {
+
+    private static final String METRICS_NAMESPACE = "SPAPIReportsNotifications";
+    private static final String METRIC_FORMAT = "{\"_aws\":{\"Timestamp\":%d,\"CloudWatchMetrics\":[{\"Namespace\":\"%s\","
+            + "\"Dimensions\":[[\"ReportType\",\"Codec\"]],\"Metrics\":[{\"Name\":\"SourceBytes\",\"Unit\":\"Bytes\"},"
+            + "{\"Name\":\"UncompressedBytes\",\"Unit\":\"Bytes\"},{\"Name\":\"StoredBytes\",\"Unit\":\"Bytes\"},"
+            + "{\"Name\":\"CompressionRatio\",\"Unit\":\"None\"},{\"Name\":\"TranscodingThroughput\",\"Unit\":\"Megabytes/Second\"}]}]},"
+            + "\"ReportType\":\"%s\",\"Codec\":\"%s\",\"SourceBytes\":%d,\"UncompressedBytes\":%d,\"StoredBytes\":%d,"
+            + "\"CompressionRatio\":%.3f,\"TranscodingThroughput\":%.3f}";
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final double BYTES_PER_MB = 1024 * 1024;
+    private static final double NANOS_PER_SECOND = 1_000_000_000;
+
+    interface Codec<T> {
+        T wrap(T stream) throws IOException;
+    }
+
+    private final String codec;
+    private final TimedInputStream source;
+    private final InputStream decoder;
+    private final OutputStream encoder;
+    private final ChunkBuffer encoded = new ChunkBuffer();
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    private int position;
+    private boolean finished;
+    private long uncompressedBytes;
+    private long storedBytes;
+    private long elapsedNanos;
+
+    TranscodingInputStream(InputStream source, String codec, Codec<OutputStream> encoder, Codec<InputStream> decoder)
+            throws IOException {
+        this.codec = codec;
+        this.source = new TimedInputStream(source);
+        this.decoder = decoder.wrap(this.source);
+        this.encoder = encoder.wrap(encoded);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+
+        storedBytes++;
+        return encoded.getBuffer()[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+
+        int read = Math.min(len, encoded.size() - position);
+        System.arraycopy(encoded.getBuffer(), position, b, off, read);
+        position += read;
+        storedBytes += read;
+
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return encoded.size() - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            //Releases the native state of the encoder when the stream was not read to the end
+            if (!finished) {
+                finished = true;
+                encoder.close();
+            }
+        } finally {
+            decoder.close();
+        }
+    }
+
+    /**
+     * Row index of the stored document, complete once the stream was read to the end, null unless the codec is BGZF.
+     */
+    public BlockIndex getBlockIndex() {
+        return encoder instanceof ParallelGzipOutputStream ? ((ParallelGzipOutputStream) encoder).getIndex() : null;
+    }
+
+    /**
+     * Metrics of the document, to be logged once the stream was read to the end.
+     */
+    public String getMetricLine(String reportType) {
+        double codecSeconds = Math.max(elapsedNanos - source.waitNanos, 1) / NANOS_PER_SECOND;
+
+        return String.format(METRIC_FORMAT, System.currentTimeMillis(), METRICS_NAMESPACE, reportType, codec,
+                source.bytes, uncompressedBytes, storedBytes,
+                storedBytes == 0 ? 0 : (double) uncompressedBytes / storedBytes,
+                uncompressedBytes / BYTES_PER_MB / codecSeconds);
+    }
+
+    //Returns false once the source is exhausted and the encoder output was read
+    private boolean fill() throws IOException {
+        while (position == encoded.size()) {
+            if (finished) {
+                return false;
+            }
+
+            encoded.reset();
+            position = 0;
+
+            long start = System.nanoTime();
+            int read = decoder.read(chunk);
+            if (read == -1) {
+                encoder.close();
+                finished = true;
+            } else {
+                encoder.write(chunk, 0, read);
+                uncompressedBytes += read;
+            }
+            elapsedNanos += System.nanoTime() - start;
+        }
+
+        return true;
+    }
+
+    //Encoder output of a single chunk, read in place
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+
+        ChunkBuffer() {
+            super(CHUNK_SIZE);
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    //Counts the source bytes and the time spent waiting for them
+    private static class TimedInputStream extends FilterInputStream {
+
+        private long bytes;
+        private long waitNanos;
+
+        TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            waitNanos += System.nanoTime() - start;
+
+            if (b != -1) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            int read = super.read(b, off, len);
+            waitNanos += System.nanoTime() - start;
+
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writes documents through BGZF, reads them back with a standard GZIP reader, and reads rows from the offsets of the
+ * block index, the way a reader of the stored document would.
+ */
+public class BlockIndexTest {
+
+    private static final long INDEX_INTERVAL = 100_000;
+    private static final int BGZF_BLOCK_HEADER_SIZE = 18;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void bgzf_roundTripsThroughGzipReader() throws IOException {
+        byte[] document = newDocument(20_000);
+        byte[] stored = writeBgzf(document).toByteArray();
+
+        assertArrayEquals(document, gunzip(new ByteArrayInputStream(stored)));
+        assertBgzfBlocks(stored);
+    }
+
+    @Test
+    public void bgzf_readsEveryIndexedRowFromItsBlock() throws IOException {
+        byte[] document = newDocument(20_000);
+        List<String> rows = getRows(document);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ParallelGzipOutputStream bgzf = ParallelGzipOutputStream.bgzf(output, Deflater.DEFAULT_COMPRESSION, 8, executor,
+                INDEX_INTERVAL);
+        bgzf.write(document);
+        bgzf.close();
+        byte[] stored = output.toByteArray();
+
+        List<long[]> entries = parseIndex(bgzf.getIndex().toBytes());
+        assertEquals(bgzf.getIndex().getEntryCount(), entries.size());
+        assertTrue("Expected an entry every " + INDEX_INTERVAL + " bytes", entries.size() >= document.length / INDEX_INTERVAL);
+
+        for (long[] entry : entries) {
+            int row = (int) entry[0];
+            long uncompressedOffset = entry[1];
+            int blockOffset = (int) entry[2];
+            long offsetInBlock = entry[3];
+
+            assertEquals(rows.get(row), readLine(document, (int) uncompressedOffset));
+
+            try (InputStream block = new GZIPInputStream(
+                    new ByteArrayInputStream(stored, blockOffset, stored.length - blockOffset))) {
+                assertEquals(offsetInBlock, block.skip(offsetInBlock));
+                assertEquals("Row " + row, rows.get(row),
+                        new BufferedReader(new InputStreamReader(block, StandardCharsets.UTF_8)).readLine());
+            }
+        }
+    }
+
+    @Test
+    public void bgzf_storesIncompressibleBlocksWithinTheBlockLimit() throws IOException {
+        byte[] document = new byte[5 * ParallelGzipOutputStream.BGZF_BLOCK_SIZE + 1234];
+        new Random(7).nextBytes(document);
+        byte[] stored = writeBgzf(document).toByteArray();
+
+        assertArrayEquals(document, gunzip(new ByteArrayInputStream(stored)));
+        assertBgzfBlocks(stored);
+    }
+
+    @Test
+    public void bgzf_withEmptyDocument_writesOnlyTheFirstEntry() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ParallelGzipOutputStream bgzf = ParallelGzipOutputStream.bgzf(output, Deflater.DEFAULT_COMPRESSION, 8, executor,
+                INDEX_INTERVAL);
+        bgzf.close();
+
+        assertArrayEquals(new byte[0], gunzip(new ByteArrayInputStream(output.toByteArray())));
+        assertEquals(1, bgzf.getIndex().getEntryCount());
+        assertBgzfBlocks(output.toByteArray());
+    }
+
+    private ByteArrayOutputStream writeBgzf(byte[] document) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream bgzf = ParallelGzipOutputStream.bgzf(output, Deflater.DEFAULT_COMPRESSION, 8,
+                executor, INDEX_INTERVAL)) {
+            //Writes of uneven sizes, so that rows and writes straddle the block boundaries
+            for (int offset = 0; offset < document.length; offset += 7_777) {
+                bgzf.write(document, offset, Math.min(7_777, document.length - offset));
+            }
+        }
+
+        return output;
+    }
+
+    //Every block holds its own size, and the last one is the BGZF end of file block
+    private static void assertBgzfBlocks(byte[] stored) {
+        int offset = 0;
+        int lastBlockSize = 0;
+        while (offset < stored.length) {
+            assertEquals("BGZF extra subfield at " + offset, 'B', stored[offset + 12]);
+            assertEquals("BGZF extra subfield at " + offset, 'C', stored[offset + 13]);
+
+            lastBlockSize = ((stored[offset + 16] & 0xff) | (stored[offset + 17] & 0xff) << 8) + 1;
+            assertTrue(lastBlockSize > BGZF_BLOCK_HEADER_SIZE && lastBlockSize <= 0x10000);
+            offset += lastBlockSize;
+        }
+
+        assertEquals(stored.length, offset);
+        assertEquals(28, lastBlockSize);
+    }
+
+    //A tab separated report with a header row and rows of varying length
+    private static byte[] newDocument(int rowCount) {
+        Random random = new Random(42);
+        StringBuilder document = new StringBuilder("sku\tasin\tprice\tquantity\tdescription\n");
+
+        for (int row = 1; row <= rowCount; row++) {
+            document.append("SKU-").append(row).append('\t')
+                    .append("B0").append(Integer.toString(random.nextInt(Integer.MAX_VALUE), 36).toUpperCase()).append('\t')
+                    .append(random.nextInt(100_000) / 100.0).append('\t')
+                    .append(random.nextInt(1_000)).append('\t');
+            for (int word = random.nextInt(20); word >= 0; word--) {
+                document.append(Long.toString(random.nextLong() & Long.MAX_VALUE, 36)).append(' ');
+            }
+            document.append('\n');
+        }
+
+        return document.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> getRows(byte[] document) {
+        List<String> rows = new ArrayList<>();
+        for (int offset = 0; offset < document.length; ) {
+            String row = readLine(document, offset);
+            rows.add(row);
+            offset += row.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+
+        return rows;
+    }
+
+    private static String readLine(byte[] document, int offset) {
+        int end = offset;
+        while (document[end] != '\n') {
+            end++;
+        }
+
+        return new String(document, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static List<long[]> parseIndex(byte[] index) {
+        String[] lines = new String(index, StandardCharsets.UTF_8).split("\n");
+        assertEquals("row\tuncompressed_offset\tblock_offset\toffset_in_block", lines[0]);
+
+        List<long[]> entries = new ArrayList<>();
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split("\t");
+            entries.add(new long[] {Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                    Long.parseLong(fields[3])});
+        }
+
+        return entries;
+    }
+
+    private static byte[] gunzip(InputStream compressed) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(compressed)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+        }
+
+        return output.toByteArray();
+    }
+}
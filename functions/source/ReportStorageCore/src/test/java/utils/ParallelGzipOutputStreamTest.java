@@ -0,0 +1,202 @@
+package utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelGzipOutputStreamTest {
+
+    private static final int BLOCK_SIZE = 1000;
+    private static final int MAX_PENDING_BLOCKS = 3;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void write_emptyInput_writesEmptyGzipFile() throws IOException {
+        ClosingOutputStream output = new ClosingOutputStream();
+        new ParallelGzipOutputStream(output, Deflater.DEFAULT_COMPRESSION, BLOCK_SIZE, MAX_PENDING_BLOCKS, executor)
+                .close();
+
+        assertTrue(output.size() > 0);
+        assertArrayEquals(new byte[0], gunzip(output.toByteArray()));
+        assertTrue(output.closed);
+    }
+
+    @Test
+    public void write_exactlyOneBlock_writesSingleMember() throws IOException {
+        byte[] input = newInput(BLOCK_SIZE);
+        byte[] compressed = compress(input, input.length);
+
+        assertArrayEquals(input, gunzip(compressed));
+        assertEquals(1, countMembers(compressed));
+    }
+
+    @Test
+    public void write_blockBoundaryMidWrite_matchesInput() throws IOException {
+        //Every write but the first crosses a block boundary, and the last block is short
+        byte[] input = newInput(12 * BLOCK_SIZE + 345);
+        byte[] compressed = compress(input, 700);
+
+        assertArrayEquals(input, gunzip(compressed));
+        assertEquals(13, countMembers(compressed));
+    }
+
+    @Test
+    public void write_singleBytes_matchesInput() throws IOException {
+        byte[] input = newInput(3 * BLOCK_SIZE + 1);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(output, Deflater.BEST_SPEED, BLOCK_SIZE,
+                MAX_PENDING_BLOCKS, executor)) {
+            for (byte b : input) {
+                gzip.write(b);
+            }
+        }
+
+        assertArrayEquals(input, gunzip(output.toByteArray()));
+    }
+
+    @Test
+    public void write_incompressibleInput_matchesInput() throws IOException {
+        byte[] input = new byte[10 * BLOCK_SIZE + 1];
+        new Random(3).nextBytes(input);
+
+        assertArrayEquals(input, gunzip(compress(input, 4096)));
+    }
+
+    @Test
+    public void write_workerFailure_throwsAndClosesOutput() {
+        ExecutorService failingExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+                return new FutureTask<>(() -> {
+                    throw new IllegalStateException("Compression worker failed");
+                });
+            }
+        };
+
+        ClosingOutputStream output = new ClosingOutputStream();
+        try {
+            //The failure surfaces from whichever write or close first waits for the failed member
+            IOException e = assertThrows(IOException.class, () -> {
+                try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(output, Deflater.DEFAULT_COMPRESSION,
+                        BLOCK_SIZE, MAX_PENDING_BLOCKS, failingExecutor)) {
+                    gzip.write(newInput(2 * BLOCK_SIZE + 1));
+                }
+            });
+
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertTrue(output.closed);
+        } finally {
+            failingExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void write_afterClose_throws() throws IOException {
+        ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(new ByteArrayOutputStream(),
+                Deflater.DEFAULT_COMPRESSION, BLOCK_SIZE, MAX_PENDING_BLOCKS, executor);
+        gzip.close();
+
+        assertThrows(IOException.class, () -> gzip.write(1));
+    }
+
+    private byte[] compress(byte[] input, int writeSize) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(output, Deflater.DEFAULT_COMPRESSION,
+                BLOCK_SIZE, MAX_PENDING_BLOCKS, executor)) {
+            for (int offset = 0; offset < input.length; offset += writeSize) {
+                gzip.write(input, offset, Math.min(writeSize, input.length - offset));
+            }
+        }
+
+        return output.toByteArray();
+    }
+
+    //Text like input, repetitive enough to compress
+    private static byte[] newInput(int length) {
+        Random random = new Random(length);
+        byte[] input = new byte[length];
+        for (int i = 0; i < length; i++) {
+            input[i] = (byte) (i % 61 == 60 ? '\n' : 'a' + random.nextInt(6));
+        }
+
+        return input;
+    }
+
+    //Members are counted by decompressing them one at a time, as GZIPInputStream doesn't tell where they end
+    private static int countMembers(byte[] compressed) throws IOException {
+        Inflater inflater = new Inflater(true);
+        int offset = 0;
+        int members = 0;
+        byte[] buffer = new byte[BLOCK_SIZE];
+
+        try {
+            while (offset < compressed.length) {
+                offset += 10;
+                inflater.reset();
+                inflater.setInput(compressed, offset, compressed.length - offset);
+                while (!inflater.finished()) {
+                    inflater.inflate(buffer);
+                }
+                offset = compressed.length - inflater.getRemaining() + 8;
+                members++;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+
+        return members;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+        }
+
+        return output.toByteArray();
+    }
+
+    private static class ClosingOutputStream extends ByteArrayOutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
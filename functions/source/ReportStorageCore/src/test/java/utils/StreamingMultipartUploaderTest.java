@@ -0,0 +1,246 @@
+package utils;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingMultipartUploaderTest {
+
+    private static final String BUCKET_NAME = "reports";
+    private static final String KEY = "GET_FLAT_FILE_OPEN_LISTINGS_DATA/document";
+    private static final int PART_SIZE = 1000;
+    private static final int MAX_CONCURRENT_PARTS = 3;
+
+    private final StubS3 s3 = new StubS3();
+    private final StreamingMultipartUploader uploader = new StreamingMultipartUploader(s3, PART_SIZE,
+            MAX_CONCURRENT_PARTS);
+
+    @Test
+    public void upload_splitsIntoPartsWithShortFinalPart() throws Exception {
+        byte[] document = newDocument(7 * PART_SIZE + 123);
+
+        assertEquals(document.length, uploader.upload(BUCKET_NAME, KEY, new ByteArrayInputStream(document),
+                new ObjectMetadata()));
+
+        assertEquals(8, s3.completedParts.size());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(i + 1, s3.completedParts.get(i).getPartNumber());
+            assertEquals(PART_SIZE, s3.parts.get(i + 1).length);
+        }
+        assertEquals(123, s3.parts.get(8).length);
+        assertArrayEquals(document, s3.getCompletedObject());
+        assertFalse(s3.aborted);
+        assertNull(s3.putObject);
+    }
+
+    @Test
+    public void upload_exactMultipleOfPartSize_writesNoEmptyPart() throws Exception {
+        byte[] document = newDocument(3 * PART_SIZE);
+
+        uploader.upload(BUCKET_NAME, KEY, new TrickleInputStream(document), new ObjectMetadata());
+
+        assertEquals(3, s3.completedParts.size());
+        assertArrayEquals(document, s3.getCompletedObject());
+    }
+
+    @Test
+    public void upload_shortStream_usesPutObject() throws Exception {
+        byte[] document = newDocument(PART_SIZE - 1);
+
+        assertEquals(document.length, uploader.upload(BUCKET_NAME, KEY, new ByteArrayInputStream(document),
+                new ObjectMetadata()));
+
+        assertArrayEquals(document, s3.putObject);
+        assertEquals(document.length, s3.putObjectMetadata.getContentLength());
+        assertNull(s3.uploadId);
+    }
+
+    @Test
+    public void upload_emptyStream_putsEmptyObjectWithoutMultipartUpload() throws Exception {
+        assertEquals(0, uploader.upload(BUCKET_NAME, KEY, new ByteArrayInputStream(new byte[0]), new ObjectMetadata()));
+
+        assertArrayEquals(new byte[0], s3.putObject);
+        assertEquals(0, s3.putObjectMetadata.getContentLength());
+        assertNull(s3.uploadId);
+        assertTrue(s3.parts.isEmpty());
+    }
+
+    @Test
+    public void upload_partFailure_abortsMultipartUpload() {
+        s3.failingPartNumber = 4;
+
+        IOException e = assertThrows(IOException.class, () -> uploader.upload(BUCKET_NAME, KEY,
+                new ByteArrayInputStream(newDocument(10 * PART_SIZE)), new ObjectMetadata()));
+
+        assertEquals("Part 4 failed", e.getCause().getMessage());
+        assertTrue(s3.aborted);
+        assertNull(s3.completedParts);
+    }
+
+    @Test
+    public void upload_sourceFailure_abortsMultipartUpload() {
+        InputStream failingSource = new TrickleInputStream(newDocument(10 * PART_SIZE)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (getPosition() >= 5 * PART_SIZE) {
+                    throw new IOException("Source failed");
+                }
+                return super.read(b, off, len);
+            }
+        };
+
+        IOException e = assertThrows(IOException.class, () -> uploader.upload(BUCKET_NAME, KEY, failingSource,
+                new ObjectMetadata()));
+
+        assertEquals("Source failed", e.getMessage());
+        assertTrue(s3.aborted);
+        assertNull(s3.completedParts);
+    }
+
+    private static byte[] newDocument(int length) {
+        byte[] document = new byte[length];
+        new Random(length).nextBytes(document);
+
+        return document;
+    }
+
+    //Returns fewer bytes than asked for, like a network stream
+    private static class TrickleInputStream extends InputStream {
+
+        private final byte[] data;
+        private int position;
+
+        TrickleInputStream(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position == data.length) {
+                return -1;
+            }
+
+            int read = Math.min(Math.min(len, 333), data.length - position);
+            System.arraycopy(data, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        int getPosition() {
+            return position;
+        }
+    }
+
+    private static class StubS3 extends AbstractAmazonS3 {
+
+        private final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+        private volatile int failingPartNumber;
+        private volatile String uploadId;
+        private volatile List<PartETag> completedParts;
+        private volatile boolean aborted;
+        private volatile byte[] putObject;
+        private volatile ObjectMetadata putObjectMetadata;
+
+        @Override
+        public PutObjectResult putObject(PutObjectRequest request) {
+            putObject = readFully(request.getInputStream());
+            putObjectMetadata = request.getMetadata();
+
+            return new PutObjectResult();
+        }
+
+        @Override
+        public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+            uploadId = "upload-" + request.getKey();
+
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId(uploadId);
+            return result;
+        }
+
+        @Override
+        public UploadPartResult uploadPart(UploadPartRequest request) {
+            assertEquals(uploadId, request.getUploadId());
+            if (request.getPartNumber() == failingPartNumber) {
+                throw new IllegalStateException("Part " + failingPartNumber + " failed");
+            }
+
+            byte[] part = readFully(request.getInputStream());
+            assertEquals(request.getPartSize(), part.length);
+            parts.put(request.getPartNumber(), part);
+
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        }
+
+        @Override
+        public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            assertEquals(uploadId, request.getUploadId());
+            completedParts = new ArrayList<>(request.getPartETags());
+
+            return new CompleteMultipartUploadResult();
+        }
+
+        @Override
+        public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+            assertEquals(uploadId, request.getUploadId());
+            aborted = true;
+        }
+
+        //The object S3 assembles from the completed parts
+        byte[] getCompletedObject() {
+            ByteArrayOutputStream object = new ByteArrayOutputStream();
+            for (PartETag part : completedParts) {
+                assertEquals("etag-" + part.getPartNumber(), part.getETag());
+                object.write(parts.get(part.getPartNumber()), 0, parts.get(part.getPartNumber()).length);
+            }
+
+            return object.toByteArray();
+        }
+
+        private static byte[] readFully(InputStream inputStream) {
+            try {
+                return ByteStreams.toByteArray(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.ReportProcessingFinishedNotification;
+import utils.SPAPINotification;
+import utils.StateMachineInput;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per message cost of the Jackson mappings done by ReportNotificationProcessorHandler: reading the SP-API notification
+ * from the SQS message body and writing the state machine input. The cached reader and writer the handler uses are
+ * measured next to the plain ObjectMapper calls they replace.
+ * Run with: java -jar target/benchmarks.jar NotificationMappingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationMappingBenchmark {
+
+    //Body of a REPORT_PROCESSING_FINISHED notification as delivered by the SQS queue
+    private static final String NOTIFICATION_BODY = "{"
+            + "\"notificationVersion\":\"2020-09-04\","
+            + "\"notificationType\":\"REPORT_PROCESSING_FINISHED\","
+            + "\"payloadVersion\":\"2020-09-04\","
+            + "\"eventTime\":\"2026-01-01T10:15:30.123Z\","
+            + "\"payload\":{\"reportProcessingFinishedNotification\":{"
+            + "\"sellerId\":\"A3TH9S8BH6GOGM\","
+            + "\"accountId\":\"amzn1.merchant.o.A3TH9S8BH6GOGM\","
+            + "\"reportId\":\"54517018502\","
+            + "\"reportType\":\"GET_FLAT_FILE_ALL_ORDERS_DATA_BY_ORDER_DATE_GENERAL\","
+            + "\"processingStatus\":\"DONE\","
+            + "\"reportDocumentId\":\"amzn1.spdoc.1.4.na.3b1d8c4e-9f1a-4f5c-8a2e-0c9b2e6f7d1a.T3PVIRHQ3E4B1N.2611\"}},"
+            + "\"notificationMetadata\":{"
+            + "\"applicationId\":\"amzn1.sellerapps.app.f1234566-aaec-55a6-b123-bcb752069ec5\","
+            + "\"subscriptionId\":\"93b098e1-c42-2f45-93a1-78910a6a8369\","
+            + "\"publishTime\":\"2026-01-01T10:15:31.456Z\","
+            + "\"notificationId\":\"e3a059ca-2faf-4b0a-b5d3-8c4b7a1f2e3d\"}"
+            + "}";
+
+    private ObjectMapper mapper;
+    private ObjectReader notificationReader;
+    private ObjectWriter stateMachineInputWriter;
+    private StateMachineInput stateMachineInput;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        mapper = new ObjectMapper();
+        notificationReader = mapper.readerFor(SPAPINotification.class);
+        stateMachineInputWriter = mapper.writerFor(StateMachineInput.class);
+
+        ReportProcessingFinishedNotification notification = notificationReader.<SPAPINotification>readValue(NOTIFICATION_BODY)
+                .getPayload().getReportProcessingFinishedNotification();
+        stateMachineInput = StateMachineInput.builder()
+                .SellerId(notification.getSellerId())
+                .ReportId(notification.getReportId())
+                .ReportType(notification.getReportType())
+                .ProcessingStatus(notification.getProcessingStatus())
+                .ReportDocumentId(notification.getReportDocumentId())
+                .build();
+    }
+
+    @Benchmark
+    public SPAPINotification readNotification() throws JsonProcessingException {
+        return notificationReader.readValue(NOTIFICATION_BODY);
+    }
+
+    @Benchmark
+    public SPAPINotification readNotificationWithMapper() throws JsonProcessingException {
+        return mapper.readValue(NOTIFICATION_BODY, SPAPINotification.class);
+    }
+
+    @Benchmark
+    public String writeStateMachineInput() throws JsonProcessingException {
+        return stateMachineInputWriter.writeValueAsString(stateMachineInput);
+    }
+
+    @Benchmark
+    public String writeStateMachineInputWithMapper() throws JsonProcessingException {
+        return mapper.writeValueAsString(stateMachineInput);
+    }
+}
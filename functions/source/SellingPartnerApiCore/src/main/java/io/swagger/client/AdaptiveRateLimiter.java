@@ -0,0 +1,198 @@
+package io.swagger.client;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.squareup.okhttp.Request;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Client side token buckets for SP-API calls, one per rate limit scope (the selling partner the calls are made for)
+ * and operation, which is how SP-API applies its usage plans.
+ * Buckets start without a known rate and learn it from the x-amzn-RateLimit-Limit response header, so the client runs
+ * at the quota SP-API actually grants. SP-API doesn't advertise bursts: a 429 response empties the bucket and halves
+ * its burst, until it no longer exceeds the real one.
+ */
+public class AdaptiveRateLimiter {
+
+    public static final String RATE_LIMIT_HEADER = "x-amzn-RateLimit-Limit";
+
+    //Upper end of the SP-API bursts: a burst estimated too low would idle below the quota for good, while one estimated
+    //too high costs a 429, after which the bucket lowers it
+    private static final int DEFAULT_BURST = 30;
+    //Used when a call is throttled before any rate was advertised
+    private static final double DEFAULT_THROTTLED_RATE = 1.0;
+    private static final int MAX_BUCKETS = 10000;
+    private static final long BUCKET_EXPIRATION_MINUTES = 60;
+
+    //Path segments that are part of the operation, every other segment containing a digit is an identifier
+    private static final Pattern VERSION_SEGMENT_PATTERN = Pattern.compile("v\\d+|\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern IDENTIFIER_SEGMENT_PATTERN = Pattern.compile(".*\\d.*");
+
+    //Quotas are shared by every client acting for the same selling partner, so are the buckets
+    private static final AdaptiveRateLimiter SHARED = new AdaptiveRateLimiter(DEFAULT_BURST);
+
+    private final int burst;
+    private final Cache<String, TokenBucket> buckets = CacheBuilder.newBuilder()
+            .maximumSize(MAX_BUCKETS)
+            .expireAfterAccess(BUCKET_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    public AdaptiveRateLimiter(int burst) {
+        this.burst = burst;
+    }
+
+    public static AdaptiveRateLimiter getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Bucket of the given scope and operation, created with the given rate if it doesn't exist yet.
+     * A rate of zero or less means the rate is unknown until a response advertises it.
+     */
+    public TokenBucket getBucket(String scope, String operation, double initialRate) {
+        try {
+            return buckets.get(scope + "|" + operation, () -> new TokenBucket(initialRate, burst));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Identifies the operation of a request by its method, host and path, with the identifiers in the path replaced,
+     * e.g. GET sellingpartnerapi-na.amazon.com/reports/2021-06-30/reports/{id}.
+     */
+    public static String getOperation(Request request) {
+        return request.method() + " " + request.httpUrl().host() + getNormalizedPath(request);
+    }
+
+    /**
+     * Same as {@link #getOperation(Request)} without the host, which is the same operation in every region,
+     * e.g. GET /reports/2021-06-30/reports/{id}.
+     */
+    public static String getOperationPath(Request request) {
+        return request.method() + " " + getNormalizedPath(request);
+    }
+
+    private static String getNormalizedPath(Request request) {
+        StringBuilder path = new StringBuilder();
+
+        for (String segment : request.httpUrl().pathSegments()) {
+            path.append('/');
+            if (!VERSION_SEGMENT_PATTERN.matcher(segment).matches()
+                    && IDENTIFIER_SEGMENT_PATTERN.matcher(segment).matches()) {
+                path.append("{id}");
+            } else {
+                path.append(segment);
+            }
+        }
+
+        return path.toString();
+    }
+
+    public static final class TokenBucket {
+
+        private double capacity;
+        private double rate;
+        private double tokens;
+        private long lastRefillNanos;
+        private long lastThrottledNanos;
+
+        TokenBucket(double rate, double capacity) {
+            this.rate = rate > 0 ? rate : Double.POSITIVE_INFINITY;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * Takes a permit, waiting for it for at most the given time. Returns false, without taking a permit, if it
+         * would not be available in time.
+         */
+        public boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+            long waitNanos = reserve(unit.toNanos(timeout));
+            if (waitNanos < 0) {
+                return false;
+            }
+
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            return true;
+        }
+
+        //Permits are taken ahead of time, so concurrent callers queue up behind each other instead of all waking at once
+        private synchronized long reserve(long maxWaitNanos) {
+            refill();
+
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+
+            long waitNanos = (long) Math.ceil((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1));
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+
+            tokens -= 1;
+            return waitNanos;
+        }
+
+        /**
+         * Time until a permit is available, without taking it.
+         */
+        public synchronized long getPermitWaitMillis() {
+            refill();
+
+            if (tokens >= 1) {
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / rate * TimeUnit.SECONDS.toMillis(1));
+        }
+
+        /**
+         * Switches to the rate advertised by SP-API, in requests per second.
+         */
+        public synchronized void updateRate(double rate) {
+            if (rate > 0 && rate != this.rate) {
+                refill();
+                this.rate = rate;
+            }
+        }
+
+        /**
+         * Called when SP-API throttled a call: the quota is used up, whatever the bucket believed.
+         */
+        public synchronized void onThrottled() {
+            refill();
+            if (Double.isInfinite(rate)) {
+                rate = DEFAULT_THROTTLED_RATE;
+            }
+            //Calls that were in flight together get throttled together, that is a single overestimate of the burst
+            long now = System.nanoTime();
+            if (lastThrottledNanos == 0 || now - lastThrottledNanos > TimeUnit.SECONDS.toNanos(1) / rate) {
+                capacity = Math.max(1, Math.floor(capacity / 2));
+            }
+            lastThrottledNanos = now;
+            tokens = Math.min(tokens, 0);
+        }
+
+        public synchronized double getRate() {
+            return rate;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            if (Double.isInfinite(rate)) {
+                tokens = capacity;
+            } else {
+                double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+                tokens = Math.min(capacity, tokens + elapsedSeconds * rate);
+            }
+            lastRefillNanos = now;
+        }
+    }
+}
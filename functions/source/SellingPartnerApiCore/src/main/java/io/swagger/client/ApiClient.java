@@ -27,10 +27,13 @@ import javax.net.ssl.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.net.URLConnection;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.SecureRandom;
@@ -41,6 +44,7 @@ import java.security.cert.X509Certificate;
 import java.text.DateFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -52,11 +56,36 @@ import io.swagger.client.auth.OAuth;
 
 import com.amazon.SellingPartnerAPIAA.AWSSigV4Signer;
 import com.amazon.SellingPartnerAPIAA.LWAAuthorizationSigner;
-import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonParseException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.amazon.SellingPartnerAPIAA.RateLimitConfiguration;
 
 public class ApiClient {
 
+    //All SP-API calls of a region go to the same host, so the per host limit is what bounds a fan out of async calls
+    private static final int SHARED_MAX_REQUESTS = 64;
+    private static final int SHARED_MAX_REQUESTS_PER_HOST = 32;
+    private static final int SHARED_MAX_IDLE_CONNECTIONS = 32;
+    private static final long SHARED_KEEP_ALIVE_MILLIS = 60000;
+
+    //createReport and getReportDocument refill one request a minute once their burst is spent, so a throttled call is
+    //given fewer, longer waits than the default policy allows. Retries also wait for their rate limiter permit and are
+    //given up when it would come too late, see RetryInterceptor
+    private static final String CREATE_REPORT_OPERATION = "POST /reports/2021-06-30/reports";
+    private static final String GET_REPORT_DOCUMENT_OPERATION = "GET /reports/2021-06-30/documents/{id}";
+    private static final RetryPolicy LOW_RATE_RETRY_POLICY = ExponentialBackoffRetryPolicy.builder()
+            .maxAttempts(4)
+            .baseDelayMillis(1000)
+            .maxDelayMillis(15000)
+            .build();
+
+    //Shared by every ApiClient of the container, so async calls from different API instances are scheduled together
+    //and reuse each other's connections
+    private static final Dispatcher SHARED_DISPATCHER = createSharedDispatcher();
+    private static final ConnectionPool SHARED_CONNECTION_POOL =
+            new ConnectionPool(SHARED_MAX_IDLE_CONNECTIONS, SHARED_KEEP_ALIVE_MILLIS);
+
     private String basePath = "https://sellingpartnerapi-na.amazon.com";
     private boolean debugging = false;
     private Map<String, String> defaultHeaderMap = new HashMap<String, String>();
@@ -71,6 +100,7 @@ public class ApiClient {
 
     private InputStream sslCaCert;
     private boolean verifyingSsl;
+    private boolean streamingDeserialization = true;
     private KeyManager[] keyManagers;
 
     private OkHttpClient httpClient;
@@ -80,14 +110,22 @@ public class ApiClient {
 
     private LWAAuthorizationSigner lwaAuthorizationSigner;
     private AWSSigV4Signer awsSigV4Signer;
-    private RateLimiter rateLimiter;
-    private RateLimitConfiguration rateLimitConfiguration;
+    private RateLimitInterceptor rateLimitInterceptor;
+    private RetryInterceptor retryInterceptor;
 
     /*
      * Constructor for ApiClient
      */
     public ApiClient() {
         httpClient = new OkHttpClient();
+        httpClient.setDispatcher(SHARED_DISPATCHER);
+        httpClient.setConnectionPool(SHARED_CONNECTION_POOL);
+
+        //Retries run outside the rate limiter, so every attempt waits for its own permit
+        rateLimitInterceptor = new RateLimitInterceptor(AdaptiveRateLimiter.getShared());
+        retryInterceptor = new RetryInterceptor(createDefaultRetryPolicy(), RetryBudget.getShared(), rateLimitInterceptor);
+        httpClient.interceptors().add(retryInterceptor);
+        httpClient.interceptors().add(rateLimitInterceptor);
 
 
         verifyingSsl = true;
@@ -103,6 +141,26 @@ public class ApiClient {
         authentications = Collections.unmodifiableMap(authentications);
     }
 
+    private static Dispatcher createSharedDispatcher() {
+        Dispatcher dispatcher = new Dispatcher(Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("sp-api-dispatcher-%d")
+                .setDaemon(true)
+                .build()));
+        dispatcher.setMaxRequests(SHARED_MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(SHARED_MAX_REQUESTS_PER_HOST);
+
+        return dispatcher;
+    }
+
+    /**
+     * Get the dispatcher that runs the async calls of every ApiClient, e.g. to tune its concurrency limits.
+     *
+     * @return Shared dispatcher
+     */
+    public static Dispatcher getSharedDispatcher() {
+        return SHARED_DISPATCHER;
+    }
+
     /**
      * Get base path
      *
@@ -514,19 +572,78 @@ public class ApiClient {
      
     /**
      * Sets the RateLimiter
-     * A rate limiter is used to manage a high volume of traffic allowing N requests per second
+     * Requests are always rate limited per selling partner and operation, at the rate SP-API advertises in its
+     * responses. The configuration provides the rate used until then, and how long a request may wait for a permit:
+     * Long.MAX_VALUE waits as long as needed, otherwise the request fails once the timeout would be exceeded.
      * @return Api client
      */
      public ApiClient setRateLimiter(RateLimitConfiguration rateLimitConfiguration) {
           if (rateLimitConfiguration != null) {
-              rateLimiter = RateLimiter.create(rateLimitConfiguration.getRateLimitPermit());
-
-              //Add rateLimiter to httpclient interceptor for execute
-              RateLimitInterceptor rateLimiterInterceptor = new RateLimitInterceptor(rateLimiter, rateLimitConfiguration);
-              httpClient.interceptors().add(rateLimiterInterceptor);
+              rateLimitInterceptor.setInitialRate(rateLimitConfiguration.getRateLimitPermit());
+              rateLimitInterceptor.setTimeoutMillis(rateLimitConfiguration.getTimeOut());
           }
             return this;
      }
+
+    /**
+     * Sends requests without client side rate limiting.
+     * @return Api client
+     */
+    public ApiClient disableRateLimiter() {
+        httpClient.interceptors().remove(rateLimitInterceptor);
+        retryInterceptor.setRateLimitInterceptor(null);
+        return this;
+    }
+
+    /**
+     * Sets the scope requests are rate limited in, typically the selling partner id, or a constant for grantless
+     * operations. Without a scope, the access token the request is authorized with identifies it.
+     * @param rateLimitScope Rate limit scope
+     * @return Api client
+     */
+    public ApiClient setRateLimitScope(String rateLimitScope) {
+        rateLimitInterceptor.setScope(rateLimitScope);
+        return this;
+    }
+
+    /**
+     * Whether JSON responses are deserialized as they are read (the default), or read into a String first.
+     * @param streamingDeserialization True to deserialize JSON responses from the response stream
+     * @return Api client
+     */
+    public ApiClient setStreamingDeserialization(boolean streamingDeserialization) {
+        this.streamingDeserialization = streamingDeserialization;
+        return this;
+    }
+
+    static RetryPolicy createDefaultRetryPolicy() {
+        return new OperationRetryPolicy(ExponentialBackoffRetryPolicy.builder().build())
+                .withOperationPolicy(CREATE_REPORT_OPERATION, LOW_RATE_RETRY_POLICY)
+                .withOperationPolicy(GET_REPORT_DOCUMENT_OPERATION, LOW_RATE_RETRY_POLICY);
+    }
+
+    /**
+     * Sets the policy failed requests are retried with. By default 429 and 5xx responses, and connection failures of
+     * idempotent requests, are retried up to 3 attempts with a jittered exponential backoff, and up to 4 attempts with
+     * waits of up to 15 seconds for createReport and getReportDocument.
+     * A retry also waits for its rate limiter permit, and is not made if it could not be sent within 30 seconds of the
+     * first attempt. Retries are also bounded by a retry budget shared by every client of the container.
+     * @param retryPolicy Retry policy
+     * @return Api client
+     */
+    public ApiClient setRetryPolicy(RetryPolicy retryPolicy) {
+        retryInterceptor.setRetryPolicy(retryPolicy);
+        return this;
+    }
+
+    /**
+     * Sends requests only once, failures are returned to the caller as they are.
+     * @return Api client
+     */
+    public ApiClient disableRetries() {
+        httpClient.interceptors().remove(retryInterceptor);
+        return this;
+    }
      
      
     /**
@@ -737,6 +854,17 @@ public class ApiClient {
             return (T) downloadFileFromResponse(response);
         }
 
+        String contentType = response.headers().get("Content-Type");
+        if (contentType == null) {
+            // ensuring a default content type
+            contentType = "application/json";
+        }
+        if (streamingDeserialization && isJsonMime(contentType) && !returnType.equals(String.class)
+                && response.body() != null) {
+            return deserializeStream(response, returnType);
+        }
+
+        long allocatedBytesBefore = DeserializationMetrics.getAllocatedBytes();
         String respBody;
         try {
             if (response.body() != null)
@@ -751,13 +879,11 @@ public class ApiClient {
             return null;
         }
 
-        String contentType = response.headers().get("Content-Type");
-        if (contentType == null) {
-            // ensuring a default content type
-            contentType = "application/json";
-        }
         if (isJsonMime(contentType)) {
-            return json.deserialize(respBody, returnType);
+            T data = json.deserialize(respBody, returnType);
+            DeserializationMetrics.record(DeserializationMetrics.BUFFERED_PATH, returnType, allocatedBytesBefore,
+                    respBody.length());
+            return data;
         } else if (returnType.equals(String.class)) {
             // Expecting string, return the raw response body.
             return (T) respBody;
@@ -770,6 +896,25 @@ public class ApiClient {
         }
     }
 
+    /**
+     * Deserializes a JSON response body as it is read from the connection, so that the body is never held in memory
+     * as a whole next to the objects built from it.
+     */
+    private <T> T deserializeStream(Response response, Type returnType) throws ApiException {
+        long allocatedBytesBefore = DeserializationMetrics.getAllocatedBytes();
+        ResponseBody body = response.body();
+
+        try (Reader reader = body.charStream()) {
+            T data = json.deserialize(reader, returnType);
+            DeserializationMetrics.record(DeserializationMetrics.STREAMING_PATH, returnType, allocatedBytesBefore,
+                    body.contentLength());
+            return data;
+        } catch (IOException | JsonParseException e) {
+            //The body was consumed by the parser, it can't be attached to the exception
+            throw new ApiException(e.getMessage(), e, response.code(), response.headers().toMultimap());
+        }
+    }
+
     /**
      * Serialize the given Java object into request body according to the object's
      * class and the request Content-Type.
@@ -1257,27 +1402,170 @@ public class ApiClient {
 }
 
 class RateLimitInterceptor implements Interceptor {
-    RateLimiter rateLimiter;
-    RateLimitConfiguration rateLimitConfiguration;
+    //Long enough to ride out a short burst, short enough to fail well before the Lambda timeout
+    private static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+    private static final String ACCESS_TOKEN_HEADER = "x-amz-access-token";
+    private static final int THROTTLED_STATUS_CODE = 429;
+
+    private final AdaptiveRateLimiter rateLimiter;
+    private volatile String scope;
+    private volatile double initialRate;
+    private volatile long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
 
-    public RateLimitInterceptor(RateLimiter rateLimiter, RateLimitConfiguration rateLimitConfiguration) {
+    public RateLimitInterceptor(AdaptiveRateLimiter rateLimiter) {
         this.rateLimiter = rateLimiter;
-        this.rateLimitConfiguration = rateLimitConfiguration;
+    }
+
+    void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    void setInitialRate(double initialRate) {
+        this.initialRate = initialRate;
+    }
+
+    void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
-        if (rateLimitConfiguration.getTimeOut() == Long.MAX_VALUE) {
-            rateLimiter.acquire();
-        } else {
+        Request request = chain.request();
+        AdaptiveRateLimiter.TokenBucket bucket =
+                rateLimiter.getBucket(getScope(request), AdaptiveRateLimiter.getOperation(request), initialRate);
+
+        try {
+            if (!bucket.acquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                //Failing the call is what the caller asked for: sending it anyway would only get it throttled by SP-API
+                throw new RateLimitExceededException(String.format("Throttled by the client rate limiter: no permit available for %s "
+                        + "within %d ms at %s requests per second", request.method() + " " + request.httpUrl().encodedPath(),
+                        timeoutMillis, bucket.getRate()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a rate limit permit");
+        }
+
+        Response response = chain.proceed(request);
+
+        String rateLimit = response.header(AdaptiveRateLimiter.RATE_LIMIT_HEADER);
+        if (rateLimit != null) {
             try {
-                if (!rateLimiter.tryAcquire(rateLimitConfiguration.getTimeOut(), TimeUnit.MILLISECONDS)) {
-                    throw new ApiException("Throttled as per the ratelimiter on client");
+                bucket.updateRate(Double.parseDouble(rateLimit));
+            } catch (NumberFormatException e) {
+                //Keep the current rate
+            }
+        }
+        if (response.code() == THROTTLED_STATUS_CODE) {
+            bucket.onThrottled();
+        }
+
+        return response;
+    }
+
+    /**
+     * Time until the request would get a permit, for the retry of a throttled request to wait it out instead of
+     * running into the permit timeout.
+     */
+    long getPermitWaitMillis(Request request) {
+        return rateLimiter.getBucket(getScope(request), AdaptiveRateLimiter.getOperation(request), initialRate)
+                .getPermitWaitMillis();
+    }
+
+    private String getScope(Request request) {
+        if (scope != null) {
+            return scope;
+        }
+
+        String accessToken = request.header(ACCESS_TOKEN_HEADER);
+        return accessToken == null
+                ? ""
+                : Hashing.murmur3_128().hashString(accessToken, StandardCharsets.UTF_8).toString();
+    }
+}
+
+class RetryInterceptor implements Interceptor {
+    //No retry is started later than this after the call started. With the permit wait of the last attempt, a call waits
+    //at most 40 seconds in total, within the 60 second timeout of the functions
+    private static final long MAX_RETRY_START_MILLIS = 30000;
+
+    private final RetryBudget retryBudget;
+    private volatile RetryPolicy retryPolicy;
+    private volatile RateLimitInterceptor rateLimitInterceptor;
+
+    public RetryInterceptor(RetryPolicy retryPolicy, RetryBudget retryBudget, RateLimitInterceptor rateLimitInterceptor) {
+        this.retryPolicy = retryPolicy;
+        this.retryBudget = retryBudget;
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
+    void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    void setRateLimitInterceptor(RateLimitInterceptor rateLimitInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        long startNanos = System.nanoTime();
+
+        for (int attempt = 1; ; attempt++) {
+            Response response = null;
+            IOException exception = null;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
                 }
-            } catch (ApiException e) {
-                e.printStackTrace();
+                exception = e;
+            }
+
+            if (response != null && response.isSuccessful()) {
+                retryBudget.onSuccess();
+                return response;
             }
+
+            long delayMillis = getRetryDelayMillis(request, response, exception, attempt, startNanos);
+            if (delayMillis < 0 || !retryBudget.tryAcquireRetry()) {
+                if (exception != null) {
+                    throw exception;
+                }
+                return response;
+            }
+
+            //The connection goes back to the pool only once the discarded body is closed
+            if (response != null) {
+                response.body().close();
+            }
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retry " + request.method() + " "
+                        + request.httpUrl().encodedPath());
+            }
+        }
+    }
+
+    //A throttled bucket may only have a permit after a longer wait than the backoff, the retry waits for it so that it
+    //isn't failed by the permit timeout. A retry that could not start in time is not made, the failure is returned
+    private long getRetryDelayMillis(Request request, Response response, IOException exception, int attempt, long startNanos) {
+        long delayMillis = retryPolicy.getRetryDelayMillis(request, response, exception, attempt);
+        if (delayMillis < 0) {
+            return delayMillis;
         }
-        return chain.proceed(chain.request());
+
+        RateLimitInterceptor rateLimitInterceptor = this.rateLimitInterceptor;
+        if (rateLimitInterceptor != null) {
+            delayMillis = Math.max(delayMillis, rateLimitInterceptor.getPermitWaitMillis(request));
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return elapsedMillis + delayMillis > MAX_RETRY_START_MILLIS ? -1 : delayMillis;
     }
 }
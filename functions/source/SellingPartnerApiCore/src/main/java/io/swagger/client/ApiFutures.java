@@ -0,0 +1,84 @@
+package io.swagger.client;
+
+import com.squareup.okhttp.Call;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Adapts the callback based *Async methods of the generated APIs to CompletableFuture, so that a single invocation can
+ * fan out many SP-API calls and compose their results.
+ * Futures complete on the threads of the shared OkHttp dispatcher: dependent stages doing more than light work should
+ * use the *Async variants of CompletableFuture with their own executor.
+ */
+public final class ApiFutures {
+
+    private ApiFutures() {
+    }
+
+    /**
+     * Enqueues an API call given a callback, e.g. {@code callback -> reportsApi.getReportAsync(reportId, callback)}.
+     */
+    @FunctionalInterface
+    public interface AsyncCall<T> {
+        Call enqueue(ApiCallback<T> callback) throws ApiException;
+    }
+
+    /**
+     * Starts the call and returns a future completed with its result, or with the ApiException it failed with.
+     * Cancelling the future cancels the underlying HTTP call.
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(AsyncCall<T> asyncCall) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        Call call;
+        try {
+            call = asyncCall.enqueue(new ApiCallback<T>() {
+                @Override
+                public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+                    future.completeExceptionally(e);
+                }
+
+                @Override
+                public void onSuccess(T result, int statusCode, Map<String, List<String>> responseHeaders) {
+                    future.complete(result);
+                }
+
+                @Override
+                public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+                }
+
+                @Override
+                public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+                }
+            });
+        } catch (ApiException e) {
+            //The request could not be built or signed, nothing was sent
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Returns the exception an API call failed with, unwrapping the wrappers added by CompletableFuture.
+     */
+    public static Throwable unwrap(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        return cause;
+    }
+}
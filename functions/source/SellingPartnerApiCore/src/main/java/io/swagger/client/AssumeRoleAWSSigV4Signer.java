@@ -0,0 +1,42 @@
+package io.swagger.client;
+
+import com.amazon.SellingPartnerAPIAA.AWSAuthenticationCredentials;
+import com.amazon.SellingPartnerAPIAA.AWSAuthenticationCredentialsProvider;
+import com.amazon.SellingPartnerAPIAA.AWSSigV4Signer;
+import com.squareup.okhttp.Request;
+
+/**
+ * Signs requests with the credentials of the role registered in the SP-API app, taken from
+ * {@link AssumedRoleCredentialsCache} instead of assuming the role for each new client.
+ * Signing itself is done by {@link SigV4RequestSigner}, which reuses signing keys across requests and clients.
+ */
+public class AssumeRoleAWSSigV4Signer extends AWSSigV4Signer {
+
+    private static final String SERVICE_NAME = "execute-api";
+
+    private final AWSAuthenticationCredentials awsAuthenticationCredentials;
+    private final AWSAuthenticationCredentialsProvider awsAuthenticationCredentialsProvider;
+    private final AssumedRoleCredentialsCache credentialsCache;
+    private final SigV4RequestSigner requestSigner;
+
+    public AssumeRoleAWSSigV4Signer(AWSAuthenticationCredentials awsAuthenticationCredentials,
+                                    AWSAuthenticationCredentialsProvider awsAuthenticationCredentialsProvider) {
+        this(awsAuthenticationCredentials, awsAuthenticationCredentialsProvider, AssumedRoleCredentialsCache.getShared());
+    }
+
+    public AssumeRoleAWSSigV4Signer(AWSAuthenticationCredentials awsAuthenticationCredentials,
+                                    AWSAuthenticationCredentialsProvider awsAuthenticationCredentialsProvider,
+                                    AssumedRoleCredentialsCache credentialsCache) {
+        super(awsAuthenticationCredentials, awsAuthenticationCredentialsProvider);
+        this.awsAuthenticationCredentials = awsAuthenticationCredentials;
+        this.awsAuthenticationCredentialsProvider = awsAuthenticationCredentialsProvider;
+        this.credentialsCache = credentialsCache;
+        this.requestSigner = new SigV4RequestSigner(awsAuthenticationCredentials.getRegion(), SERVICE_NAME);
+    }
+
+    @Override
+    public Request sign(Request originalRequest) {
+        return requestSigner.sign(originalRequest,
+                credentialsCache.getCredentials(awsAuthenticationCredentials, awsAuthenticationCredentialsProvider));
+    }
+}
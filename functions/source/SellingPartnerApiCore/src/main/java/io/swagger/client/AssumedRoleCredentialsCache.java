@@ -0,0 +1,110 @@
+package io.swagger.client;
+
+import com.amazon.SellingPartnerAPIAA.AWSAuthenticationCredentials;
+import com.amazon.SellingPartnerAPIAA.AWSAuthenticationCredentialsProvider;
+import com.amazonaws.auth.AWSSessionCredentials;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.auth.BasicSessionCredentials;
+import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
+import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClientBuilder;
+import com.amazonaws.services.securitytoken.model.AssumeRoleRequest;
+import com.amazonaws.services.securitytoken.model.Credentials;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.Value;
+import utils.AwsClients;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Credentials of the role registered in the SP-API app, assumed once per role and region and shared by every client of
+ * the container for as long as the session is valid.
+ * Sessions are renewed well before they expire: the first call after the renewal point triggers an AssumeRole call in
+ * the background and keeps signing with the current session meanwhile, so warm invocations never wait for STS. Only a
+ * container idle for longer than the session validity assumes the role on the calling thread.
+ */
+public class AssumedRoleCredentialsCache {
+
+    private static final int SESSION_DURATION_SECONDS = 3600;
+    //Past this age the session is renewed in the background, past the expiration age it is not used anymore
+    private static final long REFRESH_AFTER_SECONDS = 2700;
+    private static final long EXPIRE_AFTER_SECONDS = 3300;
+    private static final long MAX_CACHED_SESSIONS = 100;
+
+    //Shared across warm invocations of the same container
+    private static final AssumedRoleCredentialsCache SHARED = new AssumedRoleCredentialsCache();
+
+    private final LoadingCache<SessionKey, AWSSessionCredentials> sessions;
+
+    public AssumedRoleCredentialsCache() {
+        Executor refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("sts-session-refresh-%d")
+                .setDaemon(true)
+                .build());
+
+        sessions = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_SESSIONS)
+                .refreshAfterWrite(REFRESH_AFTER_SECONDS, TimeUnit.SECONDS)
+                .expireAfterWrite(EXPIRE_AFTER_SECONDS, TimeUnit.SECONDS)
+                .build(CacheLoader.asyncReloading(CacheLoader.from(AssumedRoleCredentialsCache::assumeRole), refreshExecutor));
+    }
+
+    public static AssumedRoleCredentialsCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Session credentials of the role, assumed with the given IAM user credentials in their region.
+     */
+    public AWSSessionCredentials getCredentials(AWSAuthenticationCredentials userCredentials,
+                                                AWSAuthenticationCredentialsProvider roleProvider) {
+        SessionKey key = new SessionKey(roleProvider.getRoleArn(), roleProvider.getRoleSessionName(),
+                userCredentials.getRegion(), userCredentials.getAccessKeyId(), userCredentials.getSecretKey());
+
+        try {
+            return sessions.get(key);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalStateException(String.format("Assuming role %s failed", roleProvider.getRoleArn()), e.getCause());
+        }
+    }
+
+    public void invalidateAll() {
+        sessions.invalidateAll();
+    }
+
+    private static AWSSessionCredentials assumeRole(SessionKey key) {
+        AWSSecurityTokenService sts = AwsClients.withEndpoint(AWSSecurityTokenServiceClientBuilder.standard(), key.getRegion())
+                .withCredentials(new AWSStaticCredentialsProvider(
+                        new BasicAWSCredentials(key.getAccessKeyId(), key.getSecretKey())))
+                .build();
+
+        try {
+            AssumeRoleRequest assumeRoleRequest = new AssumeRoleRequest()
+                    .withRoleArn(key.getRoleArn())
+                    .withRoleSessionName(key.getRoleSessionName())
+                    .withDurationSeconds(SESSION_DURATION_SECONDS);
+
+            Credentials credentials = sts.assumeRole(assumeRoleRequest).getCredentials();
+            return new BasicSessionCredentials(credentials.getAccessKeyId(), credentials.getSecretAccessKey(),
+                    credentials.getSessionToken());
+        } finally {
+            sts.shutdown();
+        }
+    }
+
+    @Value
+    private static class SessionKey {
+        String roleArn;
+        String roleSessionName;
+        String region;
+        String accessKeyId;
+        String secretKey;
+    }
+}
@@ -0,0 +1,78 @@
+package io.swagger.client;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+
+/**
+ * Measures the heap allocated by the deserialization of each response, on the calling thread, to compare the streaming
+ * and the buffered deserialization paths on real traffic.
+ * Disabled unless the DESERIALIZATION_METRICS_ENABLED environment variable is true. When enabled, every deserialization
+ * logs a line in CloudWatch embedded metric format, with the path and the return type as dimensions.
+ */
+public final class DeserializationMetrics {
+
+    public static final String STREAMING_PATH = "Streaming";
+    public static final String BUFFERED_PATH = "Buffered";
+
+    private static final String ENABLED_ENV_VARIABLE = "DESERIALIZATION_METRICS_ENABLED";
+    private static final String METRICS_NAMESPACE = "SPAPIReportsNotifications";
+    private static final String METRIC_FORMAT = "{\"_aws\":{\"Timestamp\":%d,\"CloudWatchMetrics\":[{\"Namespace\":\"%s\","
+            + "\"Dimensions\":[[\"DeserializationPath\",\"ReturnType\"]],\"Metrics\":[{\"Name\":\"AllocatedBytes\",\"Unit\":\"Bytes\"},"
+            + "{\"Name\":\"ResponseBytes\",\"Unit\":\"Bytes\"}]}]},"
+            + "\"DeserializationPath\":\"%s\",\"ReturnType\":\"%s\",\"AllocatedBytes\":%d,\"ResponseBytes\":%d}";
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getenv(ENABLED_ENV_VARIABLE));
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
+    private DeserializationMetrics() {
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or -1 when metrics are disabled or not supported by the JVM.
+     */
+    public static long getAllocatedBytes() {
+        if (!ENABLED || THREAD_MX_BEAN == null) {
+            return -1;
+        }
+
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Logs the bytes allocated by the current thread since the given {@link #getAllocatedBytes()} value.
+     *
+     * @param path          Deserialization path
+     * @param returnType    The type the response was deserialized into
+     * @param startBytes    Value of {@link #getAllocatedBytes()} before deserializing
+     * @param responseBytes Size of the response body, -1 if unknown
+     */
+    public static void record(String path, Type returnType, long startBytes, long responseBytes) {
+        if (startBytes < 0) {
+            return;
+        }
+
+        long allocatedBytes = getAllocatedBytes() - startBytes;
+        System.out.println(String.format(METRIC_FORMAT, System.currentTimeMillis(), METRICS_NAMESPACE, path,
+                getTypeName(returnType), allocatedBytes, responseBytes));
+    }
+
+    private static String getTypeName(Type type) {
+        return type instanceof Class ? ((Class<?>) type).getSimpleName() : type.getTypeName();
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!allocationMXBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+
+        allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+        return allocationMXBean;
+    }
+}
@@ -0,0 +1,136 @@
+package io.swagger.client;
+
+import com.google.common.collect.ImmutableSet;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries the given status codes, and connection failures, with an exponential backoff and full jitter, so clients
+ * throttled together don't retry together. A Retry-After header is honored when it asks for a longer wait, and the call
+ * is not retried when it asks for more than the maximum delay.
+ * Calls with a non idempotent method (POST, PATCH) are only retried on the status codes that guarantee they were not
+ * processed, 429 and 503, since retrying them after a timeout or a 500 could e.g. create a report twice.
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES = ImmutableSet.of(429, 500, 502, 503, 504);
+    private static final Set<Integer> NOT_PROCESSED_STATUS_CODES = ImmutableSet.of(429, 503);
+    private static final Set<String> IDEMPOTENT_METHODS = ImmutableSet.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Set<Integer> retryableStatusCodes;
+    private final boolean retryConnectionFailures;
+
+    private ExponentialBackoffRetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelayMillis = builder.baseDelayMillis;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.retryableStatusCodes = ImmutableSet.copyOf(builder.retryableStatusCodes);
+        this.retryConnectionFailures = builder.retryConnectionFailures;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public long getRetryDelayMillis(Request request, Response response, IOException exception, int attempt) {
+        if (attempt >= maxAttempts || !isRetryable(request, response, exception)) {
+            return -1;
+        }
+
+        long backoffCeiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        long delay = ThreadLocalRandom.current().nextLong(backoffCeiling + 1);
+
+        long retryAfter = response == null ? -1 : getRetryAfterMillis(response.header(RETRY_AFTER_HEADER));
+        if (retryAfter > maxDelayMillis) {
+            return -1;
+        }
+
+        return Math.max(delay, retryAfter);
+    }
+
+    private boolean isRetryable(Request request, Response response, IOException exception) {
+        boolean idempotent = IDEMPOTENT_METHODS.contains(request.method());
+
+        if (exception != null) {
+            //The request was not sent, the caller asked not to wait any longer for it
+            if (exception instanceof RateLimitExceededException) {
+                return false;
+            }
+            return retryConnectionFailures && idempotent;
+        }
+
+        return retryableStatusCodes.contains(response.code())
+                && (idempotent || NOT_PROCESSED_STATUS_CODES.contains(response.code()));
+    }
+
+    //Retry-After is either a number of seconds or an HTTP date
+    private static long getRetryAfterMillis(String retryAfter) {
+        if (retryAfter == null || retryAfter.isEmpty()) {
+            return -1;
+        }
+
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+
+    public static class Builder {
+        private int maxAttempts = 3;
+        private long baseDelayMillis = 200;
+        private long maxDelayMillis = 10000;
+        private Set<Integer> retryableStatusCodes = DEFAULT_RETRYABLE_STATUS_CODES;
+        private boolean retryConnectionFailures = true;
+
+        /**
+         * Total number of attempts, including the first one. 1 disables retries.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder baseDelayMillis(long baseDelayMillis) {
+            this.baseDelayMillis = baseDelayMillis;
+            return this;
+        }
+
+        public Builder maxDelayMillis(long maxDelayMillis) {
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        public Builder retryableStatusCodes(Set<Integer> retryableStatusCodes) {
+            this.retryableStatusCodes = retryableStatusCodes;
+            return this;
+        }
+
+        public Builder retryConnectionFailures(boolean retryConnectionFailures) {
+            this.retryConnectionFailures = retryConnectionFailures;
+            return this;
+        }
+
+        public ExponentialBackoffRetryPolicy build() {
+            return new ExponentialBackoffRetryPolicy(this);
+        }
+    }
+}
@@ -27,10 +27,10 @@ import org.threeten.bp.LocalDate;
 import org.threeten.bp.OffsetDateTime;
 import org.threeten.bp.format.DateTimeFormatter;
 
-import io.swagger.client.model.*;
 import okio.ByteString;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.lang.reflect.Type;
 import java.text.DateFormat;
@@ -41,7 +41,12 @@ import java.util.Map;
 import java.util.HashMap;
 
 public class JSON {
-    private Gson gson;
+    //Building Gson and its reflective type adapters is one of the most expensive steps of a cold start, so the default
+    //configuration is built once per container and shared until an instance customizes its date formats
+    private static final Gson DEFAULT_GSON = createGson(new DateTypeAdapter(), new SqlDateTypeAdapter(),
+            new OffsetDateTimeTypeAdapter(), new LocalDateTypeAdapter(), new ByteArrayAdapter());
+
+    private Gson gson = DEFAULT_GSON;
     private boolean isLenientOnJson = false;
     private DateTypeAdapter dateTypeAdapter = new DateTypeAdapter();
     private SqlDateTypeAdapter sqlDateTypeAdapter = new SqlDateTypeAdapter();
@@ -73,7 +78,12 @@ public class JSON {
     }
 
     public JSON() {
-        gson = createGson()
+    }
+
+    private static Gson createGson(DateTypeAdapter dateTypeAdapter, SqlDateTypeAdapter sqlDateTypeAdapter,
+                                   OffsetDateTimeTypeAdapter offsetDateTimeTypeAdapter,
+                                   LocalDateTypeAdapter localDateTypeAdapter, ByteArrayAdapter byteArrayAdapter) {
+        return createGson()
             .registerTypeAdapter(Date.class, dateTypeAdapter)
             .registerTypeAdapter(java.sql.Date.class, sqlDateTypeAdapter)
             .registerTypeAdapter(OffsetDateTime.class, offsetDateTimeTypeAdapter)
@@ -82,6 +92,16 @@ public class JSON {
             .create();
     }
 
+    /**
+     * Switch from the shared Gson to one bound to this instance's adapters, so format changes stay local to it.
+     */
+    private void ensureOwnGson() {
+        if (gson == DEFAULT_GSON) {
+            gson = createGson(dateTypeAdapter, sqlDateTypeAdapter, offsetDateTimeTypeAdapter, localDateTypeAdapter,
+                    byteArrayAdapter);
+        }
+    }
+
     /**
      * Get Gson.
      *
@@ -145,10 +165,25 @@ public class JSON {
         }
     }
 
+    /**
+     * Deserialize the JSON read from the given reader to Java object, without buffering it.
+     * An empty input deserializes to null.
+     *
+     * @param <T>        Type
+     * @param reader     The reader of the JSON
+     * @param returnType The type to deserialize into
+     * @return The deserialized Java object
+     */
+    public <T> T deserialize(Reader reader, Type returnType) {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(isLenientOnJson);
+        return gson.fromJson(jsonReader, returnType);
+    }
+
     /**
      * Gson TypeAdapter for Byte Array type
      */
-    public class ByteArrayAdapter extends TypeAdapter<byte[]> {
+    public static class ByteArrayAdapter extends TypeAdapter<byte[]> {
 
         @Override
         public void write(JsonWriter out, byte[] value) throws IOException {
@@ -220,7 +255,7 @@ public class JSON {
     /**
      * Gson TypeAdapter for JSR310 LocalDate type
      */
-    public class LocalDateTypeAdapter extends TypeAdapter<LocalDate> {
+    public static class LocalDateTypeAdapter extends TypeAdapter<LocalDate> {
 
         private DateTimeFormatter formatter;
 
@@ -259,11 +294,13 @@ public class JSON {
     }
 
     public JSON setOffsetDateTimeFormat(DateTimeFormatter dateFormat) {
+        ensureOwnGson();
         offsetDateTimeTypeAdapter.setFormat(dateFormat);
         return this;
     }
 
     public JSON setLocalDateFormat(DateTimeFormatter dateFormat) {
+        ensureOwnGson();
         localDateTypeAdapter.setFormat(dateFormat);
         return this;
     }
@@ -382,11 +419,13 @@ public class JSON {
     }
 
     public JSON setDateFormat(DateFormat dateFormat) {
+        ensureOwnGson();
         dateTypeAdapter.setFormat(dateFormat);
         return this;
     }
 
     public JSON setSqlDateFormat(DateFormat dateFormat) {
+        ensureOwnGson();
         sqlDateTypeAdapter.setFormat(dateFormat);
         return this;
     }
@@ -0,0 +1,34 @@
+package io.swagger.client;
+
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Applies a different retry policy per operation, e.g. more patience for an operation with a low rate limit, and a
+ * default policy to the others. Operations are named as in {@link AdaptiveRateLimiter#getOperation(Request)} without
+ * the host, e.g. "POST /reports/2021-06-30/reports" or "GET /reports/2021-06-30/documents/{id}".
+ */
+public class OperationRetryPolicy implements RetryPolicy {
+
+    private final RetryPolicy defaultPolicy;
+    private final Map<String, RetryPolicy> operationPolicies = new HashMap<>();
+
+    public OperationRetryPolicy(RetryPolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    public OperationRetryPolicy withOperationPolicy(String operation, RetryPolicy policy) {
+        operationPolicies.put(operation, policy);
+        return this;
+    }
+
+    @Override
+    public long getRetryDelayMillis(Request request, Response response, IOException exception, int attempt) {
+        RetryPolicy policy = operationPolicies.getOrDefault(AdaptiveRateLimiter.getOperationPath(request), defaultPolicy);
+        return policy.getRetryDelayMillis(request, response, exception, attempt);
+    }
+}
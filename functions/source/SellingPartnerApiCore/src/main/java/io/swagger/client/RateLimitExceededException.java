@@ -0,0 +1,14 @@
+package io.swagger.client;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the client side rate limiter has no permit for a request within the allowed wait.
+ * The request was not sent.
+ */
+public class RateLimitExceededException extends IOException {
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package io.swagger.client;
+
+/**
+ * Caps the share of retries in the traffic of the container: every retry spends tokens and every successful call
+ * gives some back. A short burst of failures is retried, while a sustained outage quickly stops being retried, so
+ * retries don't multiply the load on an API that is already failing.
+ */
+public class RetryBudget {
+
+    private static final int DEFAULT_CAPACITY = 100;
+    private static final int DEFAULT_RETRY_COST = 5;
+    private static final int DEFAULT_SUCCESS_REFUND = 1;
+
+    //Shared by every ApiClient of the container, like the load it protects
+    private static final RetryBudget SHARED = new RetryBudget(DEFAULT_CAPACITY, DEFAULT_RETRY_COST, DEFAULT_SUCCESS_REFUND);
+
+    private final int capacity;
+    private final int retryCost;
+    private final int successRefund;
+    private int tokens;
+
+    public RetryBudget(int capacity, int retryCost, int successRefund) {
+        this.capacity = capacity;
+        this.retryCost = retryCost;
+        this.successRefund = successRefund;
+        this.tokens = capacity;
+    }
+
+    public static RetryBudget getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Takes the cost of a retry from the budget, if there is enough left.
+     */
+    public synchronized boolean tryAcquireRetry() {
+        if (tokens < retryCost) {
+            return false;
+        }
+
+        tokens -= retryCost;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        tokens = Math.min(capacity, tokens + successRefund);
+    }
+
+    public synchronized int getTokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,25 @@
+package io.swagger.client;
+
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+import java.io.IOException;
+
+/**
+ * Decides whether a failed SP-API call is sent again, and after how long.
+ * Retries happen inside ApiClient, so a transient throttle or outage is absorbed by the invocation that hit it instead
+ * of failing it and having the caller start over.
+ */
+public interface RetryPolicy {
+
+    /**
+     * Returns the delay before the next attempt, or a negative value if the call must not be retried.
+     *
+     * @param request The request that failed
+     * @param response The response it failed with, or null if it failed with an exception
+     * @param exception The exception it failed with, or null if a response was received
+     * @param attempt The number of the attempt that failed, starting at 1
+     * @return Delay in milliseconds
+     */
+    long getRetryDelayMillis(Request request, Response response, IOException exception, int attempt);
+}
@@ -0,0 +1,256 @@
+package io.swagger.client;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSSessionCredentials;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.BaseEncoding;
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.Request;
+import okio.Buffer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Signs OkHttp requests with AWS Signature Version 4, directly from the request and without converting it to an AWS
+ * SDK request first.
+ * The signing key only depends on the secret key, the day, the region and the service, so it is derived once and
+ * cached instead of being recomputed with four HMACs for every request. The signer holds no mutable state: HMAC and
+ * digest instances are per thread, so a single instance can sign from any number of threads without locking.
+ */
+public final class SigV4RequestSigner {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String TERMINATOR = "aws4_request";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String HOST_HEADER = "host";
+    private static final String DATE_HEADER = "x-amz-date";
+    private static final String SECURITY_TOKEN_HEADER = "x-amz-security-token";
+    private static final String AUTHORIZATION_HEADER = "authorization";
+    //Same exclusions as the AWS SDK signer
+    private static final Set<String> UNSIGNED_HEADERS = ImmutableSet.of("connection", "x-amzn-trace-id", AUTHORIZATION_HEADER);
+
+    private static final Comparator<String[]> QUERY_PARAMETER_ORDER = Comparator.<String[], String>comparing(p -> p[0])
+            .thenComparing(p -> p[1]);
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final int DATE_LENGTH = 8;
+
+    private static final int MAX_SIGNING_KEYS = 100;
+    //Keys are valid for a day, a few per container: one per credentials, region and service
+    private static final Cache<String, byte[]> SIGNING_KEYS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SIGNING_KEYS)
+            .build();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<Mac> HMAC_SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final String EMPTY_PAYLOAD_HASH = hex(sha256(new byte[0]));
+
+    private final String region;
+    private final String service;
+
+    public SigV4RequestSigner(String region, String service) {
+        this.region = region;
+        this.service = service;
+    }
+
+    public Request sign(Request request, AWSCredentials credentials) {
+        return sign(request, credentials, ZonedDateTime.now(ZoneOffset.UTC));
+    }
+
+    Request sign(Request request, AWSCredentials credentials, ZonedDateTime signingTime) {
+        String dateTime = DATE_TIME_FORMAT.format(signingTime);
+        String date = dateTime.substring(0, DATE_LENGTH);
+        String scope = date + "/" + region + "/" + service + "/" + TERMINATOR;
+
+        HttpUrl url = request.httpUrl();
+        Request.Builder signedRequest = request.newBuilder()
+                .header(HOST_HEADER, getHost(url))
+                .header(DATE_HEADER, dateTime);
+        if (credentials instanceof AWSSessionCredentials) {
+            signedRequest.header(SECURITY_TOKEN_HEADER, ((AWSSessionCredentials) credentials).getSessionToken());
+        }
+        Request unsignedRequest = signedRequest.build();
+
+        Map<String, String> canonicalHeaders = getCanonicalHeaders(unsignedRequest);
+        String signedHeaders = String.join(";", canonicalHeaders.keySet());
+
+        StringBuilder canonicalRequest = new StringBuilder(512)
+                .append(request.method()).append('\n')
+                .append(getCanonicalPath(url)).append('\n')
+                .append(getCanonicalQuery(url)).append('\n');
+        for (Map.Entry<String, String> header : canonicalHeaders.entrySet()) {
+            canonicalRequest.append(header.getKey()).append(':').append(header.getValue()).append('\n');
+        }
+        canonicalRequest.append('\n')
+                .append(signedHeaders).append('\n')
+                .append(getPayloadHash(request));
+
+        String stringToSign = ALGORITHM + "\n" + dateTime + "\n" + scope + "\n"
+                + hex(sha256(canonicalRequest.toString().getBytes(StandardCharsets.UTF_8)));
+
+        byte[] signingKey = getSigningKey(credentials.getAWSSecretKey(), date);
+        String signature = hex(hmac(signingKey, stringToSign));
+
+        return unsignedRequest.newBuilder()
+                .header(AUTHORIZATION_HEADER, ALGORITHM + " Credential=" + credentials.getAWSAccessKeyId() + "/" + scope
+                        + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature)
+                .build();
+    }
+
+    private byte[] getSigningKey(String secretKey, String date) {
+        String cacheKey = date + "/" + region + "/" + service + "/" + secretKey;
+
+        try {
+            return SIGNING_KEYS.get(cacheKey, () -> deriveSigningKey(secretKey, date, region, service));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Derives the SigV4 signing key, which is what every signature is computed with.
+     */
+    public static byte[] deriveSigningKey(String secretKey, String date, String region, String service) {
+        byte[] dateKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        byte[] regionKey = hmac(dateKey, region);
+        byte[] serviceKey = hmac(regionKey, service);
+        return hmac(serviceKey, TERMINATOR);
+    }
+
+    private static Map<String, String> getCanonicalHeaders(Request request) {
+        Map<String, String> canonicalHeaders = new TreeMap<>();
+
+        for (String name : request.headers().names()) {
+            String canonicalName = name.toLowerCase();
+            if (UNSIGNED_HEADERS.contains(canonicalName)) {
+                continue;
+            }
+
+            List<String> values = new ArrayList<>();
+            for (String value : request.headers(name)) {
+                values.add(value.trim().replaceAll("\\s+", " "));
+            }
+            canonicalHeaders.merge(canonicalName, String.join(",", values), (a, b) -> a + "," + b);
+        }
+
+        return canonicalHeaders;
+    }
+
+    //Segments are encoded from their decoded form, like the AWS SDK signer does for execute-api
+    private static String getCanonicalPath(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        if (segments.isEmpty()) {
+            return "/";
+        }
+
+        StringBuilder path = new StringBuilder();
+        for (String segment : segments) {
+            path.append('/').append(encode(segment));
+        }
+        return path.toString();
+    }
+
+    //Sorted by encoded name, then by encoded value: sorting name=value pairs would put "a-b=" before "a="
+    private static String getCanonicalQuery(HttpUrl url) {
+        if (url.querySize() == 0) {
+            return "";
+        }
+
+        List<String[]> parameters = new ArrayList<>(url.querySize());
+        for (int i = 0; i < url.querySize(); i++) {
+            String value = url.queryParameterValue(i);
+            parameters.add(new String[]{encode(url.queryParameterName(i)), value == null ? "" : encode(value)});
+        }
+        parameters.sort(QUERY_PARAMETER_ORDER);
+
+        StringBuilder query = new StringBuilder();
+        for (String[] parameter : parameters) {
+            if (query.length() > 0) {
+                query.append('&');
+            }
+            query.append(parameter[0]).append('=').append(parameter[1]);
+        }
+        return query.toString();
+    }
+
+    private static String getPayloadHash(Request request) {
+        if (request.body() == null) {
+            return EMPTY_PAYLOAD_HASH;
+        }
+
+        try {
+            Buffer body = new Buffer();
+            request.body().writeTo(body);
+            return hex(sha256(body.readByteArray()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Request body could not be read for signing", e);
+        }
+    }
+
+    private static String getHost(HttpUrl url) {
+        return url.port() == HttpUrl.defaultPort(url.scheme()) ? url.host() : url.host() + ":" + url.port();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name())
+                    .replace("+", "%20")
+                    .replace("*", "%2A")
+                    .replace("%7E", "~");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return digest.digest(data);
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        Mac mac = HMAC_SHA_256.get();
+        try {
+            mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hex(byte[] data) {
+        return BaseEncoding.base16().lowerCase().encode(data);
+    }
+}
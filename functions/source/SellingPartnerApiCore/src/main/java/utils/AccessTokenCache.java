@@ -0,0 +1,237 @@
+package utils;
+
+import com.amazon.SellingPartnerAPIAA.LWAAccessTokenCache;
+import com.amazonaws.encryptionsdk.AwsCrypto;
+import com.amazonaws.encryptionsdk.CommitmentPolicy;
+import com.amazonaws.encryptionsdk.CryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.caching.CachingCryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.caching.LocalCryptoMaterialsCache;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * LWA access token cache shared by every SP-API client of the container, so that only the first call for a given
+ * client id, refresh token and scope exchanges the refresh token with Login With Amazon. The key is the token request
+ * of the SP-API auth library, which holds exactly these values.
+ * Tokens are handed out until a few minutes before they expire; after that the next caller fetches a new one, so a
+ * token never expires in the middle of an invocation.
+ * With a table name, tokens are also stored encrypted in DynamoDB, where the containers of the other functions (e.g.
+ * ReportCreator and ReportDocumentRetrieval acting for the same seller) find them. A failure of that shared tier is
+ * logged and otherwise ignored: it only costs a token exchange.
+ * Invalidated tokens are also deleted from the shared tier, unless another container already replaced them there.
+ */
+public class AccessTokenCache implements LWAAccessTokenCache {
+
+    private static final String ACCESS_TOKENS_TABLE_HASH_KEY_NAME = "TokenKey";
+    private static final String ACCESS_TOKENS_TABLE_TOKEN_NAME = "AccessToken";
+    private static final String ACCESS_TOKENS_TABLE_EXPIRATION_NAME = "ExpiresAt";
+    private static final String TOKEN_REQUEST_REFRESH_TOKEN_NAME = "refresh_token";
+
+    private static final long MAX_CACHED_TOKENS = 1000;
+    private static final long REFRESH_AHEAD_SECONDS = 300;
+    private static final int MAX_CACHED_DATA_KEYS = 100;
+    private static final long DATA_KEY_MAX_AGE_SECONDS = 3600;
+
+    private static final Gson GSON = new Gson();
+
+    private final String tableName;
+    private final AwsCrypto crypto;
+    private final CryptoMaterialsManager materialsManager;
+    private final Cache<Object, CachedAccessToken> accessTokens = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_TOKENS)
+            .build();
+
+    /**
+     * @param tableName        Table of the shared tier, null or empty to keep tokens in memory only
+     * @param encryptionKeyArn KMS key the tokens of the shared tier are encrypted with
+     */
+    public AccessTokenCache(String tableName, String encryptionKeyArn) {
+        if (tableName == null || tableName.isEmpty()) {
+            this.tableName = null;
+            this.crypto = null;
+            this.materialsManager = null;
+            return;
+        }
+
+        this.tableName = tableName;
+        this.crypto = AwsCrypto.builder()
+                .withCommitmentPolicy(CommitmentPolicy.RequireEncryptRequireDecrypt)
+                .build();
+        this.materialsManager = CachingCryptoMaterialsManager.newBuilder()
+                .withMasterKeyProvider(AwsClients.newKmsMasterKeyProvider(encryptionKeyArn))
+                .withCache(new LocalCryptoMaterialsCache(MAX_CACHED_DATA_KEYS))
+                .withMaxAge(DATA_KEY_MAX_AGE_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public Object get(Object tokenRequest) {
+        CachedAccessToken accessToken = accessTokens.getIfPresent(tokenRequest);
+        if (accessToken != null && accessToken.isUsable()) {
+            return accessToken.getAccessToken();
+        }
+
+        if (tableName != null) {
+            accessToken = getSharedAccessToken(tokenRequest);
+            if (accessToken != null && accessToken.isUsable()) {
+                accessTokens.put(tokenRequest, accessToken);
+                return accessToken.getAccessToken();
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void put(Object tokenRequest, String accessToken, long tokenTTLInSeconds) {
+        CachedAccessToken cachedAccessToken = new CachedAccessToken(accessToken,
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(tokenTTLInSeconds));
+        accessTokens.put(tokenRequest, cachedAccessToken);
+
+        if (tableName != null) {
+            putSharedAccessToken(tokenRequest, cachedAccessToken);
+        }
+    }
+
+    /**
+     * Drops the tokens obtained with the given refresh token, e.g. after SP-API rejected one, so that other containers
+     * don't get them from the shared tier either. Tokens of other refresh tokens are kept.
+     */
+    public void invalidate(String refreshToken) {
+        invalidateIf(tokenRequest -> refreshToken.equals(getRefreshToken(tokenRequest)));
+    }
+
+    /**
+     * Drops the tokens of grantless operations, which are obtained without a refresh token.
+     */
+    public void invalidateGrantless() {
+        invalidateIf(tokenRequest -> getRefreshToken(tokenRequest) == null);
+    }
+
+    private void invalidateIf(Predicate<Object> tokenRequestFilter) {
+        Map<Object, CachedAccessToken> invalidatedTokens = new HashMap<>();
+        accessTokens.asMap().forEach((tokenRequest, accessToken) -> {
+            if (tokenRequestFilter.test(tokenRequest)) {
+                invalidatedTokens.put(tokenRequest, accessToken);
+            }
+        });
+        accessTokens.invalidateAll(invalidatedTokens.keySet());
+
+        if (tableName != null) {
+            invalidatedTokens.forEach(this::deleteSharedAccessToken);
+        }
+    }
+
+    private CachedAccessToken getSharedAccessToken(Object tokenRequest) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(ACCESS_TOKENS_TABLE_HASH_KEY_NAME, new AttributeValue(getTokenKey(tokenRequest)));
+
+        GetItemRequest getItemRequest = new GetItemRequest()
+                .withTableName(tableName)
+                .withKey(key);
+
+        try {
+            Map<String, AttributeValue> item = AwsClients.getDynamoDB().getItem(getItemRequest).getItem();
+            if (item == null) {
+                return null;
+            }
+
+            long expiresAtMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(item.get(ACCESS_TOKENS_TABLE_EXPIRATION_NAME).getN()));
+            byte[] encryptedAccessToken = item.get(ACCESS_TOKENS_TABLE_TOKEN_NAME).getB().array();
+            byte[] accessToken = crypto.decryptData(materialsManager, encryptedAccessToken).getResult();
+
+            return new CachedAccessToken(new String(accessToken, StandardCharsets.UTF_8), expiresAtMillis);
+        } catch (RuntimeException e) {
+            LambdaRuntime.getLogger().log(String.format("Shared access token retrieval failed: %s", e));
+            return null;
+        }
+    }
+
+    private void putSharedAccessToken(Object tokenRequest, CachedAccessToken accessToken) {
+        try {
+            byte[] encryptedAccessToken = crypto.encryptData(materialsManager,
+                    accessToken.getAccessToken().getBytes(StandardCharsets.UTF_8)).getResult();
+
+            //ExpiresAt is also the table's TTL attribute, expired tokens are deleted by DynamoDB
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put(ACCESS_TOKENS_TABLE_HASH_KEY_NAME, new AttributeValue(getTokenKey(tokenRequest)));
+            item.put(ACCESS_TOKENS_TABLE_TOKEN_NAME, new AttributeValue().withB(ByteBuffer.wrap(encryptedAccessToken)));
+            item.put(ACCESS_TOKENS_TABLE_EXPIRATION_NAME, new AttributeValue()
+                    .withN(getExpiresAtSeconds(accessToken)));
+
+            PutItemRequest putItemRequest = new PutItemRequest()
+                    .withTableName(tableName)
+                    .withItem(item);
+
+            AwsClients.getDynamoDB().putItem(putItemRequest);
+        } catch (RuntimeException e) {
+            LambdaRuntime.getLogger().log(String.format("Shared access token storage failed: %s", e));
+        }
+    }
+
+    private void deleteSharedAccessToken(Object tokenRequest, CachedAccessToken accessToken) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(ACCESS_TOKENS_TABLE_HASH_KEY_NAME, new AttributeValue(getTokenKey(tokenRequest)));
+
+        //Tokens are told apart by their expiration, a newer token stored by another container is kept
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":expiresAt", new AttributeValue().withN(getExpiresAtSeconds(accessToken)));
+
+        DeleteItemRequest deleteItemRequest = new DeleteItemRequest()
+                .withTableName(tableName)
+                .withKey(key)
+                .withConditionExpression(ACCESS_TOKENS_TABLE_EXPIRATION_NAME + " = :expiresAt")
+                .withExpressionAttributeValues(expressionAttributeValues);
+
+        try {
+            AwsClients.getDynamoDB().deleteItem(deleteItemRequest);
+        } catch (ConditionalCheckFailedException e) {
+            //Already replaced or deleted
+        } catch (RuntimeException e) {
+            LambdaRuntime.getLogger().log(String.format("Shared access token deletion failed: %s", e));
+        }
+    }
+
+    private static String getExpiresAtSeconds(CachedAccessToken accessToken) {
+        return String.valueOf(TimeUnit.MILLISECONDS.toSeconds(accessToken.getExpiresAtMillis()));
+    }
+
+    //The token request is what the auth library posts to LWA: its JSON form holds the client id, refresh token and
+    //scopes, and it also holds the client secret, which is why only its hash is stored
+    private static String getTokenKey(Object tokenRequest) {
+        return Hashing.sha256().hashString(GSON.toJson(tokenRequest), StandardCharsets.UTF_8).toString();
+    }
+
+    //Null for the token requests of grantless operations, which are authorized by scopes instead
+    private static String getRefreshToken(Object tokenRequest) {
+        JsonElement refreshToken = GSON.toJsonTree(tokenRequest).getAsJsonObject().get(TOKEN_REQUEST_REFRESH_TOKEN_NAME);
+        return refreshToken == null || refreshToken.isJsonNull() ? null : refreshToken.getAsString();
+    }
+
+    @Value
+    private static class CachedAccessToken {
+        String accessToken;
+        long expiresAtMillis;
+
+        boolean isUsable() {
+            return System.currentTimeMillis() < expiresAtMillis - TimeUnit.SECONDS.toMillis(REFRESH_AHEAD_SECONDS);
+        }
+    }
+}
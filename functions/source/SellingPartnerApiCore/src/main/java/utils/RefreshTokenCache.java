@@ -0,0 +1,92 @@
+package utils;
+
+import com.amazonaws.encryptionsdk.AwsCrypto;
+import com.amazonaws.encryptionsdk.CommitmentPolicy;
+import com.amazonaws.encryptionsdk.CryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.caching.CachingCryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.caching.LocalCryptoMaterialsCache;
+import com.amazonaws.encryptionsdk.kms.KmsMasterKeyProvider;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps decrypted refresh tokens in memory, keyed by seller id, so that repeated requests for the same seller
+ * skip both the DynamoDB read and the KMS decrypt call.
+ * Decryption materials are cached for longer than the tokens themselves: once a token expires it is read again
+ * from DynamoDB (picking up tokens replaced by TokenStorage), but KMS is only called if its data key changed.
+ */
+public class RefreshTokenCache {
+
+    private static final String SELLING_PARTNERS_TABLE_HASH_KEY_NAME = "SellerId";
+    private static final String SELLING_PARTNERS_TABLE_TOKEN_NAME = "RefreshToken";
+
+    private static final long MAX_CACHED_TOKENS = 1000;
+    private static final long TOKEN_TTL_SECONDS = 300;
+    private static final int MAX_CACHED_DATA_KEYS = 1000;
+    private static final long DATA_KEY_MAX_AGE_SECONDS = 3600;
+
+    private final String tableName;
+    private final AwsCrypto crypto;
+    private final CryptoMaterialsManager materialsManager;
+    private final Cache<String, String> refreshTokens;
+
+    public RefreshTokenCache(String tableName, String encryptionKeyArn) {
+        this.tableName = tableName;
+
+        this.crypto = AwsCrypto.builder()
+                .withCommitmentPolicy(CommitmentPolicy.RequireEncryptRequireDecrypt)
+                .build();
+
+        KmsMasterKeyProvider keyProvider = AwsClients.newKmsMasterKeyProvider(encryptionKeyArn);
+        this.materialsManager = CachingCryptoMaterialsManager.newBuilder()
+                .withMasterKeyProvider(keyProvider)
+                .withCache(new LocalCryptoMaterialsCache(MAX_CACHED_DATA_KEYS))
+                .withMaxAge(DATA_KEY_MAX_AGE_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        this.refreshTokens = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_TOKENS)
+                .expireAfterWrite(TOKEN_TTL_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public String getRefreshToken(String sellerId) {
+        try {
+            return refreshTokens.get(sellerId, () -> loadRefreshToken(sellerId));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new RuntimeException(String.format("Refresh token retrieval failed for seller %s", sellerId), e.getCause());
+        }
+    }
+
+    public void invalidate(String sellerId) {
+        refreshTokens.invalidate(sellerId);
+    }
+
+    private String loadRefreshToken(String sellerId) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(SELLING_PARTNERS_TABLE_HASH_KEY_NAME, new AttributeValue(sellerId));
+
+        GetItemRequest getItemRequest = new GetItemRequest()
+                .withTableName(tableName)
+                .withKey(key);
+
+        GetItemResult getItemResult = AwsClients.getDynamoDB().getItem(getItemRequest);
+        Map<String, AttributeValue> item = getItemResult.getItem();
+        ByteBuffer encryptedRefreshToken = item.get(SELLING_PARTNERS_TABLE_TOKEN_NAME).getB();
+        byte[] encryptedRefreshTokenBytes = encryptedRefreshToken.array();
+
+        byte[] decryptedRefreshToken = crypto.decryptData(materialsManager, encryptedRefreshTokenBytes).getResult();
+        return new String(decryptedRefreshToken, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,26 @@
+package utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import static utils.SellingPartnerApiConstants.VALID_SP_API_REGION_CONFIG;
+
+@Data
+@AllArgsConstructor
+public class RegionConfig {
+
+    public String awsRegion;
+    public String spApiEndpoint;
+
+    public static RegionConfig fromRegionCode(String regionCode) {
+        if (!VALID_SP_API_REGION_CONFIG.containsKey(regionCode)) {
+            String msg = String.format("Region Code %s is not valid. Value must be one of %s",
+                    regionCode,
+                    VALID_SP_API_REGION_CONFIG.keySet());
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        return VALID_SP_API_REGION_CONFIG.get(regionCode);
+    }
+}
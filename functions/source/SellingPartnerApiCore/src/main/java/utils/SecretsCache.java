@@ -0,0 +1,51 @@
+package utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps parsed Secrets Manager secrets in memory so that warm Lambda invocations don't fetch them again.
+ * Entries expire after the configured TTL and can be dropped earlier with {@link #invalidateAll()},
+ * e.g. when SP-API rejects the cached credentials.
+ */
+public class SecretsCache {
+
+    private final Cache<String, Object> secrets;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public SecretsCache(long ttlSeconds) {
+        this.secrets = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public <T> T getSecret(String secretId, Class<T> secretType) throws Exception {
+        try {
+            Object secret = secrets.get(secretId, () -> mapper.readValue(getSecretString(secretId), secretType));
+            return secretType.cast(secret);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            //Unwraps both checked failures, e.g. of parsing, and unchecked ones, e.g. of Secrets Manager
+            throw (Exception) e.getCause();
+        }
+    }
+
+    public void invalidateAll() {
+        secrets.invalidateAll();
+    }
+
+    private String getSecretString(String secretId) {
+        GetSecretValueRequest request = GetSecretValueRequest.builder()
+                .secretId(secretId)
+                .build();
+
+        GetSecretValueResponse response = AwsClients.getSecretsManager().getSecretValue(request);
+        return response.secretString();
+    }
+}
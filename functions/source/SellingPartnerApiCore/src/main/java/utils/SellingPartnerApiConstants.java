@@ -1,10 +1,16 @@
 package utils;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 
 import java.util.Map;
 
-public class Constants {
+public class SellingPartnerApiConstants {
+
+    //Lambda Environment Variables
+    //Only set to run the functions against local stand-ins of SP-API and LWA, e.g. in the load harness
+    private static final String SP_API_ENDPOINT_ENV_VARIABLE = "SP_API_ENDPOINT";
+    private static final String LWA_ENDPOINT_ENV_VARIABLE = "LWA_ENDPOINT";
 
     //Region Configuration
     public static final String NA_REGION_CODE = "NA";
@@ -18,10 +24,15 @@ public class Constants {
     public static final String SP_API_FE_ENDPOINT = "https://sellingpartnerapi-fe.amazon.com";
 
     public static final Map<String, RegionConfig> VALID_SP_API_REGION_CONFIG = ImmutableMap.of(
-            NA_REGION_CODE, new RegionConfig(SP_API_NA_AWS_REGION, SP_API_NA_ENDPOINT),
-            EU_REGION_CODE, new RegionConfig(SP_API_EU_AWS_REGION, SP_API_EU_ENDPOINT),
-            FE_REGION_CODE, new RegionConfig(SP_API_FE_AWS_REGION, SP_API_FE_ENDPOINT));
+            NA_REGION_CODE, new RegionConfig(SP_API_NA_AWS_REGION, getEndpoint(SP_API_ENDPOINT_ENV_VARIABLE, SP_API_NA_ENDPOINT)),
+            EU_REGION_CODE, new RegionConfig(SP_API_EU_AWS_REGION, getEndpoint(SP_API_ENDPOINT_ENV_VARIABLE, SP_API_EU_ENDPOINT)),
+            FE_REGION_CODE, new RegionConfig(SP_API_FE_AWS_REGION, getEndpoint(SP_API_ENDPOINT_ENV_VARIABLE, SP_API_FE_ENDPOINT)));
 
     //Login With Amazon Configuration
-    public static final String LWA_ENDPOINT = "https://api.amazon.com/auth/o2/token";
+    public static final String LWA_ENDPOINT = getEndpoint(LWA_ENDPOINT_ENV_VARIABLE, "https://api.amazon.com/auth/o2/token");
+
+    private static String getEndpoint(String overrideEnvVariable, String endpoint) {
+        String override = System.getenv(overrideEnvVariable);
+        return Strings.isNullOrEmpty(override) ? endpoint : override;
+    }
 }
@@ -0,0 +1,139 @@
+package utils;
+
+import com.amazon.SellingPartnerAPIAA.AWSAuthenticationCredentials;
+import com.amazon.SellingPartnerAPIAA.AWSAuthenticationCredentialsProvider;
+import com.amazon.SellingPartnerAPIAA.LWAAccessTokenCache;
+import com.amazon.SellingPartnerAPIAA.LWAAuthorizationCredentials;
+import com.amazon.SellingPartnerAPIAA.LWAClientScopes;
+import com.google.common.collect.Sets;
+
+import static utils.SellingPartnerApiConstants.LWA_ENDPOINT;
+
+/**
+ * Builds the AWS and LWA credentials needed to call SP-API on behalf of a seller.
+ * Secrets, refresh tokens and access tokens are read through in-memory caches, so a single instance should be kept in
+ * a static field and shared by all invocations of the function.
+ */
+public class SellingPartnerApiCredentials {
+
+    //Lambda Environment Variables
+    private static final String IAM_USER_CREDENTIALS_SECRET_ARN_ENV_VARIABLE = "IAM_USER_CREDENTIALS_SECRET_ARN";
+    private static final String SP_API_APP_CREDENTIALS_SECRET_ARN_ENV_VARIABLE = "SP_API_APP_CREDENTIALS_SECRET_ARN";
+    private static final String ROLE_ARN_ENV_VARIABLE = "ROLE_ARN";
+    private static final String ENCRYPTION_KEY_ARN_ENV_VARIABLE = "ENCRYPTION_KEY_ARN";
+    private static final String SELLING_PARTNERS_TABLE_NAME_ENV_VARIABLE = "SELLING_PARTNERS_TABLE_NAME";
+    private static final String SECRETS_CACHE_TTL_SECONDS_ENV_VARIABLE = "SECRETS_CACHE_TTL_SECONDS";
+    private static final String ACCESS_TOKENS_TABLE_NAME_ENV_VARIABLE = "ACCESS_TOKENS_TABLE_NAME";
+
+    private static final long DEFAULT_SECRETS_CACHE_TTL_SECONDS = 900;
+
+    private final String iamUserCredentialsSecretArn;
+    private final String appCredentialsSecretArn;
+    private final String roleArn;
+    private final String roleSessionName;
+    private final SecretsCache secretsCache;
+    private final RefreshTokenCache refreshTokenCache;
+    private final AccessTokenCache accessTokenCache;
+
+    public SellingPartnerApiCredentials(String iamUserCredentialsSecretArn, String appCredentialsSecretArn,
+                                        String roleArn, String roleSessionName,
+                                        SecretsCache secretsCache, RefreshTokenCache refreshTokenCache,
+                                        AccessTokenCache accessTokenCache) {
+        this.iamUserCredentialsSecretArn = iamUserCredentialsSecretArn;
+        this.appCredentialsSecretArn = appCredentialsSecretArn;
+        this.roleArn = roleArn;
+        this.roleSessionName = roleSessionName;
+        this.secretsCache = secretsCache;
+        this.refreshTokenCache = refreshTokenCache;
+        this.accessTokenCache = accessTokenCache;
+    }
+
+    public static SellingPartnerApiCredentials fromEnvironment(String roleSessionName) {
+        return new SellingPartnerApiCredentials(
+                System.getenv(IAM_USER_CREDENTIALS_SECRET_ARN_ENV_VARIABLE),
+                System.getenv(SP_API_APP_CREDENTIALS_SECRET_ARN_ENV_VARIABLE),
+                System.getenv(ROLE_ARN_ENV_VARIABLE),
+                roleSessionName,
+                new SecretsCache(getSecretsCacheTtlSeconds()),
+                new RefreshTokenCache(System.getenv(SELLING_PARTNERS_TABLE_NAME_ENV_VARIABLE),
+                        System.getenv(ENCRYPTION_KEY_ARN_ENV_VARIABLE)),
+                new AccessTokenCache(System.getenv(ACCESS_TOKENS_TABLE_NAME_ENV_VARIABLE),
+                        System.getenv(ENCRYPTION_KEY_ARN_ENV_VARIABLE)));
+    }
+
+    public AWSAuthenticationCredentials getAwsAuthenticationCredentials(RegionConfig regionConfig) throws Exception {
+        IAMUserCredentials iamUserCredentials = secretsCache.getSecret(iamUserCredentialsSecretArn, IAMUserCredentials.class);
+
+        return AWSAuthenticationCredentials.builder()
+                .accessKeyId(iamUserCredentials.getAccessKeyId())
+                .secretKey(iamUserCredentials.getSecretKey())
+                .region(regionConfig.getAwsRegion())
+                .build();
+    }
+
+    public AWSAuthenticationCredentialsProvider getAwsAuthenticationCredentialsProvider() {
+        return AWSAuthenticationCredentialsProvider.builder()
+                .roleArn(roleArn)
+                .roleSessionName(roleSessionName)
+                .build();
+    }
+
+    /**
+     * LWA credentials for operations performed on behalf of the given seller, authorized by its refresh token.
+     */
+    public LWAAuthorizationCredentials getLwaAuthorizationCredentials(String sellerId) throws Exception {
+        AppCredentials appCredentials = secretsCache.getSecret(appCredentialsSecretArn, AppCredentials.class);
+
+        return LWAAuthorizationCredentials.builder()
+                .clientId(appCredentials.getClientId())
+                .clientSecret(appCredentials.getClientSecret())
+                .endpoint(LWA_ENDPOINT)
+                .refreshToken(refreshTokenCache.getRefreshToken(sellerId))
+                .build();
+    }
+
+    /**
+     * LWA credentials for grantless operations, authorized by the given scopes instead of a seller refresh token.
+     */
+    public LWAAuthorizationCredentials getGrantlessLwaAuthorizationCredentials(String... scopes) throws Exception {
+        AppCredentials appCredentials = secretsCache.getSecret(appCredentialsSecretArn, AppCredentials.class);
+
+        return LWAAuthorizationCredentials.builder()
+                .clientId(appCredentials.getClientId())
+                .clientSecret(appCredentials.getClientSecret())
+                .endpoint(LWA_ENDPOINT)
+                .scopes(new LWAClientScopes(Sets.newHashSet(scopes)))
+                .build();
+    }
+
+    /**
+     * Access token cache to build every SP-API client with, so that access tokens outlive the client they were
+     * fetched for.
+     */
+    public LWAAccessTokenCache getLwaAccessTokenCache() {
+        return accessTokenCache;
+    }
+
+    /**
+     * Drops the cached refresh token of the seller and the access tokens obtained with it, e.g. after SP-API rejected
+     * them. The cached credentials of other sellers are kept.
+     */
+    public void invalidate(String sellerId) {
+        //The refresh token the rejected access token was obtained with, read again if it is no longer cached
+        String refreshToken = refreshTokenCache.getRefreshToken(sellerId);
+        refreshTokenCache.invalidate(sellerId);
+        accessTokenCache.invalidate(refreshToken);
+    }
+
+    /**
+     * Drops the cached access tokens of grantless operations, e.g. after SP-API rejected them.
+     */
+    public void invalidateGrantless() {
+        accessTokenCache.invalidateGrantless();
+    }
+
+    private static long getSecretsCacheTtlSeconds() {
+        String ttlSeconds = System.getenv(SECRETS_CACHE_TTL_SECONDS_ENV_VARIABLE);
+        return ttlSeconds == null || ttlSeconds.isEmpty() ? DEFAULT_SECRETS_CACHE_TTL_SECONDS : Long.parseLong(ttlSeconds);
+    }
+}
@@ -0,0 +1,120 @@
+package io.swagger.client;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApiClientThrottlingTest {
+
+    private static final String CREATE_REPORT_PATH = "/reports/2021-06-30/reports";
+
+    private final Queue<ThrottledResponse> responses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private HttpServer server;
+    private ApiClient apiClient;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            ThrottledResponse throttled = responses.poll();
+            byte[] body = (throttled == null ? "{\"reportId\":\"50001\"}" : "{\"errors\":[]}")
+                    .getBytes(StandardCharsets.UTF_8);
+
+            if (throttled != null && throttled.rateLimit != null) {
+                exchange.getResponseHeaders().add(AdaptiveRateLimiter.RATE_LIMIT_HEADER, throttled.rateLimit);
+            }
+            exchange.sendResponseHeaders(throttled == null ? 202 : 429, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        //Buckets are shared by the container, a scope of its own keeps each test's bucket apart
+        apiClient = new ApiClient()
+                .setBasePath("http://127.0.0.1:" + server.getAddress().getPort())
+                .setRateLimitScope(UUID.randomUUID().toString());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void throttledCall_retryWaitsForItsPermit() throws IOException {
+        //Two requests a second: the bucket has a permit again half a second after the 429 emptied it
+        responses.add(new ThrottledResponse("2.0"));
+
+        long startNanos = System.nanoTime();
+        Response response = createReport();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertEquals(202, response.code());
+        assertEquals(2, requestCount.get());
+        assertTrue("Retried after " + elapsedMillis + " ms", elapsedMillis >= 450);
+    }
+
+    @Test
+    public void throttledCall_permitTooFarAway_returnsThrottledResponse() throws IOException {
+        //One request a minute: no permit before the retry deadline, the 429 is returned instead of a permit timeout
+        responses.add(new ThrottledResponse("0.0167"));
+
+        long startNanos = System.nanoTime();
+        Response response = createReport();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertEquals(429, response.code());
+        assertEquals(1, requestCount.get());
+        assertTrue("Returned after " + elapsedMillis + " ms", elapsedMillis < 5000);
+    }
+
+    @Test
+    public void throttledCall_withoutRateLimiter_isRetriedAfterBackoff() throws IOException {
+        responses.add(new ThrottledResponse("0.0167"));
+        apiClient.disableRateLimiter()
+                .setRetryPolicy(ExponentialBackoffRetryPolicy.builder().baseDelayMillis(10).build());
+
+        Response response = createReport();
+
+        assertEquals(202, response.code());
+        assertEquals(2, requestCount.get());
+    }
+
+    private Response createReport() throws IOException {
+        Request request = new Request.Builder()
+                .url(apiClient.getBasePath() + CREATE_REPORT_PATH)
+                .post(RequestBody.create(MediaType.parse("application/json"), "{\"reportType\":\"GET_FLAT_FILE_OPEN_LISTINGS_DATA\"}"))
+                .build();
+
+        return apiClient.getHttpClient().newCall(request).execute();
+    }
+
+    private static final class ThrottledResponse {
+        private final String rateLimit;
+
+        ThrottledResponse(String rateLimit) {
+            this.rateLimit = rateLimit;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.swagger.client;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExponentialBackoffRetryPolicyTest {
+
+    private static final Request GET_REQUEST = new Request.Builder()
+            .url("https://sellingpartnerapi-na.amazon.com/reports/2021-06-30/reports/12345")
+            .get()
+            .build();
+    private static final Request POST_REQUEST = new Request.Builder()
+            .url("https://sellingpartnerapi-na.amazon.com/reports/2021-06-30/reports")
+            .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+            .build();
+
+    private final ExponentialBackoffRetryPolicy policy = ExponentialBackoffRetryPolicy.builder()
+            .maxAttempts(3)
+            .baseDelayMillis(100)
+            .maxDelayMillis(10000)
+            .build();
+
+    @Test
+    public void getRetryDelayMillis_backoffStaysWithinExponentialCeiling() {
+        for (int i = 0; i < 1000; i++) {
+            long firstDelay = policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 503, null), null, 1);
+            long secondDelay = policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 503, null), null, 2);
+
+            assertTrue(firstDelay >= 0 && firstDelay <= 100);
+            assertTrue(secondDelay >= 0 && secondDelay <= 200);
+        }
+    }
+
+    @Test
+    public void getRetryDelayMillis_lastAttempt_isNotRetried() {
+        assertEquals(-1, policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 503, null), null, 3));
+    }
+
+    @Test
+    public void getRetryDelayMillis_retryAfterSeconds_isHonored() {
+        long delay = policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 429, " 5 "), null, 1);
+
+        assertEquals(5000, delay);
+    }
+
+    @Test
+    public void getRetryDelayMillis_retryAfterHttpDate_isHonored() {
+        String retryAfter = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(8));
+        long delay = policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 503, retryAfter), null, 1);
+
+        //The date has a one second resolution
+        assertTrue("Delay: " + delay, delay > 6000 && delay <= 8000);
+    }
+
+    @Test
+    public void getRetryDelayMillis_retryAfterInThePast_usesBackoff() {
+        String retryAfter = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusHours(1));
+        long delay = policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 503, retryAfter), null, 1);
+
+        assertTrue(delay >= 0 && delay <= 100);
+    }
+
+    @Test
+    public void getRetryDelayMillis_retryAfterOverMaxDelay_isNotRetried() {
+        assertEquals(-1, policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 429, "11"), null, 1));
+    }
+
+    @Test
+    public void getRetryDelayMillis_invalidRetryAfter_usesBackoff() {
+        long delay = policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 429, "soon"), null, 1);
+
+        assertTrue(delay >= 0 && delay <= 100);
+    }
+
+    @Test
+    public void getRetryDelayMillis_nonRetryableStatusCode_isNotRetried() {
+        assertEquals(-1, policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 400, null), null, 1));
+        assertEquals(-1, policy.getRetryDelayMillis(GET_REQUEST, response(GET_REQUEST, 403, null), null, 1));
+    }
+
+    @Test
+    public void getRetryDelayMillis_post_isOnlyRetriedWhenNotProcessed() {
+        assertTrue(policy.getRetryDelayMillis(POST_REQUEST, response(POST_REQUEST, 429, null), null, 1) >= 0);
+        assertTrue(policy.getRetryDelayMillis(POST_REQUEST, response(POST_REQUEST, 503, null), null, 1) >= 0);
+        assertEquals(-1, policy.getRetryDelayMillis(POST_REQUEST, response(POST_REQUEST, 500, null), null, 1));
+        assertEquals(-1, policy.getRetryDelayMillis(POST_REQUEST, null, new SocketTimeoutException(), 1));
+    }
+
+    @Test
+    public void getRetryDelayMillis_connectionFailure_isRetriedForIdempotentRequests() {
+        assertTrue(policy.getRetryDelayMillis(GET_REQUEST, null, new IOException("Connection reset"), 1) >= 0);
+
+        ExponentialBackoffRetryPolicy noConnectionRetries = ExponentialBackoffRetryPolicy.builder()
+                .retryConnectionFailures(false)
+                .build();
+        assertEquals(-1, noConnectionRetries.getRetryDelayMillis(GET_REQUEST, null, new IOException(), 1));
+    }
+
+    @Test
+    public void getRetryDelayMillis_rateLimitExceeded_isNotRetried() {
+        assertEquals(-1, policy.getRetryDelayMillis(GET_REQUEST, null, new RateLimitExceededException("No permit"), 1));
+    }
+
+    private static Response response(Request request, int code, String retryAfter) {
+        Response.Builder response = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("");
+        if (retryAfter != null) {
+            response.header(ExponentialBackoffRetryPolicy.RETRY_AFTER_HEADER, retryAfter);
+        }
+
+        return response.build();
+    }
+}
@@ -0,0 +1,59 @@
+package io.swagger.client;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OperationRetryPolicyTest {
+
+    private static final Request CREATE_REPORT_REQUEST = new Request.Builder()
+            .url("https://sellingpartnerapi-eu.amazon.com/reports/2021-06-30/reports")
+            .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+            .build();
+    private static final Request GET_REPORT_DOCUMENT_REQUEST = new Request.Builder()
+            .url("https://sellingpartnerapi-eu.amazon.com/reports/2021-06-30/documents/amzn1.spdoc.1.4.eu.0000-1111")
+            .build();
+    private static final Request GET_REPORT_REQUEST = new Request.Builder()
+            .url("https://sellingpartnerapi-eu.amazon.com/reports/2021-06-30/reports/50000019999")
+            .build();
+
+    @Test
+    public void getRetryDelayMillis_usesThePolicyOfTheOperation() {
+        RetryPolicy policy = new OperationRetryPolicy((request, response, exception, attempt) -> 1)
+                .withOperationPolicy("GET /reports/2021-06-30/documents/{id}", (request, response, exception, attempt) -> 2);
+
+        assertEquals(2, policy.getRetryDelayMillis(GET_REPORT_DOCUMENT_REQUEST, null, null, 1));
+        assertEquals(1, policy.getRetryDelayMillis(GET_REPORT_REQUEST, null, null, 1));
+        assertEquals(1, policy.getRetryDelayMillis(CREATE_REPORT_REQUEST, null, null, 1));
+    }
+
+    @Test
+    public void defaultRetryPolicy_waitsLongerForLowRateOperations() {
+        RetryPolicy policy = ApiClient.createDefaultRetryPolicy();
+
+        //Over the 10 second limit of the default policy
+        assertEquals(12000, policy.getRetryDelayMillis(CREATE_REPORT_REQUEST,
+                throttled(CREATE_REPORT_REQUEST, "12"), null, 1));
+        assertEquals(12000, policy.getRetryDelayMillis(GET_REPORT_DOCUMENT_REQUEST,
+                throttled(GET_REPORT_DOCUMENT_REQUEST, "12"), null, 3));
+        assertEquals(-1, policy.getRetryDelayMillis(GET_REPORT_DOCUMENT_REQUEST,
+                throttled(GET_REPORT_DOCUMENT_REQUEST, "12"), null, 4));
+        assertEquals(-1, policy.getRetryDelayMillis(GET_REPORT_REQUEST,
+                throttled(GET_REPORT_REQUEST, "12"), null, 1));
+    }
+
+    private static Response throttled(Request request, String retryAfter) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(429)
+                .message("Too Many Requests")
+                .header(ExponentialBackoffRetryPolicy.RETRY_AFTER_HEADER, retryAfter)
+                .build();
+    }
+}
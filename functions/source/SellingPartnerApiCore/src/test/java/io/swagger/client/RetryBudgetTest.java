@@ -0,0 +1,58 @@
+package io.swagger.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void tryAcquireRetry_isRefusedOnceTheBudgetIsSpent() {
+        RetryBudget budget = new RetryBudget(20, 5, 1);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(budget.tryAcquireRetry());
+        }
+        assertFalse(budget.tryAcquireRetry());
+        assertEquals(0, budget.getTokens());
+    }
+
+    @Test
+    public void tryAcquireRetry_partialBudget_isRefused() {
+        RetryBudget budget = new RetryBudget(7, 5, 1);
+
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+        assertEquals(2, budget.getTokens());
+    }
+
+    @Test
+    public void onSuccess_refundsTheBudget() {
+        RetryBudget budget = new RetryBudget(10, 5, 1);
+        assertTrue(budget.tryAcquireRetry());
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+
+        //A retry for every successRefund / retryCost successful calls
+        for (int i = 0; i < 4; i++) {
+            budget.onSuccess();
+        }
+        assertFalse(budget.tryAcquireRetry());
+
+        budget.onSuccess();
+        assertTrue(budget.tryAcquireRetry());
+    }
+
+    @Test
+    public void onSuccess_doesNotExceedCapacity() {
+        RetryBudget budget = new RetryBudget(10, 5, 3);
+
+        for (int i = 0; i < 10; i++) {
+            budget.onSuccess();
+        }
+
+        assertEquals(10, budget.getTokens());
+    }
+}
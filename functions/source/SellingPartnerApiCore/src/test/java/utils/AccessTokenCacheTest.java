@@ -0,0 +1,66 @@
+package utils;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AccessTokenCacheTest {
+
+    private static final long TOKEN_TTL_SECONDS = 3600;
+
+    //Same JSON form as the token requests of the SP-API auth library
+    private static final Map<String, Object> SELLER_1_TOKEN_REQUEST = ImmutableMap.of(
+            "grant_type", "refresh_token",
+            "refresh_token", "Atzr|seller-1",
+            "client_id", "amzn1.application-oa2-client.1");
+    private static final Map<String, Object> SELLER_2_TOKEN_REQUEST = ImmutableMap.of(
+            "grant_type", "refresh_token",
+            "refresh_token", "Atzr|seller-2",
+            "client_id", "amzn1.application-oa2-client.1");
+    private static final Map<String, Object> GRANTLESS_TOKEN_REQUEST = ImmutableMap.of(
+            "grant_type", "client_credentials",
+            "client_id", "amzn1.application-oa2-client.1",
+            "scope", ImmutableMap.of("scope", Collections.singleton("sellingpartnerapi::notifications")));
+
+    private final AccessTokenCache cache = new AccessTokenCache(null, null);
+
+    @Test
+    public void invalidate_dropsOnlyTheTokensOfTheRefreshToken() {
+        putAll();
+
+        cache.invalidate("Atzr|seller-1");
+
+        assertNull(cache.get(SELLER_1_TOKEN_REQUEST));
+        assertEquals("Atza|seller-2", cache.get(SELLER_2_TOKEN_REQUEST));
+        assertEquals("Atza|grantless", cache.get(GRANTLESS_TOKEN_REQUEST));
+    }
+
+    @Test
+    public void invalidateGrantless_keepsSellerTokens() {
+        putAll();
+
+        cache.invalidateGrantless();
+
+        assertNull(cache.get(GRANTLESS_TOKEN_REQUEST));
+        assertEquals("Atza|seller-1", cache.get(SELLER_1_TOKEN_REQUEST));
+        assertEquals("Atza|seller-2", cache.get(SELLER_2_TOKEN_REQUEST));
+    }
+
+    @Test
+    public void get_tokenAboutToExpire_isNotHandedOut() {
+        cache.put(SELLER_1_TOKEN_REQUEST, "Atza|seller-1", 60);
+
+        assertNull(cache.get(SELLER_1_TOKEN_REQUEST));
+    }
+
+    private void putAll() {
+        cache.put(SELLER_1_TOKEN_REQUEST, "Atza|seller-1", TOKEN_TTL_SECONDS);
+        cache.put(SELLER_2_TOKEN_REQUEST, "Atza|seller-2", TOKEN_TTL_SECONDS);
+        cache.put(GRANTLESS_TOKEN_REQUEST, "Atza|grantless", TOKEN_TTL_SECONDS);
+    }
+}
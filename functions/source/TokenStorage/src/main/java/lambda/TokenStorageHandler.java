@@ -6,13 +6,14 @@ import com.amazonaws.encryptionsdk.CryptoResult;
 import com.amazonaws.encryptionsdk.kms.KmsMasterKey;
 import com.amazonaws.encryptionsdk.kms.KmsMasterKeyProvider;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.google.common.collect.Lists;
+import utils.AwsClients;
+import utils.StartupReport;
 import utils.TokenStorageResponse;
 
 import java.nio.ByteBuffer;
@@ -34,8 +35,21 @@ public class TokenStorageHandler implements RequestHandler<Map<String, String>,
     private static final String SELLING_PARTNERS_TABLE_HASH_KEY_NAME = "SellerId";
     private static final String SELLING_PARTNERS_TABLE_TOKEN_NAME = "RefreshToken";
 
+    //Shared across warm invocations of the same container
+    private static final AwsCrypto CRYPTO = AwsCrypto.builder()
+            .withCommitmentPolicy(CommitmentPolicy.RequireEncryptRequireDecrypt)
+            .build();
+    private static final KmsMasterKeyProvider KEY_PROVIDER =
+            AwsClients.newKmsMasterKeyProvider(System.getenv(ENCRYPTION_KEY_ARN_ENV_VARIABLE));
+
+    static {
+        AwsClients.getDynamoDB();
+        StartupReport.markInitialized();
+    }
+
     @Override
     public TokenStorageResponse handleRequest(Map<String, String> event, Context context) {
+        StartupReport.report(context);
         LambdaLogger logger = context.getLogger();
         logger.log("TokenStorage Lambda handler started");
 
@@ -67,14 +81,8 @@ public class TokenStorageHandler implements RequestHandler<Map<String, String>,
     }
 
     private void storeRefreshToken(String sellerId, String refreshToken) {
-        AwsCrypto crypto = AwsCrypto.builder()
-                .withCommitmentPolicy(CommitmentPolicy.RequireEncryptRequireDecrypt)
-                .build();
-
-        KmsMasterKeyProvider keyProvider = KmsMasterKeyProvider.builder().buildStrict(System.getenv(ENCRYPTION_KEY_ARN_ENV_VARIABLE));
-
         byte[] decryptedBytes = refreshToken.getBytes(StandardCharsets.UTF_8);
-        CryptoResult<byte[], KmsMasterKey> encryptedData = crypto.encryptData(keyProvider, decryptedBytes);
+        CryptoResult<byte[], KmsMasterKey> encryptedData = CRYPTO.encryptData(KEY_PROVIDER, decryptedBytes);
         byte[] encryptedBytes = encryptedData.getResult();
         ByteBuffer buffer = ByteBuffer.wrap(encryptedBytes);
 
@@ -86,7 +94,7 @@ public class TokenStorageHandler implements RequestHandler<Map<String, String>,
                 .withTableName(System.getenv(SELLING_PARTNERS_TABLE_NAME_ENV_VARIABLE))
                 .withItem(item);
 
-        AmazonDynamoDB dynamoDB = AmazonDynamoDBClientBuilder.defaultClient();
+        AmazonDynamoDB dynamoDB = AwsClients.getDynamoDB();
         dynamoDB.putItem(putItemRequest);
     }
 }
@@ -0,0 +1,78 @@
+package utils;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.encryptionsdk.kms.KmsMasterKeyProvider;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.kms.AWSKMSClientBuilder;
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+/**
+ * Holds the AWS SDK clients used by this function. Each client is built on first use and then reused by every
+ * invocation served by the same container, so warm invocations keep their pooled, kept-alive connections.
+ */
+public final class AwsClients {
+
+    //Lambda Environment Variables
+    //Only set to run the functions against local stand-ins of the AWS services, e.g. in the load harness
+    private static final String ENDPOINT_URL_ENV_VARIABLE = "AWS_ENDPOINT_URL";
+    private static final String REGION_ENV_VARIABLE = "AWS_REGION";
+
+    private static final int MAX_CONNECTIONS = 50;
+    private static final long CONNECTION_MAX_IDLE_MILLIS = 60000;
+
+    private static final Supplier<AmazonDynamoDB> DYNAMO_DB = Suppliers.memoize(() ->
+            withEndpoint(AmazonDynamoDBClientBuilder.standard(), null)
+                    .withClientConfiguration(getClientConfiguration())
+                    .build());
+
+    private AwsClients() {
+    }
+
+    public static AmazonDynamoDB getDynamoDB() {
+        return DYNAMO_DB.get();
+    }
+
+    //The provider keeps one KMS client per region, so it should be built once and reused as well
+    public static KmsMasterKeyProvider newKmsMasterKeyProvider(String encryptionKeyArn) {
+        if (isEndpointOverridden()) {
+            return KmsMasterKeyProvider.builder()
+                    .withCustomClientFactory(region -> withEndpoint(AWSKMSClientBuilder.standard(), region)
+                            .withClientConfiguration(getClientConfiguration())
+                            .build())
+                    .buildStrict(encryptionKeyArn);
+        }
+
+        return KmsMasterKeyProvider.builder()
+                .withClientBuilder(AWSKMSClientBuilder.standard().withClientConfiguration(getClientConfiguration()))
+                .buildStrict(encryptionKeyArn);
+    }
+
+    /**
+     * Sets the region of the client, or the endpoint in AWS_ENDPOINT_URL when there is one. A null region is left to
+     * the default region provider chain.
+     */
+    private static <B extends AwsClientBuilder<B, ?>> B withEndpoint(B builder, String region) {
+        if (isEndpointOverridden()) {
+            return builder.withEndpointConfiguration(new EndpointConfiguration(System.getenv(ENDPOINT_URL_ENV_VARIABLE),
+                    region != null ? region : System.getenv(REGION_ENV_VARIABLE)));
+        }
+
+        return region != null ? builder.withRegion(region) : builder;
+    }
+
+    private static boolean isEndpointOverridden() {
+        return !Strings.isNullOrEmpty(System.getenv(ENDPOINT_URL_ENV_VARIABLE));
+    }
+
+    private static ClientConfiguration getClientConfiguration() {
+        return new ClientConfiguration()
+                .withMaxConnections(MAX_CONNECTIONS)
+                .withTcpKeepAlive(true)
+                .withConnectionMaxIdleMillis(CONNECTION_MAX_IDLE_MILLIS);
+    }
+}